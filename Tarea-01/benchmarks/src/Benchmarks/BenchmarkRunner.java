@@ -0,0 +1,41 @@
+package Benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Punto de entrada de {@code benchmarks.jar}. Acepta las mismas opciones que la línea de comandos de
+ * JMH y, salvo que se indique otra cosa con {@code -rf}/{@code -rff}, guarda los resultados en JSON
+ * ({@code jmh-result-<fecha>.json}) para poder compararlos entre ejecuciones.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Ejecuta los benchmarks.
+     *
+     * @param args opciones de JMH, por ejemplo {@code ValidationBenchmarks -p rows=10000}.
+     * @throws RunnerException             si la ejecución de JMH falla.
+     * @throws CommandLineOptionException si las opciones no son válidas.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+        if (commandLine.getResultFormat().hasValue() || commandLine.getResult().hasValue()) {
+            new Runner(options.build()).run();
+            return;
+        }
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        options.resultFormat(ResultFormatType.JSON).result("jmh-result-" + timestamp + ".json");
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,236 @@
+package Benchmarks;
+
+import Reservation.ConcurrentReservationAppender;
+import Reservation.Destinations;
+import Reservation.ReservationAll;
+import Reservation.ReservationClass;
+import Reservation.ReservationFields;
+import Reservation.ReservationIngestor;
+import Reservation.ReservationRecord;
+import Utils.MappedCsvReader;
+import Utils.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Prueba de estrés del modo de escritura concurrente. Varios procesos, cada uno con varios hilos,
+ * añaden reservas a la vez sobre el mismo archivo maestro mediante
+ * {@link ConcurrentReservationAppender}; al terminar se comprueba que el encabezado aparece una sola
+ * vez, que ninguna línea está cortada o mezclada y que cada reserva enviada aparece exactamente una
+ * vez. Antes, dentro de un mismo proceso, compara el rendimiento de varios hilos con el de un único
+ * escritor secuencial.
+ *
+ * <p>Cada reserva lleva en el nombre del pasajero el proceso, el hilo y su número de secuencia
+ * codificados con letras (por ejemplo {@code Pa Tb Sbac}), para poder identificarla al verificar.</p>
+ *
+ * <p>Uso: {@code java -cp benchmarks/target/benchmarks.jar Benchmarks.ConcurrentAppendStressTest [procesos] [hilos] [reservasPorHilo]}</p>
+ */
+public class ConcurrentAppendStressTest {
+
+    private static final String CHILD_FLAG = "--child";
+
+    /**
+     * Ejecuta la prueba o, con {@code --child}, actúa como uno de los procesos escritores.
+     *
+     * @param args {@code [procesos] [hilos] [reservasPorHilo]}; por defecto 3, 8 y 50000.
+     * @throws Exception si la prueba falla o algún proceso hijo termina con error.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && CHILD_FLAG.equals(args[0])) {
+            runWriters(new File(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+
+        int processes = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int perThread = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        long total = (long) processes * threads * perThread;
+
+        File baseline = File.createTempFile("reservas_stress_base", ".txt");
+        File inProcess = File.createTempFile("reservas_stress_hilos", ".txt");
+        File shared = File.createTempFile("reservas_stress", ".txt");
+        shared.delete();
+
+        // Rendimiento dentro de un proceso (la primera ronda sirve de calentamiento)
+        for (int round = 0; round < 2; round++) {
+            baseline.delete();
+            long start = System.nanoTime();
+            writeSequential(baseline, processes * threads, perThread);
+            long sequentialNanos = System.nanoTime() - start;
+
+            inProcess.delete();
+            start = System.nanoTime();
+            runWriters(inProcess, 0, processes * threads, perThread);
+            long concurrentNanos = System.nanoTime() - start;
+
+            if (round == 1) {
+                report("Un escritor", total, sequentialNanos);
+                report((processes * threads) + " hilos", total, concurrentNanos);
+            }
+        }
+        verify(inProcess, 1, processes * threads, perThread);
+
+        // Varios procesos con varios hilos cada uno sobre el mismo archivo (incluye el arranque de las JVM)
+        long start = System.nanoTime();
+        List<Process> children = new ArrayList<>();
+        for (int p = 0; p < processes; p++) {
+            children.add(new ProcessBuilder(
+                    new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", System.getProperty("java.class.path"),
+                    ConcurrentAppendStressTest.class.getName(),
+                    CHILD_FLAG, shared.getPath(), Integer.toString(p), Integer.toString(threads), Integer.toString(perThread))
+                    .inheritIO()
+                    .start());
+        }
+        for (Process child : children) {
+            if (child.waitFor() != 0) {
+                throw new IllegalStateException("Un proceso escritor terminó con error.");
+            }
+        }
+        report(processes + " procesos x " + threads + " hilos", total, System.nanoTime() - start);
+
+        verify(shared, processes, threads, perThread);
+        baseline.delete();
+        inProcess.delete();
+        shared.delete();
+    }
+
+    // Los asientos se repiten a propósito: la prueba mide la escritura, no la detección de conflictos
+    private static void writeSequential(File file, int threads, int perThread) throws IOException {
+        try (ReservationIngestor ingestor = new ReservationAll(true, file.getPath())
+                .openIngestor(ReservationIngestor.DEFAULT_COMMIT_EVERY, 0, false)) {
+            for (int t = 0; t < threads; t++) {
+                for (int s = 0; s < perThread; s++) {
+                    ingestor.append(reservation(0, t, s));
+                }
+            }
+        }
+    }
+
+    private static void runWriters(File file, int process, int threads, int perThread) throws Exception {
+        ReservationAll master = new ReservationAll(true, file.getPath());
+        master.writeHeaders(file, ReservationFields.values());
+
+        try (ConcurrentReservationAppender appender = master.openConcurrentAppender()) {
+            List<Thread> workers = new ArrayList<>();
+            List<Exception> failures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Thread worker = new Thread(() -> {
+                    try {
+                        for (int s = 0; s < perThread; s++) {
+                            appender.submit(reservation(process, thread, s));
+                        }
+                    } catch (IOException e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            if (!failures.isEmpty()) {
+                throw failures.get(0);
+            }
+        }
+    }
+
+    private static void verify(File file, int processes, int threads, int perThread) throws IOException {
+        BitSet[][] seen = new BitSet[processes][threads];
+        for (int p = 0; p < processes; p++) {
+            for (int t = 0; t < threads; t++) {
+                seen[p][t] = new BitSet(perThread);
+            }
+        }
+
+        long lines = 0;
+        long torn = 0;
+        long duplicates = 0;
+        ReservationFields[] types = ReservationFields.values();
+        try (MappedCsvReader reader = MappedCsvReader.open(file)) {
+            if (!reader.next() || !"SEAT_NUMBER, PASSENGER_NAME, CLASS, DESTINATION".equals(reader.line())) {
+                throw new IllegalStateException("El encabezado no está en la primera línea.");
+            }
+            while (reader.next()) {
+                lines++;
+                String[] fields = reader.fields();
+                boolean valid = fields.length == types.length;
+                for (int i = 0; valid && i < fields.length; i++) {
+                    valid = Utils.validateField(fields[i], types[i]) == null;
+                }
+                String[] id = valid ? fields[1].trim().split(" ") : null;
+                if (!valid || id.length != 3) {
+                    torn++;
+                    continue;
+                }
+                int p = decode(id[0]);
+                int t = decode(id[1]);
+                int s = decode(id[2]);
+                if (p >= processes || t >= threads || s >= perThread) {
+                    torn++;
+                } else if (seen[p][t].get(s)) {
+                    duplicates++;
+                } else {
+                    seen[p][t].set(s);
+                }
+            }
+        }
+
+        long missing = 0;
+        for (BitSet[] perProcess : seen) {
+            for (BitSet perThreadSeen : perProcess) {
+                missing += perThread - perThreadSeen.cardinality();
+            }
+        }
+
+        System.out.printf("Líneas: %d, cortadas: %d, duplicadas: %d, perdidas: %d%n", lines, torn, duplicates, missing);
+        if (torn > 0 || duplicates > 0 || missing > 0) {
+            throw new IllegalStateException("❌ El archivo concurrente no es consistente.");
+        }
+        System.out.println("✅ Ninguna línea cortada ni perdida.");
+    }
+
+    private static ReservationRecord reservation(int process, int thread, int sequence) {
+        Destinations[] destinations = Destinations.values();
+        ReservationClass[] classes = ReservationClass.values();
+        return new ReservationRecord(
+                1 + sequence % 999,
+                (char) ('A' + thread % 6),
+                "P" + encode(process) + " T" + encode(thread) + " S" + encode(sequence),
+                classes[sequence % classes.length],
+                destinations[(sequence + thread) % destinations.length]);
+    }
+
+    /**
+     * Codifica un número en base 26 con letras minúsculas, ya que el nombre solo admite letras.
+     */
+    private static String encode(int value) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + value % 26));
+            value /= 26;
+        } while (value > 0);
+        return letters.toString();
+    }
+
+    private static int decode(String token) {
+        int value = 0;
+        for (int i = token.length() - 1; i >= 1; i--) {
+            value = value * 26 + (token.charAt(i) - 'a');
+        }
+        return value;
+    }
+
+    private static void report(String label, long records, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-22s: %,d reservas en %.2f s (%,.0f reservas/s)%n", label, records, seconds, records / seconds);
+    }
+}
@@ -0,0 +1,91 @@
+package Benchmarks;
+
+import Utils.MappedCsvReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Mide el rendimiento de lectura, en MB/s, de {@code BufferedReader.readLine} + {@code split(",")}
+ * frente a {@link MappedCsvReader}, tanto recorriendo solo la estructura como materializando cada
+ * fila.
+ *
+ * <p>Uso: {@code java -cp benchmarks/target/benchmarks.jar Benchmarks.CsvParseBenchmark reservas_maestro.txt}</p>
+ */
+public class CsvParseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    /**
+     * Ejecuta las tres variantes sobre el archivo indicado.
+     *
+     * @param args ruta del archivo CSV a leer.
+     * @throws IOException si el archivo no puede leerse.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Uso: CsvParseBenchmark <archivo.csv>");
+            return;
+        }
+        File file = new File(args[0]);
+
+        measure("readLine + split", file, CsvParseBenchmark::readLineSplit);
+        measure("MappedCsvReader (offsets)", file, CsvParseBenchmark::mappedOffsets);
+        measure("MappedCsvReader (fields())", file, CsvParseBenchmark::mappedFields);
+    }
+
+    private static void measure(String label, File file, Parser parser) throws IOException {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += parser.parse(file);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += parser.parse(file);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double megabytes = (double) file.length() * MEASURED_ROUNDS / (1024 * 1024);
+        System.out.printf("%-28s: %8.1f MB/s (campos=%d)%n", label, megabytes / seconds, sink);
+    }
+
+    private static long readLineSplit(File file) throws IOException {
+        long fields = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fields += line.split(",").length;
+            }
+        }
+        return fields;
+    }
+
+    private static long mappedOffsets(File file) throws IOException {
+        long fields = 0;
+        try (MappedCsvReader reader = MappedCsvReader.open(file)) {
+            while (reader.next()) {
+                fields += reader.fieldCount();
+            }
+        }
+        return fields;
+    }
+
+    private static long mappedFields(File file) throws IOException {
+        long fields = 0;
+        try (MappedCsvReader reader = MappedCsvReader.open(file)) {
+            while (reader.next()) {
+                fields += reader.fields().length;
+            }
+        }
+        return fields;
+    }
+
+    @FunctionalInterface
+    private interface Parser {
+        long parse(File file) throws IOException;
+    }
+}
@@ -0,0 +1,94 @@
+package Benchmarks;
+
+import Reservation.Destinations;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Micro benchmark que compara el coste por registro de la normalización de destinos basada en
+ * {@code trim().toUpperCase().replaceAll(...)} y {@code valueOf} (implementación anterior) con la
+ * búsqueda de {@link Destinations#fromText(CharSequence)} y {@link Destinations#fromBytes}.
+ *
+ * <p>Uso, tras empaquetar el módulo de benchmarks:</p>
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar Benchmarks.DestinationLookupBenchmark
+ * </pre>
+ */
+public class DestinationLookupBenchmark {
+
+    private static final String[] DESTINATIONS = {
+            " TOKIO", " nueva york", " Buenos  Aires", " RIO_DE_JANEIRO", " Lima", " Atlantis", " PARIS",
+    };
+    private static final ByteBuffer[] DESTINATION_BYTES = new ByteBuffer[DESTINATIONS.length];
+
+    static {
+        for (int i = 0; i < DESTINATIONS.length; i++) {
+            DESTINATION_BYTES[i] = ByteBuffer.wrap(DESTINATIONS[i].getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int RECORDS_PER_ROUND = 2_000_000;
+
+    /**
+     * Ejecuta las variantes y muestra el coste medio en nanosegundos por registro.
+     *
+     * @param args no se utilizan.
+     */
+    public static void main(String[] args) {
+        double before = measure("replaceAll + valueOf", DestinationLookupBenchmark::legacyFromText);
+        double text = measure("Destinations.fromText", i -> Destinations.fromText(DESTINATIONS[i]));
+        double bytes = measure("Destinations.fromBytes", i -> {
+            ByteBuffer buffer = DESTINATION_BYTES[i];
+            return Destinations.fromBytes(buffer, 0, buffer.limit());
+        });
+
+        System.out.printf("%nMejora fromText  : x%.1f%n", before / text);
+        System.out.printf("Mejora fromBytes : x%.1f%n", before / bytes);
+    }
+
+    private static double measure(String label, Lookup lookup) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += runRound(lookup);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += runRound(lookup);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double nsPerRecord = (double) elapsed / ((long) MEASURED_ROUNDS * RECORDS_PER_ROUND);
+        System.out.printf("%-23s: %8.1f ns/registro (desconocidos=%d)%n", label, nsPerRecord, sink);
+        return nsPerRecord;
+    }
+
+    private static long runRound(Lookup lookup) {
+        long unknown = 0;
+        for (int i = 0; i < RECORDS_PER_ROUND; i++) {
+            if (lookup.find(i % DESTINATIONS.length) == null) unknown++;
+        }
+        return unknown;
+    }
+
+    /**
+     * Copia literal de la implementación de {@code Destinations.fromText} previa a la búsqueda
+     * normalizada, conservada como referencia.
+     */
+    private static Destinations legacyFromText(int index) {
+        String normalized = DESTINATIONS[index].trim().toUpperCase().replaceAll("\\s+", "_");
+        try {
+            return Destinations.valueOf(normalized);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Lookup {
+        Destinations find(int index);
+    }
+}
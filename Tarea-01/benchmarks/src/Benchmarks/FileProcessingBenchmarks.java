@@ -0,0 +1,94 @@
+package Benchmarks;
+
+import Reservation.ReservationAll;
+import Reservation.ReservationFields;
+import Utils.ReservationMetrics;
+import Utils.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JMH de las rutas de E/S sobre archivos maestros sintéticos de 10 mil, 1 millón y 10
+ * millones de reservas: el particionado por destino ({@code getUniqueDestinationsWithRecords} a
+ * través de {@link ReservationAll#createandFillFileByDestination}) y
+ * {@link Utils#processReservationFile} con sus variantes paralela y por etapas.
+ *
+ * <p>Cada benchmark se mide con las métricas de {@link ReservationMetrics} activadas y desactivadas
+ * ({@code metrics}); la diferencia es el coste de la instrumentación.</p>
+ *
+ * <p>Los archivos por destino y {@code registro_errores.log} se escriben en el directorio de trabajo,
+ * por lo que conviene lanzar los benchmarks desde una carpeta temporal. La salida por consola de los
+ * métodos medidos se descarta.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class FileProcessingBenchmarks {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private File master;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        master = SyntheticMasterFiles.master(rows);
+        ReservationMetrics.setEnabled(metrics);
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void createandFillFileByDestination() throws IOException {
+        new ReservationAll(true, master.getAbsolutePath()).createandFillFileByDestination(ReservationFields.DESTINATION);
+    }
+
+    @Benchmark
+    public void createandFillFileByDestinationStreaming() throws IOException {
+        new ReservationAll(true, master.getAbsolutePath()).createandFillFileByDestinationStreaming(ReservationFields.DESTINATION);
+    }
+
+    @Benchmark
+    public void processReservationFile() throws IOException {
+        Utils.processReservationFile(master, 4);
+    }
+
+    @Benchmark
+    public void processReservationFileParallel() throws IOException {
+        Utils.processReservationFileParallel(master, 4);
+    }
+
+    @Benchmark
+    public void processReservationFilePipelined() throws IOException {
+        Utils.processReservationFilePipelined(master, 4);
+    }
+}
@@ -0,0 +1,40 @@
+package Benchmarks;
+
+import Reservation.ReservationGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Archivos maestros sintéticos para los benchmarks, generados con {@link ReservationGenerator} y la
+ * semilla por defecto. Los archivos se guardan en el directorio temporal y se reutilizan entre
+ * ejecuciones.
+ */
+final class SyntheticMasterFiles {
+
+    private SyntheticMasterFiles() {
+    }
+
+    /**
+     * Devuelve un archivo maestro válido con el número de reservas indicado, generándolo si no
+     * existe todavía.
+     *
+     * @param rows número de reservas (sin contar el encabezado).
+     * @return archivo maestro con encabezado y cuatro campos por registro.
+     * @throws IOException si el archivo no puede generarse.
+     */
+    static File master(int rows) throws IOException {
+        File file = new File(System.getProperty("java.io.tmpdir"), "reservas_bench_" + rows + ".txt");
+        if (file.isFile() && file.length() > 0) {
+            return file;
+        }
+
+        File partial = new File(file.getPath() + ".tmp");
+        new ReservationGenerator(ReservationGenerator.DEFAULT_SEED).generate(partial, rows);
+
+        if (!partial.renameTo(file)) {
+            throw new IOException("No se pudo generar " + file.getAbsolutePath());
+        }
+        return file;
+    }
+}
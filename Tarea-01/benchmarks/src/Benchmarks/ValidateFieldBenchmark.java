@@ -0,0 +1,130 @@
+package Benchmarks;
+
+import Reservation.ReservationFields;
+import Utils.FieldValidator;
+import Utils.Utils;
+
+/**
+ * Micro benchmark que compara el coste por registro de la validación basada en
+ * {@link String#matches(String)} (implementación anterior) con {@link FieldValidator}.
+ *
+ * <p>No depende de JMH, así que se ejecuta desde la carpeta {@code Tarea-01} que contiene
+ * {@code pom.xml}, {@code src} y {@code benchmarks}, con el jar del módulo de benchmarks o, sin Maven,
+ * compilado junto a {@code src}:</p>
+ * <pre>
+ * mvn -B -f benchmarks/pom.xml package
+ * java -cp benchmarks/target/benchmarks.jar Benchmarks.ValidateFieldBenchmark
+ *
+ * javac -encoding UTF-8 -d out $(find src -name "*.java")
+ * javac -encoding UTF-8 -cp out -d out-bench benchmarks/src/Benchmarks/ValidateFieldBenchmark.java
+ * java -cp out:out-bench Benchmarks.ValidateFieldBenchmark
+ * </pre>
+ */
+public class ValidateFieldBenchmark {
+
+    private static final String[][] RECORDS = {
+            {"12C", " Ana Lopez", " BUSINESS", " TOKIO"},
+            {"3A", " Luis Pérez", " ECONOMY", " PARIS"},
+            {"999F", " Eva", " FIRST", " ROMA"},
+            {"7G", " Juan 2", " PREMIUM", " X"},
+            {"", " ", " FIRST", " LIMA"},
+    };
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int RECORDS_PER_ROUND = 2_000_000;
+
+    /**
+     * Ejecuta ambas variantes y muestra el coste medio en nanosegundos por registro.
+     *
+     * @param args no se utilizan.
+     */
+    public static void main(String[] args) {
+        double before = measure("String.matches (anterior)", ValidateFieldBenchmark::validateRecordLegacy);
+        double after = measure("FieldValidator (códigos)", ValidateFieldBenchmark::validateRecordCodes);
+        double wrapper = measure("Utils.validateField", ValidateFieldBenchmark::validateRecordWrapper);
+
+        System.out.printf("%nMejora FieldValidator      : x%.1f%n", before / after);
+        System.out.printf("Mejora Utils.validateField : x%.1f%n", before / wrapper);
+    }
+
+    private static double measure(String label, RecordValidator validator) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += runRound(validator);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += runRound(validator);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double nsPerRecord = (double) elapsed / ((long) MEASURED_ROUNDS * RECORDS_PER_ROUND);
+        System.out.printf("%-27s: %8.1f ns/registro (errores=%d)%n", label, nsPerRecord, sink);
+        return nsPerRecord;
+    }
+
+    private static long runRound(RecordValidator validator) {
+        long failures = 0;
+        for (int i = 0; i < RECORDS_PER_ROUND; i++) {
+            failures += validator.failures(RECORDS[i % RECORDS.length]);
+        }
+        return failures;
+    }
+
+    private static int validateRecordCodes(String[] row) {
+        ReservationFields[] types = ReservationFields.values();
+        int failures = 0;
+        for (int i = 0; i < row.length; i++) {
+            if (FieldValidator.validate(row[i], types[i]) != FieldValidator.OK) failures++;
+        }
+        return failures;
+    }
+
+    private static int validateRecordWrapper(String[] row) {
+        ReservationFields[] types = ReservationFields.values();
+        int failures = 0;
+        for (int i = 0; i < row.length; i++) {
+            if (Utils.validateField(row[i], types[i]) != null) failures++;
+        }
+        return failures;
+    }
+
+    private static int validateRecordLegacy(String[] row) {
+        ReservationFields[] types = ReservationFields.values();
+        int failures = 0;
+        for (int i = 0; i < row.length; i++) {
+            if (legacyValidateField(row[i].trim(), types[i]) != null) failures++;
+        }
+        return failures;
+    }
+
+    /**
+     * Copia literal de la implementación de {@code Utils.validateField} previa a
+     * {@link FieldValidator}, conservada como referencia.
+     */
+    private static String legacyValidateField(String field, ReservationFields reservationField) {
+        if (field == null || field.trim().isEmpty()) {
+            return "⚠️ El campo " + reservationField.name() + " no puede estar vacío.";
+        }
+
+        field = field.trim();
+
+        return switch (reservationField) {
+            case SEAT_NUMBER -> field.matches("\\d{1,3}[A-F]")
+                    ? null : "❌ El número de asiento debe ser de 1 a 3 dígitos seguidos de una letra A-F (ej: 12C).";
+            case PASSENGER_NAME -> field.matches("[A-Za-zÁÉÍÓÚÑáéíóúñ\\s]+")
+                    ? null : "❌ El nombre solo puede contener letras y espacios.";
+            case CLASS -> field.matches("ECONOMY|BUSINESS|FIRST")
+                    ? null : "❌ La clase debe ser ECONOMY, BUSINESS o FIRST.";
+            case DESTINATION -> field.length() >= 3
+                    ? null : "❌ El destino debe tener al menos 3 caracteres.";
+        };
+    }
+
+    @FunctionalInterface
+    private interface RecordValidator {
+        int failures(String[] row);
+    }
+}
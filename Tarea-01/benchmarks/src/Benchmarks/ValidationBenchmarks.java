@@ -0,0 +1,113 @@
+package Benchmarks;
+
+import Reservation.ReservationFields;
+import Utils.MappedCsvReader;
+import Utils.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JMH de las rutas de validación en memoria: {@link Utils#validateField} por tipo de
+ * campo, {@link Utils#capitalizeWords} y {@link Utils#validateReservationRecords}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmarks {
+
+    /**
+     * Valores válidos e inválidos para cada tipo de campo.
+     */
+    @State(Scope.Benchmark)
+    public static class FieldState {
+        @Param({"SEAT_NUMBER", "PASSENGER_NAME", "CLASS", "DESTINATION"})
+        public ReservationFields field;
+
+        String valid;
+        String invalid;
+
+        @Setup
+        public void setUp() {
+            switch (field) {
+                case SEAT_NUMBER -> {
+                    valid = " 123C";
+                    invalid = " 12Z";
+                }
+                case PASSENGER_NAME -> {
+                    valid = " Lucía Martín Sánchez";
+                    invalid = " Lucía 2";
+                }
+                case CLASS -> {
+                    valid = " BUSINESS";
+                    invalid = " PREMIUM";
+                }
+                case DESTINATION -> {
+                    valid = " CIUDAD_DE_MEXICO";
+                    invalid = " X";
+                }
+            }
+        }
+    }
+
+    /**
+     * Registros en memoria leídos de un archivo maestro sintético.
+     */
+    @State(Scope.Benchmark)
+    public static class RecordsState {
+        @Param({"10000"})
+        public int rows;
+
+        List<String[]> records;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            File master = SyntheticMasterFiles.master(rows);
+            records = new ArrayList<>(rows);
+            try (MappedCsvReader reader = MappedCsvReader.open(master)) {
+                reader.next(); // encabezado
+                while (reader.next()) {
+                    records.add(reader.fields());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public String validateFieldValid(FieldState state) {
+        return Utils.validateField(state.valid, state.field);
+    }
+
+    @Benchmark
+    public String validateFieldInvalid(FieldState state) {
+        return Utils.validateField(state.invalid, state.field);
+    }
+
+    @Benchmark
+    public String capitalizeWords() {
+        return Utils.capitalizeWords("  lUCÍA   martín sánchez ");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean validateReservationRecords(RecordsState state) {
+        return Utils.validateReservationRecords(state.records, 4);
+    }
+}
@@ -0,0 +1,69 @@
+package Reservation;
+
+import Utils.MappedCsvReader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Conversión entre el archivo maestro en CSV y el formato binario columnar. {@link ReservationAll}
+ * abre ambos formatos de forma transparente, por lo que la conversión solo es necesaria una vez.
+ */
+public final class BinaryReservationConverter {
+
+    private BinaryReservationConverter() {
+    }
+
+    /**
+     * Convierte un archivo CSV de reservas (con encabezado) al formato binario.
+     *
+     * @param csvFile        archivo CSV de origen.
+     * @param binaryFile     archivo binario de destino; se sobrescribe si existe.
+     * @param hasDestination {@code true} si los registros incluyen destino.
+     * @return número de reservas convertidas.
+     * @throws IOException si el origen no puede leerse, algún registro no es válido o el destino no
+     *                     puede escribirse.
+     */
+    public static long csvToBinary(File csvFile, File binaryFile, boolean hasDestination) throws IOException {
+        try (MappedCsvReader reader = MappedCsvReader.open(csvFile);
+             BinaryReservationWriter writer = new BinaryReservationWriter(binaryFile, hasDestination)) {
+            boolean isHeader = true;
+            while (reader.next()) {
+                if (isHeader) {
+                    isHeader = false; // saltamos encabezado
+                    continue;
+                }
+                try {
+                    writer.write(reader.fields());
+                } catch (IOException | IllegalArgumentException e) {
+                    throw new IOException("Registro #" + (reader.lineNumber() - 1) + " no válido: " + e.getMessage(), e);
+                }
+            }
+            return writer.getRecordCount();
+        }
+    }
+
+    /**
+     * Convierte un archivo binario de reservas a CSV con el mismo formato que genera
+     * {@link ReservationAll#writeReservation()}.
+     *
+     * @param binaryFile archivo binario de origen.
+     * @param csvFile    archivo CSV de destino; se sobrescribe si existe.
+     * @return número de reservas convertidas.
+     * @throws IOException si el origen no puede leerse o el destino no puede escribirse.
+     */
+    public static long binaryToCsv(File binaryFile, File csvFile) throws IOException {
+        long count = 0;
+        try (BinaryReservationReader reader = BinaryReservationReader.open(binaryFile);
+             BufferedWriter writer = new BufferedWriter(new FileWriter(csvFile, false), 1 << 16)) {
+            while (reader.next()) {
+                writer.write(String.join(", ", reader.fields()));
+                writer.newLine();
+                if (!reader.isHeader()) count++;
+            }
+        }
+        return count;
+    }
+}
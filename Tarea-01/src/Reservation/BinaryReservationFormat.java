@@ -0,0 +1,41 @@
+package Reservation;
+
+/**
+ * Constantes del formato binario columnar de reservas compartidas por
+ * {@link BinaryReservationWriter} y {@link BinaryReservationReader}.
+ *
+ * <pre>
+ * cabecera  : "RSVB" | versión (1 byte) | incluye destino (1 byte)
+ * bloque*   : n (int) | asiento int[n] | fila byte[n] | clase byte[n] | [destino byte[n]] | nombre int[n]
+ * fin       : 0 (int)
+ * nombres   : cantidad (int) | (longitud (short sin signo) + UTF-8)*
+ * pie       : posición de los nombres (long) | total de registros (long) | "RSVB"
+ * </pre>
+ *
+ * <p>Cada bloque guarda sus columnas de forma contigua. La clase y el destino se almacenan como el
+ * ordinal de {@link ReservationClass} y {@link Destinations}; los nombres de pasajero se guardan una
+ * sola vez en un diccionario al final del archivo y cada registro referencia su posición.</p>
+ */
+final class BinaryReservationFormat {
+
+    /** Firma con la que empieza y termina todo archivo binario de reservas. */
+    static final byte[] MAGIC = {'R', 'S', 'V', 'B'};
+
+    /** Versión actual del formato. */
+    static final byte VERSION = 1;
+
+    /** Número máximo de registros por bloque. */
+    static final int BLOCK_SIZE = 1 << 16;
+
+    /** Tamaño del pie: posición del diccionario, total de registros y firma. */
+    static final int TRAILER_SIZE = Long.BYTES + Long.BYTES + MAGIC.length;
+
+    /** Longitud máxima en bytes UTF-8 de un nombre del diccionario. */
+    static final int MAX_NAME_BYTES = 0xFFFF;
+
+    /** Valor de la columna de destino cuando el archivo no incluye destinos. */
+    static final byte NO_DESTINATION = -1;
+
+    private BinaryReservationFormat() {
+    }
+}
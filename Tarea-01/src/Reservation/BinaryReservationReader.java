@@ -0,0 +1,295 @@
+package Reservation;
+
+import Utils.ReservationRecordReader;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lee archivos en el formato binario columnar descrito en {@link BinaryReservationFormat}. Además de
+ * los accesos tipados ({@link #seatNumber()}, {@link #reservationClass()}...), implementa
+ * {@link ReservationRecordReader} para que el resto de la aplicación pueda tratar el archivo igual que
+ * un CSV: el primer registro es el encabezado y los siguientes se exponen como texto.
+ */
+public class BinaryReservationReader implements ReservationRecordReader {
+
+    private static final ReservationClass[] CLASSES = ReservationClass.values();
+    private static final Destinations[] DESTINATIONS = Destinations.values();
+
+    private final DataInputStream in;
+    private final boolean hasDestination;
+    private final String[] names;
+    private final long recordCount;
+
+    private int[] seatNumbers = new int[0];
+    private byte[] seatRows = new byte[0];
+    private byte[] classes = new byte[0];
+    private byte[] destinations = new byte[0];
+    private int[] nameIds = new int[0];
+    private int blockSize;
+    private int blockIndex;
+    private boolean lastBlockRead;
+
+    private long lineNumber;
+
+    private BinaryReservationReader(File file) throws IOException {
+        long dictionaryPosition;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length < BinaryReservationFormat.MAGIC.length + 2 + BinaryReservationFormat.TRAILER_SIZE) {
+                throw new IOException("Archivo binario de reservas truncado: " + file.getPath());
+            }
+
+            raf.seek(length - BinaryReservationFormat.TRAILER_SIZE);
+            dictionaryPosition = raf.readLong();
+            recordCount = raf.readLong();
+            byte[] magic = new byte[BinaryReservationFormat.MAGIC.length];
+            raf.readFully(magic);
+            if (!Arrays.equals(magic, BinaryReservationFormat.MAGIC)) {
+                throw new IOException("Archivo binario de reservas incompleto: " + file.getPath());
+            }
+
+            raf.seek(dictionaryPosition);
+            DataInputStream dictionary = new DataInputStream(new BufferedInputStream(new FileInputStream(raf.getFD())));
+            names = new String[dictionary.readInt()];
+            for (int i = 0; i < names.length; i++) {
+                byte[] bytes = new byte[dictionary.readUnsignedShort()];
+                dictionary.readFully(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        in.skipNBytes(BinaryReservationFormat.MAGIC.length);
+        byte version = in.readByte();
+        if (version != BinaryReservationFormat.VERSION) {
+            in.close();
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        hasDestination = in.readBoolean();
+    }
+
+    /**
+     * Abre un archivo binario de reservas.
+     *
+     * @param file archivo a leer.
+     * @return lector posicionado antes del encabezado.
+     * @throws FileNotFoundException si el archivo no existe.
+     * @throws IOException           si el archivo no tiene el formato esperado.
+     */
+    public static BinaryReservationReader open(File file) throws IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        return new BinaryReservationReader(file);
+    }
+
+    /**
+     * Indica si un archivo está en formato binario comprobando su firma inicial.
+     *
+     * @param file archivo a comprobar.
+     * @return {@code true} si el archivo empieza por la firma del formato binario.
+     * @throws IOException si el archivo existe pero no puede leerse.
+     */
+    public static boolean isBinary(File file) throws IOException {
+        if (!file.isFile() || file.length() < BinaryReservationFormat.MAGIC.length) {
+            return false;
+        }
+        byte[] magic = new byte[BinaryReservationFormat.MAGIC.length];
+        try (FileInputStream in = new FileInputStream(file)) {
+            if (in.readNBytes(magic, 0, magic.length) != magic.length) {
+                return false;
+            }
+        }
+        return Arrays.equals(magic, BinaryReservationFormat.MAGIC);
+    }
+
+    /**
+     * @return {@code true} si los registros incluyen destino.
+     */
+    public boolean hasDestination() {
+        return hasDestination;
+    }
+
+    /**
+     * @return número total de reservas del archivo (sin contar el encabezado).
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (lineNumber == 0) {
+            lineNumber = 1; // el encabezado
+            return true;
+        }
+        if (blockIndex + 1 < blockSize) {
+            blockIndex++;
+            lineNumber++;
+            return true;
+        }
+        if (!readBlock()) {
+            return false;
+        }
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * @return {@code true} si el registro actual es el encabezado sintético.
+     */
+    public boolean isHeader() {
+        return lineNumber == 1;
+    }
+
+    /**
+     * @return número del asiento del registro actual.
+     */
+    public int seatNumber() {
+        checkRecord();
+        return seatNumbers[blockIndex];
+    }
+
+    /**
+     * @return letra del asiento del registro actual.
+     */
+    public char seatRow() {
+        checkRecord();
+        return (char) seatRows[blockIndex];
+    }
+
+    /**
+     * @return nombre del pasajero del registro actual.
+     */
+    public String passengerName() {
+        checkRecord();
+        return names[nameIds[blockIndex]];
+    }
+
+    /**
+     * @return clase del registro actual.
+     */
+    public ReservationClass reservationClass() {
+        checkRecord();
+        return CLASSES[classes[blockIndex]];
+    }
+
+    /**
+     * @return destino del registro actual o {@code null} si el archivo no incluye destinos.
+     */
+    public Destinations destination() {
+        checkRecord();
+        return hasDestination ? DESTINATIONS[destinations[blockIndex]] : null;
+    }
+
+    @Override
+    public Destinations destination(int index) {
+        if (index != ReservationFields.DESTINATION.ordinal() || isHeader()) {
+            return Destinations.fromText(field(index));
+        }
+        return destination();
+    }
+
+    @Override
+    public ReservationClass reservationClass(int index) {
+        if (index != ReservationFields.CLASS.ordinal() || isHeader()) {
+            return ReservationRecordReader.super.reservationClass(index);
+        }
+        return reservationClass();
+    }
+
+    @Override
+    public int fieldCount() {
+        return hasDestination ? 4 : 3;
+    }
+
+    @Override
+    public String field(int index) {
+        if (isHeader()) {
+            return ReservationFields.values()[index].name();
+        }
+        return switch (index) {
+            case 0 -> Integer.toString(seatNumber()) + seatRow();
+            case 1 -> passengerName();
+            case 2 -> reservationClass().name();
+            case 3 -> {
+                if (!hasDestination) throw new IndexOutOfBoundsException("El archivo no incluye destinos.");
+                yield destination().name();
+            }
+            default -> throw new IndexOutOfBoundsException("Campo " + index + " fuera de rango");
+        };
+    }
+
+    @Override
+    public String[] fields() {
+        String[] parts = new String[fieldCount()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = field(i);
+        }
+        return parts;
+    }
+
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Lee el siguiente bloque de columnas.
+     *
+     * @return {@code false} si no quedan bloques.
+     */
+    private boolean readBlock() throws IOException {
+        if (lastBlockRead) {
+            return false;
+        }
+
+        int size;
+        try {
+            size = in.readInt();
+        } catch (EOFException e) {
+            throw new IOException("Archivo binario de reservas truncado.", e);
+        }
+        if (size == 0) {
+            lastBlockRead = true;
+            return false;
+        }
+
+        if (seatNumbers.length < size) {
+            seatNumbers = new int[size];
+            seatRows = new byte[size];
+            classes = new byte[size];
+            destinations = new byte[size];
+            nameIds = new int[size];
+        }
+        for (int i = 0; i < size; i++) seatNumbers[i] = in.readInt();
+        in.readFully(seatRows, 0, size);
+        in.readFully(classes, 0, size);
+        if (hasDestination) in.readFully(destinations, 0, size);
+        for (int i = 0; i < size; i++) nameIds[i] = in.readInt();
+
+        blockSize = size;
+        blockIndex = 0;
+        return true;
+    }
+
+    private void checkRecord() {
+        if (lineNumber <= 1) {
+            throw new IllegalStateException("No hay una reserva seleccionada.");
+        }
+    }
+}
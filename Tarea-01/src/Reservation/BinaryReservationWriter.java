@@ -0,0 +1,194 @@
+package Reservation;
+
+import Utils.FieldValidator;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escribe reservas en el formato binario columnar descrito en {@link BinaryReservationFormat}. Los
+ * registros se acumulan en columnas de tamaño fijo y se vuelcan bloque a bloque, por lo que la
+ * memoria necesaria no depende del número de reservas (salvo el diccionario de nombres).
+ */
+public class BinaryReservationWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private final boolean hasDestination;
+
+    private final int[] seatNumbers = new int[BinaryReservationFormat.BLOCK_SIZE];
+    private final byte[] seatRows = new byte[BinaryReservationFormat.BLOCK_SIZE];
+    private final byte[] classes = new byte[BinaryReservationFormat.BLOCK_SIZE];
+    private final byte[] destinations = new byte[BinaryReservationFormat.BLOCK_SIZE];
+    private final int[] nameIds = new int[BinaryReservationFormat.BLOCK_SIZE];
+    private int pending;
+
+    private final Map<String, Integer> nameIndex = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    private long position;
+    private long recordCount;
+    private boolean closed;
+
+    /**
+     * Crea (o sobrescribe) un archivo binario de reservas.
+     *
+     * @param file           archivo de destino.
+     * @param hasDestination {@code true} si los registros incluyen destino.
+     * @throws IOException si el archivo no puede crearse.
+     */
+    public BinaryReservationWriter(File file, boolean hasDestination) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false), 1 << 16));
+        this.hasDestination = hasDestination;
+
+        out.write(BinaryReservationFormat.MAGIC);
+        out.writeByte(BinaryReservationFormat.VERSION);
+        out.writeBoolean(hasDestination);
+        position = BinaryReservationFormat.MAGIC.length + 2;
+    }
+
+    /**
+     * Añade una reserva.
+     *
+     * @param seatNumber       número del asiento (1-999).
+     * @param seatRow          letra del asiento (A-F).
+     * @param passengerName    nombre del pasajero.
+     * @param reservationClass clase de la reserva.
+     * @param destination      destino; se ignora si el archivo no incluye destinos.
+     * @throws IOException              si ocurre un problema al escribir el bloque.
+     * @throws IllegalArgumentException si el asiento no es válido, falta el destino o el nombre ocupa
+     *                                  más de {@value BinaryReservationFormat#MAX_NAME_BYTES} bytes en
+     *                                  UTF-8.
+     */
+    public void write(int seatNumber, char seatRow, String passengerName,
+                      ReservationClass reservationClass, Destinations destination) throws IOException {
+        if (seatNumber < 0 || seatNumber > 999 || seatRow < 'A' || seatRow > 'F') {
+            throw new IllegalArgumentException("Asiento no válido: " + seatNumber + seatRow);
+        }
+        if (hasDestination && destination == null) {
+            throw new IllegalArgumentException("El destino es obligatorio en este archivo.");
+        }
+        Integer nameId = nameIndex.get(passengerName);
+        if (nameId == null) {
+            // La longitud se guarda como short sin signo: se comprueba antes de aceptar el nombre
+            int length = passengerName.getBytes(StandardCharsets.UTF_8).length;
+            if (length > BinaryReservationFormat.MAX_NAME_BYTES) {
+                throw new IllegalArgumentException("El nombre ocupa " + length + " bytes; el máximo es "
+                        + BinaryReservationFormat.MAX_NAME_BYTES + ".");
+            }
+            nameId = names.size();
+            names.add(passengerName);
+            nameIndex.put(passengerName, nameId);
+        }
+
+        seatNumbers[pending] = seatNumber;
+        seatRows[pending] = (byte) seatRow;
+        classes[pending] = (byte) reservationClass.ordinal();
+        destinations[pending] = hasDestination ? (byte) destination.ordinal() : BinaryReservationFormat.NO_DESTINATION;
+        nameIds[pending] = nameId;
+
+        if (++pending == BinaryReservationFormat.BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Añade una reserva a partir de sus campos de texto, tal como aparecen en el CSV. Los campos se
+     * validan con {@link FieldValidator} antes de escribirse.
+     *
+     * @param fields asiento, nombre, clase y (si el archivo lo incluye) destino.
+     * @throws IOException si algún campo no es válido o no puede escribirse.
+     */
+    public void write(String[] fields) throws IOException {
+        int expected = hasDestination ? 4 : 3;
+        if (fields.length != expected) {
+            throw new IOException("Número incorrecto de campos (esperados " + expected + ")");
+        }
+
+        ReservationFields[] types = ReservationFields.values();
+        for (int i = 0; i < expected; i++) {
+            int code = FieldValidator.validate(fields[i], types[i]);
+            if (code != FieldValidator.OK) {
+                throw new IOException(FieldValidator.message(code, types[i]));
+            }
+        }
+
+        String seat = fields[0].trim();
+        Destinations destination = null;
+        if (hasDestination) {
+            destination = Destinations.fromText(fields[3]);
+            if (destination == null) {
+                throw new IOException("Destino desconocido: " + fields[3].trim());
+            }
+        }
+
+        write(Integer.parseInt(seat, 0, seat.length() - 1, 10),
+                seat.charAt(seat.length() - 1),
+                fields[1].trim(),
+                ReservationClass.valueOf(fields[2].trim()),
+                destination);
+    }
+
+    /**
+     * @return número de reservas escritas hasta el momento.
+     */
+    public long getRecordCount() {
+        return recordCount + pending;
+    }
+
+    /**
+     * Vuelca el último bloque, el diccionario de nombres y el pie, y cierra el archivo.
+     *
+     * @throws IOException si ocurre un problema al escribir.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (out) {
+            flushBlock();
+            out.writeInt(0);
+            position += Integer.BYTES;
+
+            long dictionaryPosition = position;
+            out.writeInt(names.size());
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeLong(dictionaryPosition);
+            out.writeLong(recordCount);
+            out.write(BinaryReservationFormat.MAGIC);
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (pending == 0) {
+            return;
+        }
+
+        out.writeInt(pending);
+        for (int i = 0; i < pending; i++) out.writeInt(seatNumbers[i]);
+        out.write(seatRows, 0, pending);
+        out.write(classes, 0, pending);
+        if (hasDestination) out.write(destinations, 0, pending);
+        for (int i = 0; i < pending; i++) out.writeInt(nameIds[i]);
+
+        position += Integer.BYTES + (long) pending * (Integer.BYTES * 2 + (hasDestination ? 3 : 2));
+        recordCount += pending;
+        pending = 0;
+    }
+}
@@ -0,0 +1,229 @@
+package Reservation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Modo de escritura concurrente sobre un archivo maestro. Cualquier número de hilos puede llamar a
+ * {@link #submit(ReservationRecord)}: las reservas se encolan y un único hilo escritor las vacía en
+ * lotes a través de un {@link ReservationIngestor}, de modo que los productores no compiten por el
+ * archivo y cuanto mayor es la carga mayor es el lote confirmado en cada escritura.
+ *
+ * <p>Cada confirmación se realiza con el archivo bloqueado ({@code FileLock}), por lo que varios
+ * procesos pueden usar su propio appender sobre el mismo maestro sin que los registros se
+ * intercalen. Dentro de un proceso basta con un appender compartido por todos los hilos. Se obtiene
+ * mediante {@link ReservationAll#openConcurrentAppender()}.</p>
+ *
+ * <p>Este modo no comprueba conflictos de asiento ({@link SeatOccupancy}); los duplicados se
+ * detectan al procesar el archivo con {@link Utils.Utils#processReservationFile(java.io.File, int)}.</p>
+ */
+public class ConcurrentReservationAppender implements Closeable {
+
+    /** Capacidad de la cola; los productores esperan si el escritor no da abasto. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+
+    private static final int MAX_BATCH = 8192;
+    /** Marca que indica al hilo escritor que debe terminar. */
+    private static final Object STOP = new Object();
+    /** Marca de una reserva {@code null}, que el escritor registra como rechazada. */
+    private static final Object EMPTY = new Object();
+
+    private final ReservationIngestor ingestor;
+    private final boolean hasDestination;
+    private final BlockingQueue<Object> queue;
+    private final Thread writer;
+    private final Object progress = new Object();
+
+    private long submitted;
+    private long written;
+    private IOException failure;
+    private boolean closing;
+
+    ConcurrentReservationAppender(File masterFile, boolean hasDestination, int queueCapacity) throws IOException {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("La capacidad de la cola debe ser al menos 1.");
+        }
+        this.ingestor = new ReservationIngestor(masterFile, hasDestination, Integer.MAX_VALUE, 0, false);
+        this.hasDestination = hasDestination;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::drainLoop, "reservation-appender-" + masterFile.getName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Encola una reserva para su escritura. Puede llamarse desde cualquier hilo; si la cola está
+     * llena espera a que el escritor libere espacio. La validación y la codificación se hacen en el
+     * hilo que llama, de modo que el escritor solo copia bytes.
+     *
+     * @param reservation reserva a escribir; se valida antes de escribirla y, como las no válidas,
+     *                    una reserva {@code null} se registra como rechazada.
+     * @throws IOException si el appender está cerrado, el hilo se interrumpe o una escritura anterior
+     *                     falló.
+     */
+    public void submit(ReservationRecord reservation) throws IOException {
+        synchronized (progress) {
+            checkState();
+            submitted++;
+        }
+        boolean queued = false;
+        try {
+            // Las reservas no válidas se encolan tal cual para que el escritor las registre en el log
+            Object entry = reservation == null ? EMPTY : reservation;
+            if (reservation != null && reservation.validate(hasDestination) == null) {
+                entry = new EncodedReservation(ingestor.encode(reservation),
+                        hasDestination ? reservation.destination().ordinal() : -1, reservation.passengerName());
+            }
+            queue.put(entry);
+            queued = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido al encolar la reserva.");
+        } finally {
+            if (!queued) {
+                // La reserva no llegará al escritor: flush() y close() no deben esperarla
+                synchronized (progress) {
+                    submitted--;
+                    progress.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera a que todas las reservas encoladas hasta el momento estén confirmadas en disco.
+     *
+     * @throws IOException si una escritura falló o el hilo se interrumpe.
+     */
+    public void flush() throws IOException {
+        synchronized (progress) {
+            long target = submitted;
+            while (written < target && failure == null) {
+                try {
+                    progress.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrumpido esperando la confirmación.");
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Devuelve cuántas reservas se han escrito.
+     *
+     * @return número de reservas aceptadas y confirmadas o pendientes de confirmar.
+     */
+    public long getAcceptedCount() {
+        return ingestor.getAcceptedCount();
+    }
+
+    /**
+     * Devuelve cuántas reservas se han rechazado por no superar la validación.
+     *
+     * @return número de reservas rechazadas.
+     */
+    public long getRejectedCount() {
+        return ingestor.getRejectedCount();
+    }
+
+    /**
+     * Escribe las reservas pendientes, detiene el hilo escritor y cierra el archivo.
+     *
+     * @throws IOException si alguna escritura falló.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (progress) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+        }
+        try {
+            flush();
+        } finally {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(STOP);
+                    writer.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            ingestor.close();
+        }
+    }
+
+    private void drainLoop() {
+        List<Object> batch = new ArrayList<>(MAX_BATCH);
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            if (batch.get(batch.size() - 1) == STOP) {
+                batch.remove(batch.size() - 1);
+                stop = true;
+            }
+
+            IOException error = null;
+            try {
+                for (Object entry : batch) {
+                    if (entry instanceof EncodedReservation encoded) {
+                        ingestor.appendEncoded(encoded.line(), encoded.destination(), encoded.passengerName());
+                    } else {
+                        ingestor.append(entry == EMPTY ? null : (ReservationRecord) entry);
+                    }
+                }
+                ingestor.commit();
+            } catch (IOException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                // Sin esto el hilo escritor moriría y flush() esperaría indefinidamente
+                error = new IOException("Error inesperado en el escritor concurrente.", e);
+            }
+
+            synchronized (progress) {
+                written += batch.size();
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                progress.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void checkState() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closing) {
+            throw new IOException("El appender concurrente ya está cerrado.");
+        }
+    }
+
+    /**
+     * Reserva ya validada y codificada por el hilo productor.
+     */
+    private record EncodedReservation(byte[] line, int destination, String passengerName) {
+    }
+}
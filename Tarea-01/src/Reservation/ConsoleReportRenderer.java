@@ -0,0 +1,109 @@
+package Reservation;
+
+import java.io.PrintStream;
+
+/**
+ * Informe de reservas en consola con el formato de {@link ReservationAll#logguer(ReservationClass...)}.
+ * Escribe muchas líneas pequeñas: conviene pasarle un flujo con búfer y sin vaciado automático,
+ * como hace {@link ReservationAll}, en lugar de {@link System#out} directamente.
+ */
+public class ConsoleReportRenderer implements ReservationReportRenderer {
+    private final PrintStream out;
+    private final boolean has4Fields;
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * @param out        flujo en el que se escribe el informe.
+     * @param has4Fields {@code true} si los registros incluyen destino.
+     */
+    public ConsoleReportRenderer(PrintStream out, boolean has4Fields) {
+        this.out = out;
+        this.has4Fields = has4Fields;
+    }
+
+    @Override
+    public void begin() {
+        // Encabezado bonito
+        out.println("╔══════════════════════════════════════╗");
+        out.println("║          📖 RESERVAS LOG             ║");
+        out.println("╚══════════════════════════════════════╝\n");
+
+        // Detalle
+        out.println("➡ Detalle de reservas:");
+        out.println("─────────────────────────────");
+    }
+
+    /**
+     * Escribe una reserva. La línea se compone en un único búfer y se entrega al flujo de una vez;
+     * los campos que falten en registros incompletos se muestran vacíos.
+     */
+    @Override
+    public void row(long index, String[] r) {
+        line.setLength(0);
+        line.append('#').append(index).append(" | 🪑 Asiento: ");
+        pad(field(r, 0), 5);
+        line.append(" 👤 Pasajero: ");
+        pad(field(r, 1), 15);
+        line.append(" 🎟 Clase: ");
+        pad(field(r, 2), 10);
+
+        if (has4Fields) {
+            String destino = field(r, 3);
+            line.append(" 🌍 Destino: ").append(destino.isEmpty() ? "N/A" : destino);
+        }
+        out.println(line);
+    }
+
+    /**
+     * Cierra el listado de una página de {@link ReservationAll#logguerPage(long, int, java.util.Set, java.util.Set)}
+     * con las posiciones mostradas y el desplazamiento de la página siguiente.
+     *
+     * @param page página mostrada.
+     */
+    public void endPage(ReservationPage page) {
+        out.println("\n📄 Página");
+        out.println("─────────────────────────────");
+        if (page.rows().isEmpty()) {
+            out.printf("✔ Reservas mostradas          : 0 (desde %d)%n", page.offset());
+        } else {
+            out.printf("✔ Reservas mostradas          : %d (#%d - #%d)%n",
+                    page.rows().size(), page.offset() + 1, page.nextOffset());
+        }
+        if (page.hasMore()) {
+            out.printf("➡ Página siguiente desde      : %d%n", page.nextOffset());
+        } else {
+            out.println("🎯 No hay más reservas");
+        }
+    }
+
+    @Override
+    public void end(ReservationStatistics statistics, ReservationClass... reservationClass) {
+        // Estadísticas
+        out.println("\n📊 Estadísticas");
+        out.println("─────────────────────────────");
+        out.printf("✔ Total de reservas            : %d%n", statistics.getTotal());
+
+        // Si hay claseFiltro, contamos esa clase
+        if (reservationClass.length > 0) {
+            String claseBuscada = reservationClass[0].name().toLowerCase();
+            out.printf("✔ Pasajeros en %s        : %d%n", claseBuscada, statistics.getCount(reservationClass[0]));
+        }
+
+        // Final
+        out.println("\n🎯 Proceso completado con éxito");
+    }
+
+    private static String field(String[] r, int index) {
+        return index < r.length ? r[index].trim() : "";
+    }
+
+    /**
+     * Equivale a {@code %-<width>s}: añade el texto y lo completa con espacios hasta {@code width}.
+     */
+    private void pad(String value, int width) {
+        line.append(value);
+        for (int i = value.length(); i < width; i++) {
+            line.append(' ');
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package Reservation;
+
+import Utils.BlockCompression;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché en memoria de los archivos por destino ya leídos ({@link DestinationDataset}), para consultas
+ * repetidas como {@link ReservationAll#showReservationsByCountry(Destinations, DestinationCache)}.
+ *
+ * <p>Las entradas se expulsan por orden de uso (LRU) cuando la memoria estimada de todas ellas supera
+ * el límite indicado; un archivo que por sí solo lo supera se lee pero no se guarda. Cada consulta
+ * compara el tamaño, la fecha de modificación y la identidad (inodo) del archivo con los del momento
+ * de la lectura, una única llamada a {@link Files#readAttributes(Path, Class, java.nio.file.LinkOption...)}
+ * que no lee su contenido: si el archivo ha cambiado, incluido un reemplazo atómico por renombrado
+ * como el de {@link ReservationAll#createandFillFileByDestination(ReservationFields)}, se vuelve a
+ * leer. Opcionalmente {@link #watch()} descarta las entradas en cuanto se modifica su archivo, lo que
+ * libera la memoria antes de la siguiente consulta.</p>
+ *
+ * <p>Es segura para varios hilos. Los archivos se leen fuera del bloqueo, por lo que dos consultas
+ * simultáneas del mismo destino ausente pueden leerlo dos veces.</p>
+ */
+public final class DestinationCache {
+
+    /**
+     * Límite de memoria por defecto: 64 MB.
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 64L << 20;
+
+    private final long maxWeight;
+    private final LinkedHashMap<Destinations, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Crea una caché con el límite de {@value #DEFAULT_MAX_WEIGHT} bytes.
+     */
+    public DestinationCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxWeight memoria máxima estimada de los registros guardados, en bytes.
+     */
+    public DestinationCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("El límite de memoria debe ser positivo.");
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Devuelve los registros del archivo de un destino ({@code reservas_<destino>.txt}, o su variante
+     * comprimida si solo existe esta), leyéndolo solo si no está en la caché o ha cambiado.
+     *
+     * @param country destino.
+     * @return los registros, o {@code null} si el archivo no existe.
+     * @throws IOException si el archivo no puede leerse.
+     */
+    public DestinationDataset get(Destinations country) throws IOException {
+        Objects.requireNonNull(country, "destino");
+        File file = ReservationAll.resolveDestinationFile(country);
+        FileStamp stamp = FileStamp.of(file);
+
+        synchronized (this) {
+            Entry entry = entries.get(country);
+            if (entry != null && entry.stamp.equals(stamp)) {
+                hits++;
+                return entry.dataset;
+            }
+            misses++;
+            if (entry != null) {
+                remove(country);
+                invalidations++;
+            }
+        }
+        if (stamp == null) {
+            return null;
+        }
+
+        DestinationDataset dataset = DestinationDataset.load(country, file);
+        if (!stamp.equals(FileStamp.of(file))) {
+            return dataset; // el archivo cambió durante la lectura: no se guarda
+        }
+
+        synchronized (this) {
+            if (dataset.getWeight() <= maxWeight) {
+                Entry previous = entries.put(country, new Entry(stamp, dataset));
+                if (previous != null) {
+                    weight -= previous.dataset.getWeight();
+                }
+                weight += dataset.getWeight();
+                evict();
+            }
+        }
+        return dataset;
+    }
+
+    /**
+     * Descarta la entrada de un destino.
+     *
+     * @param country destino.
+     */
+    public synchronized void invalidate(Destinations country) {
+        if (remove(country)) {
+            invalidations++;
+        }
+    }
+
+    /**
+     * Descarta todas las entradas.
+     */
+    public synchronized void invalidateAll() {
+        invalidations += entries.size();
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Vigila el directorio de trabajo con un {@link WatchService} y descarta la entrada de un destino
+     * en cuanto se crea, modifica o elimina su archivo. La vigilancia se ejecuta en un hilo en segundo
+     * plano hasta que se cierra el objeto devuelto.
+     *
+     * @return recurso que detiene la vigilancia al cerrarse.
+     * @throws IOException si el sistema de archivos no admite la vigilancia.
+     */
+    public Closeable watch() throws IOException {
+        Path directory = new File(System.getProperty("user.dir")).toPath();
+        WatchService watcher = directory.getFileSystem().newWatchService();
+        try {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | RuntimeException e) {
+            watcher.close();
+            throw e;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            invalidateAll();
+                        } else if (event.context() instanceof Path changed) {
+                            Destinations country = destinationOf(changed.getFileName().toString());
+                            if (country != null) {
+                                invalidate(country);
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                }
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                // vigilancia cerrada
+            }
+        }, "destination-cache-watch");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    /**
+     * @return consultas servidas desde la caché.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return consultas que tuvieron que leer el archivo (o comprobar que no existe).
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return entradas expulsadas por el límite de memoria.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return entradas descartadas porque su archivo cambió o por {@link #invalidate(Destinations)}.
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return número de destinos guardados.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return memoria estimada de los registros guardados, en bytes.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return límite de memoria, en bytes.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("DestinationCache{destinos=%d, memoria=%,d/%,d bytes, aciertos=%d, fallos=%d, expulsiones=%d, invalidaciones=%d}",
+                entries.size(), weight, maxWeight, hits, misses, evictions, invalidations);
+    }
+
+    private boolean remove(Destinations country) {
+        Entry removed = entries.remove(country);
+        if (removed == null) {
+            return false;
+        }
+        weight -= removed.dataset.getWeight();
+        return true;
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().dataset.getWeight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Reconoce {@code reservas_<destino>.txt} y {@code reservas_<destino>.txt.gz}.
+     */
+    private static Destinations destinationOf(String fileName) {
+        for (Destinations country : Destinations.values()) {
+            String name = country.fileName();
+            if (fileName.equals(name) || fileName.equals(BlockCompression.compressedName(name))) {
+                return country;
+            }
+        }
+        return null;
+    }
+
+    private record Entry(FileStamp stamp, DestinationDataset dataset) {
+    }
+
+    /**
+     * Identidad y versión de un archivo: ruta, tamaño, fecha de modificación e inodo.
+     */
+    private record FileStamp(String path, long size, long modifiedNanos, Object fileKey) {
+
+        /**
+         * @return la versión actual del archivo o {@code null} si no existe.
+         */
+        static FileStamp of(File file) throws IOException {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new FileStamp(file.getPath(), attributes.size(),
+                    attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.fileKey());
+        }
+    }
+}
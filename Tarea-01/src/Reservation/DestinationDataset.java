@@ -0,0 +1,119 @@
+package Reservation;
+
+import Utils.ReservationRecordReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contenido ya leído de un archivo por destino ({@code reservas_<destino>.txt} o su variante
+ * comprimida), tal como lo guarda {@link DestinationCache}. Los registros conservan los campos del
+ * archivo sin modificar, igual que los que recorre {@link ReservationAll#report(ReservationReportRenderer, boolean, ReservationClass...)},
+ * y los textos repetidos (nombres, clases, destinos) se comparten entre registros.
+ */
+public final class DestinationDataset {
+
+    /**
+     * Tamaño estimado de un {@link String} sin su contenido: cabecera del objeto y del array de
+     * bytes, con referencias comprimidas.
+     */
+    private static final int STRING_OVERHEAD = 40;
+    /**
+     * Cabecera de un array; cada registro ocupa además una referencia por campo y otra en la lista.
+     */
+    private static final int ARRAY_HEADER = 16;
+
+    private final Destinations destination;
+    private final File file;
+    private final List<String[]> rows;
+    private final long weight;
+
+    private DestinationDataset(Destinations destination, File file, List<String[]> rows, long weight) {
+        this.destination = destination;
+        this.file = file;
+        this.rows = Collections.unmodifiableList(rows);
+        this.weight = weight;
+    }
+
+    /**
+     * Lee todos los registros de un archivo por destino, sin el encabezado.
+     *
+     * @param destination destino del archivo.
+     * @param file        archivo en cualquiera de los formatos de {@link ReservationRecordReader}.
+     * @return los registros leídos.
+     * @throws IOException si el archivo no existe o no puede leerse.
+     */
+    static DestinationDataset load(Destinations destination, File file) throws IOException {
+        ArrayList<String[]> rows = new ArrayList<>();
+        Map<String, String> shared = new HashMap<>();
+        long weight = 0;
+
+        try (ReservationRecordReader reader = ReservationRecordReader.open(file)) {
+            boolean isHeader = true;
+            while (reader.next()) {
+                if (isHeader) {
+                    isHeader = false; // saltamos encabezado
+                    continue;
+                }
+                String[] row = reader.fields();
+                for (int i = 0; i < row.length; i++) {
+                    String previous = shared.putIfAbsent(row[i], row[i]);
+                    if (previous != null) {
+                        row[i] = previous;
+                    } else {
+                        weight += STRING_OVERHEAD + align(row[i].length());
+                    }
+                }
+                weight += align(ARRAY_HEADER + Integer.BYTES * row.length) + Integer.BYTES;
+                rows.add(row);
+            }
+        }
+        rows.trimToSize();
+        return new DestinationDataset(destination, file, rows, weight);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * @return destino del archivo.
+     */
+    public Destinations getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return archivo del que se leyeron los registros.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return registros en el orden del archivo. Son compartidos por todas las consultas de la
+     *         caché y no deben modificarse.
+     */
+    public List<String[]> getRows() {
+        return rows;
+    }
+
+    /**
+     * @return número de registros.
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * @return memoria aproximada que ocupan los registros, en bytes.
+     */
+    public long getWeight() {
+        return weight;
+    }
+}
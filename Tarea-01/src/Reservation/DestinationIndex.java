@@ -0,0 +1,371 @@
+package Reservation;
+
+import Utils.BlockCompression;
+import Utils.MappedCsvReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice persistente de los registros del archivo maestro agrupados por {@link Destinations}. Se
+ * guarda junto al maestro ({@code reservas_maestro.txt.idx}) y permite consultar un destino leyendo
+ * únicamente sus registros, sin generar los archivos {@code reservas_<destino>.txt}.
+ *
+ * <pre>
+ * cabecera : "RSVI" | versión (1 byte) | tamaño del maestro (long) | última modificación del maestro (long)
+ * entrada* : ordinal del destino (1 byte) | desplazamiento del registro en el maestro (long)
+ * </pre>
+ *
+ * <p>Las entradas se añaden al final del archivo a medida que {@link ReservationAll#writeReservation()}
+ * o {@link ReservationIngestor} agregan reservas. La cabecera guarda el tamaño y la fecha de modificación del maestro en el momento
+ * de la última actualización: si no coinciden con el maestro actual el índice se considera obsoleto
+ * y se reconstruye. Solo se admiten maestros en formato CSV sin comprimir.</p>
+ */
+public class DestinationIndex {
+
+    private static final byte[] MAGIC = {'R', 'S', 'V', 'I'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + Long.BYTES + Long.BYTES;
+    private static final int STAMP_POSITION = MAGIC.length + 1;
+    private static final int ENTRY_SIZE = 1 + Long.BYTES;
+
+    private final File masterFile;
+    private final long[][] offsets;
+
+    private DestinationIndex(File masterFile, long[][] offsets) {
+        this.masterFile = masterFile;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Devuelve el archivo de índice asociado a un archivo maestro.
+     *
+     * @param masterFile archivo maestro.
+     * @return archivo de índice (puede no existir).
+     */
+    public static File indexFileFor(File masterFile) {
+        return new File(masterFile.getPath() + ".idx");
+    }
+
+    /**
+     * Abre el índice del archivo maestro, reconstruyéndolo si no existe o está obsoleto.
+     *
+     * @param masterFile archivo maestro en formato CSV.
+     * @return índice actualizado.
+     * @throws IOException si el maestro no puede leerse o el índice no puede escribirse.
+     */
+    public static DestinationIndex open(File masterFile) throws IOException {
+        checkFormat(masterFile);
+        if (!isStale(masterFile)) {
+            DestinationIndex index = load(masterFile);
+            if (index != null) {
+                return index;
+            }
+        }
+        return rebuild(masterFile);
+    }
+
+    /**
+     * Indica si el índice no existe o no corresponde al contenido actual del archivo maestro.
+     *
+     * @param masterFile archivo maestro.
+     * @return {@code true} si el índice debe reconstruirse.
+     * @throws IOException si el índice existe pero no puede leerse.
+     */
+    public static boolean isStale(File masterFile) throws IOException {
+        long[] stamp = readStamp(indexFileFor(masterFile));
+        return stamp == null || stamp[0] != masterFile.length() || stamp[1] != masterFile.lastModified();
+    }
+
+    /**
+     * Recorre el archivo maestro completo y reescribe su índice.
+     *
+     * @param masterFile archivo maestro en formato CSV.
+     * @return índice recién construido.
+     * @throws IOException si el maestro no puede leerse o el índice no puede escribirse.
+     */
+    public static DestinationIndex rebuild(File masterFile) throws IOException {
+        checkFormat(masterFile);
+        // Como en PassengerNameIndex: fecha y tamaño antes de leer, y el recorrido no pasa de ese
+        // tamaño, para que una reserva añadida durante la lectura deje el índice obsoleto.
+        long lastModified = masterFile.lastModified();
+        long length = masterFile.length();
+        Destinations[] destinations = Destinations.values();
+        long[][] offsets = new long[destinations.length][];
+        int[] counts = new int[destinations.length];
+        Arrays.setAll(offsets, i -> new long[16]);
+
+        File indexFile = indexFileFor(masterFile);
+        try (MappedCsvReader reader = MappedCsvReader.open(masterFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, false), 1 << 16))) {
+            writeHeader(out, 0, 0); // se completa al terminar
+
+            boolean isHeader = true;
+            int destinationColumn = ReservationFields.DESTINATION.ordinal();
+            while (reader.next() && reader.recordOffset() < length) {
+                if (isHeader) {
+                    isHeader = false; // saltamos encabezado
+                    continue;
+                }
+                if (reader.fieldCount() <= destinationColumn) {
+                    continue;
+                }
+                Destinations destination = reader.destination(destinationColumn);
+                if (destination == null) {
+                    continue;
+                }
+
+                int slot = destination.ordinal();
+                if (counts[slot] == offsets[slot].length) {
+                    offsets[slot] = Arrays.copyOf(offsets[slot], counts[slot] * 2);
+                }
+                offsets[slot][counts[slot]++] = reader.recordOffset();
+                out.writeByte(slot);
+                out.writeLong(reader.recordOffset());
+            }
+        }
+
+        writeStamp(indexFile, length, lastModified);
+
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = Arrays.copyOf(offsets[i], counts[i]);
+        }
+        return new DestinationIndex(masterFile, offsets);
+    }
+
+    /**
+     * Registra en el índice una reserva recién añadida al final del archivo maestro. Si el índice no
+     * existe no se hace nada, y si ya estaba obsoleto antes de la escritura se deja como está para
+     * que se reconstruya en la siguiente consulta.
+     *
+     * @param masterFile         archivo maestro.
+     * @param destination        destino de la reserva añadida.
+     * @param lengthBefore       tamaño del maestro antes de añadir la reserva (su desplazamiento).
+     * @param lastModifiedBefore fecha de modificación del maestro antes de añadir la reserva.
+     * @throws IOException si el índice no puede actualizarse.
+     */
+    public static void recordAppend(File masterFile, Destinations destination,
+                                    long lengthBefore, long lastModifiedBefore) throws IOException {
+        recordAppends(masterFile, new byte[]{(byte) destination.ordinal()}, new long[]{lengthBefore}, 1,
+                lengthBefore, lastModifiedBefore);
+    }
+
+    /**
+     * Registra en el índice un lote de reservas añadidas de una sola vez al final del archivo
+     * maestro, con el mismo criterio que {@link #recordAppend}.
+     *
+     * @param masterFile         archivo maestro.
+     * @param destinations       ordinales de los destinos de las reservas añadidas.
+     * @param recordOffsets      desplazamientos de cada reserva en el maestro.
+     * @param count              número de entradas válidas en los arrays.
+     * @param lengthBefore       tamaño del maestro antes de añadir el lote.
+     * @param lastModifiedBefore fecha de modificación del maestro antes de añadir el lote.
+     * @throws IOException si el índice no puede actualizarse.
+     */
+    static void recordAppends(File masterFile, byte[] destinations, long[] recordOffsets, int count,
+                              long lengthBefore, long lastModifiedBefore) throws IOException {
+        File indexFile = indexFileFor(masterFile);
+        long[] stamp = readStamp(indexFile);
+        if (stamp == null || stamp[0] != lengthBefore || stamp[1] != lastModifiedBefore) {
+            return;
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate(count * ENTRY_SIZE);
+        for (int i = 0; i < count; i++) {
+            entries.put(destinations[i]).putLong(recordOffsets[i]);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+            raf.seek(raf.length());
+            raf.write(entries.array());
+            raf.seek(STAMP_POSITION);
+            raf.writeLong(masterFile.length());
+            raf.writeLong(masterFile.lastModified());
+        }
+    }
+
+    /**
+     * Devuelve los desplazamientos, en orden creciente, de los registros de un destino.
+     *
+     * @param destination destino consultado.
+     * @return copia de los desplazamientos dentro del archivo maestro.
+     */
+    public long[] offsets(Destinations destination) {
+        return offsets[destination.ordinal()].clone();
+    }
+
+    /**
+     * Devuelve el número de registros indexados para un destino.
+     *
+     * @param destination destino consultado.
+     * @return número de registros.
+     */
+    public int count(Destinations destination) {
+        return offsets[destination.ordinal()].length;
+    }
+
+    /**
+     * Lee del archivo maestro los registros de un destino, accediendo directamente a sus
+     * desplazamientos. Cada registro se separa con la misma semántica que {@code line.split(",")}.
+     *
+     * @param destination destino consultado.
+     * @return registros del destino en el orden del archivo maestro.
+     * @throws IOException si el maestro no puede leerse.
+     */
+    public List<String[]> readRecords(Destinations destination) throws IOException {
+        return readRecordsAt(masterFile, offsets[destination.ordinal()]);
+    }
+
+    /**
+     * Lee del archivo maestro los registros que empiezan en los desplazamientos indicados, con la
+     * misma semántica que {@code line.split(",")}. Lo comparten los índices del maestro.
+     *
+     * @param masterFile archivo maestro.
+     * @param recordOffsets desplazamientos de los registros.
+     * @return registros en el orden de los desplazamientos.
+     * @throws IOException si el maestro no puede leerse.
+     */
+    static List<String[]> readRecordsAt(File masterFile, long[] recordOffsets) throws IOException {
+        List<String[]> records = new ArrayList<>(recordOffsets.length);
+        Charset charset = Charset.defaultCharset();
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+
+        try (FileChannel channel = FileChannel.open(masterFile.toPath(), StandardOpenOption.READ)) {
+            for (long offset : recordOffsets) {
+                int length = readLineAt(channel, offset, buffer);
+                if (length < 0) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                    length = readLineAt(channel, offset, buffer);
+                    while (length < 0) {
+                        buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                        length = readLineAt(channel, offset, buffer);
+                    }
+                }
+                records.add(new String(buffer.array(), 0, length, charset).split(","));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return archivo maestro al que corresponde el índice.
+     */
+    public File getMasterFile() {
+        return masterFile;
+    }
+
+    /**
+     * Rechaza los maestros binarios y comprimidos: los desplazamientos del índice apuntan a líneas
+     * de texto del archivo.
+     */
+    private static void checkFormat(File masterFile) throws IOException {
+        if (BinaryReservationReader.isBinary(masterFile) || BlockCompression.isCompressed(masterFile)) {
+            throw new IOException("El índice por destino solo admite archivos maestros en formato CSV sin comprimir.");
+        }
+    }
+
+    /**
+     * Carga en memoria un índice existente.
+     *
+     * @return el índice o {@code null} si el archivo está dañado.
+     */
+    private static DestinationIndex load(File masterFile) throws IOException {
+        File indexFile = indexFileFor(masterFile);
+        Destinations[] destinations = Destinations.values();
+        long entries = (indexFile.length() - HEADER_SIZE) / ENTRY_SIZE;
+        long[][] offsets = new long[destinations.length][];
+        int[] counts = new int[destinations.length];
+        Arrays.setAll(offsets, i -> new long[16]);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), 1 << 16))) {
+            in.skipNBytes(HEADER_SIZE);
+            for (long i = 0; i < entries; i++) {
+                int slot = in.readUnsignedByte();
+                long offset = in.readLong();
+                if (slot >= destinations.length) {
+                    return null;
+                }
+                if (counts[slot] == offsets[slot].length) {
+                    offsets[slot] = Arrays.copyOf(offsets[slot], counts[slot] * 2);
+                }
+                offsets[slot][counts[slot]++] = offset;
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = Arrays.copyOf(offsets[i], counts[i]);
+            Arrays.sort(offsets[i]);
+        }
+        return new DestinationIndex(masterFile, offsets);
+    }
+
+    /**
+     * Lee la línea que empieza en {@code offset}.
+     *
+     * @return longitud de la línea (sin terminador) o {@code -1} si no cabe en el búfer.
+     */
+    private static int readLineAt(FileChannel channel, long offset, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) break;
+        }
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < buffer.position(); i++) {
+            if (bytes[i] == '\n' || bytes[i] == '\r') {
+                return i;
+            }
+        }
+        return buffer.hasRemaining() ? buffer.position() : -1;
+    }
+
+    /**
+     * Lee el tamaño y la fecha del maestro guardados en la cabecera del índice.
+     *
+     * @return {@code [tamaño, fecha]} o {@code null} si el índice no existe o no es válido.
+     */
+    private static long[] readStamp(File indexFile) throws IOException {
+        if (!indexFile.isFile() || indexFile.length() < HEADER_SIZE) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readByte() != VERSION) {
+                return null;
+            }
+            return new long[]{in.readLong(), in.readLong()};
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, long masterLength, long masterLastModified) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(masterLength);
+        out.writeLong(masterLastModified);
+    }
+
+    private static void writeStamp(File indexFile, long masterLength, long masterLastModified) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+            raf.seek(STAMP_POSITION);
+            raf.writeLong(masterLength);
+            raf.writeLong(masterLastModified);
+        }
+    }
+}
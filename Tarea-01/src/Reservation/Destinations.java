@@ -1,5 +1,7 @@
 package Reservation;
 
+import java.nio.ByteBuffer;
+
 /**
  * Listado de destinos soportados por el sistema. Se utiliza para estandarizar la escritura en los
  * archivos CSV y evitar discrepancias en la clasificación por país.
@@ -35,5 +37,187 @@ public enum Destinations {
     VIENA,
     VENECIA,
     RIO_DE_JANEIRO,
-    LIMA
+    LIMA;
+
+    /** Archivo al que se envían las reservas cuyo destino no pertenece al catálogo. */
+    public static final String QUARANTINE_FILE_NAME = "reservas_cuarentena.txt";
+
+    private static final Destinations[] VALUES = values();
+    private static final String[] FILE_NAMES = new String[VALUES.length];
+    /** Tabla hash de direccionamiento abierto: ordinal + 1 de cada destino, {@code 0} en los huecos. */
+    private static final byte[] TABLE = new byte[128];
+    private static final int NO_MATCH = -1;
+    private static final int SEPARATOR = '_';
+
+    static {
+        for (Destinations destination : VALUES) {
+            FILE_NAMES[destination.ordinal()] = "reservas_" + destination.name().toLowerCase() + ".txt";
+            int slot = slotOf(hashOf(destination.name()));
+            while (TABLE[slot] != 0) {
+                slot = (slot + 1) & (TABLE.length - 1);
+            }
+            TABLE[slot] = (byte) (destination.ordinal() + 1);
+        }
+    }
+
+    /**
+     * @return nombre del archivo de reservas del destino, por ejemplo {@code reservas_nueva_york.txt}.
+     */
+    public String fileName() {
+        return FILE_NAMES[ordinal()];
+    }
+
+    /**
+     * Obtiene el destino correspondiente a un texto leído de un archivo, tolerando diferencias de
+     * mayúsculas y de espacios (por ejemplo {@code " nueva york"} equivale a {@link #NUEVA_YORK}).
+     *
+     * @param rawDestination texto del destino.
+     * @return el destino correspondiente o {@code null} si no pertenece al catálogo.
+     */
+    public static Destinations fromText(CharSequence rawDestination) {
+        return rawDestination == null ? null : fromText(rawDestination, 0, rawDestination.length());
+    }
+
+    /**
+     * Variante de {@link #fromText(CharSequence)} sobre un rango de caracteres. Los espacios de los
+     * extremos se ignoran, las mayúsculas no se distinguen y cualquier secuencia de espacios o
+     * guiones bajos equivale a un único {@code _}. La normalización se hace carácter a carácter al
+     * calcular el hash, sin crear cadenas intermedias.
+     *
+     * @param text  texto que contiene el destino.
+     * @param start posición del primer carácter.
+     * @param end   posición siguiente al último carácter.
+     * @return el destino correspondiente o {@code null} si no pertenece al catálogo.
+     */
+    public static Destinations fromText(CharSequence text, int start, int end) {
+        int hash = 1;
+        int length = 0;
+        boolean pendingSeparator = false;
+        for (int i = start; i < end; i++) {
+            int c = normalize(text.charAt(i));
+            if (c == NO_MATCH) {
+                return null;
+            }
+            if (c == SEPARATOR) {
+                pendingSeparator = length > 0;
+                continue;
+            }
+            if (pendingSeparator) {
+                hash = 31 * hash + SEPARATOR;
+                length++;
+                pendingSeparator = false;
+            }
+            hash = 31 * hash + c;
+            length++;
+        }
+
+        for (int slot = slotOf(hash); TABLE[slot] != 0; slot = (slot + 1) & (TABLE.length - 1)) {
+            Destinations candidate = VALUES[TABLE[slot] - 1];
+            if (candidate.name().length() == length && matches(candidate.name(), text, start, end)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Variante de {@link #fromText(CharSequence, int, int)} sobre los bytes de un archivo, con las
+     * mismas reglas. Los nombres del catálogo son ASCII, así que cualquier byte no ASCII descarta
+     * la coincidencia sin necesidad de decodificar el texto.
+     *
+     * @param bytes búfer que contiene el destino.
+     * @param start posición del primer byte.
+     * @param end   posición siguiente al último byte.
+     * @return el destino correspondiente o {@code null} si no pertenece al catálogo.
+     */
+    public static Destinations fromBytes(ByteBuffer bytes, int start, int end) {
+        int hash = 1;
+        int length = 0;
+        boolean pendingSeparator = false;
+        for (int i = start; i < end; i++) {
+            int c = normalize(bytes.get(i) & 0xFF);
+            if (c == NO_MATCH) {
+                return null;
+            }
+            if (c == SEPARATOR) {
+                pendingSeparator = length > 0;
+                continue;
+            }
+            if (pendingSeparator) {
+                hash = 31 * hash + SEPARATOR;
+                length++;
+                pendingSeparator = false;
+            }
+            hash = 31 * hash + c;
+            length++;
+        }
+
+        for (int slot = slotOf(hash); TABLE[slot] != 0; slot = (slot + 1) & (TABLE.length - 1)) {
+            Destinations candidate = VALUES[TABLE[slot] - 1];
+            if (candidate.name().length() == length && matches(candidate.name(), bytes, start, end)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Normaliza un carácter: letras a mayúsculas, espacios y {@code _} a {@link #SEPARATOR}.
+     *
+     * @return el carácter normalizado o {@link #NO_MATCH} si no puede aparecer en un destino.
+     */
+    private static int normalize(int c) {
+        if (c >= 'a' && c <= 'z') return c - ('a' - 'A');
+        if (c >= 'A' && c <= 'Z') return c;
+        if (c <= ' ' || c == '_') return SEPARATOR;
+        return NO_MATCH;
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        int position = 0;
+        boolean pendingSeparator = false;
+        for (int i = start; i < end; i++) {
+            int c = normalize(text.charAt(i));
+            if (c == SEPARATOR) {
+                pendingSeparator = position > 0;
+                continue;
+            }
+            if (pendingSeparator) {
+                if (name.charAt(position++) != SEPARATOR) return false;
+                pendingSeparator = false;
+            }
+            if (name.charAt(position++) != c) return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(String name, ByteBuffer bytes, int start, int end) {
+        int position = 0;
+        boolean pendingSeparator = false;
+        for (int i = start; i < end; i++) {
+            int c = normalize(bytes.get(i) & 0xFF);
+            if (c == SEPARATOR) {
+                pendingSeparator = position > 0;
+                continue;
+            }
+            if (pendingSeparator) {
+                if (name.charAt(position++) != SEPARATOR) return false;
+                pendingSeparator = false;
+            }
+            if (name.charAt(position++) != c) return false;
+        }
+        return true;
+    }
+
+    private static int hashOf(String name) {
+        int hash = 1;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int slotOf(int hash) {
+        return (hash ^ (hash >>> 7) ^ (hash >>> 14)) & (TABLE.length - 1);
+    }
 }
@@ -0,0 +1,88 @@
+package Reservation;
+
+import java.io.PrintStream;
+
+/**
+ * Informe de reservas en JSON, pensado para paneles de control. Ignora el detalle de registros y
+ * escribe un único objeto con las estadísticas agregadas:
+ *
+ * <pre>
+ * {"total":3,
+ *  "byClass":{"FIRST":1,"BUSINESS":1,"ECONOMY":1},
+ *  "byDestination":{"PARIS":1,"TOKIO":2,...},
+ *  "classByDestination":{"FIRST":{"PARIS":0,"TOKIO":1,...},...},
+ *  "seatOccupancy":{"A":1,"B":0,...},
+ *  "filter":{"class":"BUSINESS","count":1}}
+ * </pre>
+ *
+ * El campo {@code filter} solo aparece si se indica una clase.
+ */
+public class JsonReportRenderer implements ReservationReportRenderer {
+    private final PrintStream out;
+
+    /**
+     * @param out flujo en el que se escribe el JSON.
+     */
+    public JsonReportRenderer(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin() {
+    }
+
+    @Override
+    public void row(long index, String[] fields) {
+    }
+
+    @Override
+    public void end(ReservationStatistics statistics, ReservationClass... reservationClass) {
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\"total\":").append(statistics.getTotal());
+
+        json.append(",\"byClass\":{");
+        ReservationClass[] classes = ReservationClass.values();
+        for (int i = 0; i < classes.length; i++) {
+            if (i > 0) json.append(',');
+            appendEntry(json, classes[i].name(), statistics.getCount(classes[i]));
+        }
+
+        json.append("},\"byDestination\":{");
+        Destinations[] destinations = Destinations.values();
+        for (int i = 0; i < destinations.length; i++) {
+            if (i > 0) json.append(',');
+            appendEntry(json, destinations[i].name(), statistics.getCount(destinations[i]));
+        }
+
+        json.append("},\"classByDestination\":{");
+        for (int c = 0; c < classes.length; c++) {
+            if (c > 0) json.append(',');
+            json.append('"').append(classes[c].name()).append("\":{");
+            for (int d = 0; d < destinations.length; d++) {
+                if (d > 0) json.append(',');
+                appendEntry(json, destinations[d].name(), statistics.getCount(classes[c], destinations[d]));
+            }
+            json.append('}');
+        }
+
+        json.append("},\"seatOccupancy\":{");
+        String letters = ReservationStatistics.SEAT_LETTERS;
+        for (int i = 0; i < letters.length(); i++) {
+            if (i > 0) json.append(',');
+            appendEntry(json, String.valueOf(letters.charAt(i)), statistics.getSeatCount(letters.charAt(i)));
+        }
+        json.append('}');
+
+        if (reservationClass.length > 0) {
+            json.append(",\"filter\":{\"class\":\"").append(reservationClass[0].name())
+                    .append("\",\"count\":").append(statistics.getCount(reservationClass[0])).append('}');
+        }
+
+        json.append('}');
+        out.println(json);
+    }
+
+    private static void appendEntry(StringBuilder json, String key, long value) {
+        json.append('"').append(key).append("\":").append(value);
+    }
+}
@@ -1,8 +1,11 @@
 package Reservation;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
+import Utils.ReservationMetrics;
 import Utils.Utils;
 
 /**
@@ -12,20 +15,44 @@ import Utils.Utils;
  */
 public class Main {
 
+    /**
+     * Intervalo, en segundos, entre informes de métricas con {@code --metrics}.
+     */
+    private static final long METRICS_DUMP_SECONDS = 10;
+
     /**
      * Ejecuta ejemplos guiados del uso de la API de reservas. Para evitar que las demostraciones
      * sean invasivas, las operaciones interactivas (como el alta de reservas mediante cuadros de
      * diálogo) solo se ejecutan cuando se recibe el argumento {@code --interactive}.
      *
-     * @param args argumentos de línea de comandos. Utilice {@code --interactive} para habilitar la captura manual.
+     * <p>Con {@code --metrics} las métricas de {@link ReservationMetrics} se publican por JMX, se
+     * muestran cada {@value #METRICS_DUMP_SECONDS} segundos y una última vez al terminar.</p>
+     *
+     * @param args argumentos de línea de comandos. Utilice {@code --interactive} para habilitar la
+     *             captura manual y {@code --metrics} para mostrar las métricas.
      * @throws IOException si ocurre un problema al crear o manipular archivos de reservas.
      */
     public static void main(String[] args) throws IOException {
         boolean interactive = args != null && java.util.Arrays.stream(args)
                 .anyMatch(arg -> "--interactive".equalsIgnoreCase(arg));
+        boolean metrics = args != null && java.util.Arrays.stream(args)
+                .anyMatch(arg -> "--metrics".equalsIgnoreCase(arg));
 
-        runMasterReservationExample(interactive);
-        runValidationExample();
+        if (!metrics) {
+            runMasterReservationExample(interactive);
+            runValidationExample();
+            return;
+        }
+
+        ReservationMetrics.registerMBeans();
+        Closeable periodicDump = ReservationMetrics.startPeriodicDump(System.out, METRICS_DUMP_SECONDS, TimeUnit.SECONDS);
+        try {
+            runMasterReservationExample(interactive);
+            runValidationExample();
+        } finally {
+            periodicDump.close();
+            ReservationMetrics.dump(System.out);
+        }
     }
 
     /**
@@ -0,0 +1,56 @@
+package Reservation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exclusión mutua para las escrituras al final de un archivo de reservas. Combina un monitor por
+ * archivo dentro de la JVM con un {@link FileLock} exclusivo entre procesos; el monitor es necesario
+ * porque los bloqueos de archivo se conceden a la JVM completa y dos canales del mismo proceso no
+ * pueden solicitarlos a la vez.
+ */
+final class MasterFileLock {
+
+    private static final ConcurrentHashMap<String, Object> MONITORS = new ConcurrentHashMap<>();
+
+    private MasterFileLock() {
+    }
+
+    /**
+     * Ejecuta una acción con el archivo bloqueado para los demás hilos y procesos.
+     *
+     * @param file    archivo protegido.
+     * @param channel canal abierto para escritura sobre {@code file}.
+     * @param action  acción a ejecutar mientras se mantiene el bloqueo.
+     * @param <T>     tipo del resultado.
+     * @return el resultado de la acción.
+     * @throws IOException si no se puede obtener el bloqueo o la acción falla.
+     */
+    static <T> T withLock(File file, FileChannel channel, LockedAction<T> action) throws IOException {
+        synchronized (monitorFor(file)) {
+            FileLock lock = channel.lock();
+            try {
+                return action.run();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private static Object monitorFor(File file) throws IOException {
+        return MONITORS.computeIfAbsent(file.getCanonicalPath(), path -> new Object());
+    }
+
+    /**
+     * Acción ejecutada con el archivo bloqueado.
+     *
+     * @param <T> tipo del resultado.
+     */
+    @FunctionalInterface
+    interface LockedAction<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,260 @@
+package Reservation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Punto de control del particionado incremental por destino. Se guarda junto al maestro
+ * ({@code reservas_maestro.txt.ckpt}) y registra hasta qué byte del maestro se han repartido ya las
+ * reservas en los archivos {@code reservas_<destino>.txt}, de modo que la siguiente ejecución solo
+ * lee lo añadido después.
+ *
+ * <pre>
+ * "RSVP" | versión (1 byte) | bytes consumidos del maestro (long) | tamaño del maestro (long)
+ *        | última modificación del maestro (long) | CRC32 completo (1 byte) | CRC32 del prefijo consumido (long)
+ *        | número de archivos (int) | tamaño de cada reservas_&lt;destino&gt;.txt y de la cuarentena (long, -1 si no se generó)
+ * </pre>
+ *
+ * <p>Por defecto el CRC32 cubre todo el prefijo consumido, así que cualquier edición de lo ya
+ * repartido invalida el punto de control. Con {@link Utils.ProcessingOptions#fullChecksum()} a
+ * {@code false} cubre solo sus primeros y sus últimos {@value #CHECKSUM_WINDOW} bytes, lo que evita
+ * releer el prefijo en cada ejecución y basta para detectar un maestro truncado, sustituido o
+ * reescrito por el final; un maestro que conserva su tamaño pero cambia de fecha de modificación se
+ * ha editado en su sitio y también lo invalida, pero una edición en mitad del prefijo acompañada de
+ * nuevas reservas pasa desapercibida. El tamaño guardado de cada archivo por destino
+ * detecta además los archivos de salida borrados o modificados. En cualquiera de esos casos el punto
+ * de control deja de ser válido y el particionado se repite desde el principio.</p>
+ */
+final class PartitionCheckpoint {
+
+    /** Bytes del inicio y del final del prefijo consumido que cubre el CRC32 parcial. */
+    static final int CHECKSUM_WINDOW = 64 * 1024;
+
+    private static final byte[] MAGIC = {'R', 'S', 'V', 'P'};
+    private static final byte VERSION = 2;
+
+    private final long consumed;
+    private final long masterLength;
+    private final long masterLastModified;
+    private final boolean fullChecksum;
+    private final long checksum;
+    private final long[] outputLengths;
+
+    /**
+     * @param consumed           bytes del maestro ya repartidos.
+     * @param masterLength       tamaño del maestro antes de calcular el CRC32.
+     * @param masterLastModified fecha de modificación del maestro antes de calcular el CRC32.
+     * @param fullChecksum       {@code true} si el CRC32 cubre todo el prefijo consumido.
+     * @param checksum           CRC32 del prefijo consumido, calculado con
+     *                           {@link #checksum(FileChannel, long, boolean)}.
+     * @param outputLengths      tamaño de cada archivo por destino, indexado por ordinal y seguido del
+     *                           de cuarentena; {@code -1} si no se generó.
+     */
+    PartitionCheckpoint(long consumed, long masterLength, long masterLastModified, boolean fullChecksum,
+                        long checksum, long[] outputLengths) {
+        this.consumed = consumed;
+        this.masterLength = masterLength;
+        this.masterLastModified = masterLastModified;
+        this.fullChecksum = fullChecksum;
+        this.checksum = checksum;
+        this.outputLengths = outputLengths;
+    }
+
+    /**
+     * Devuelve el archivo de punto de control asociado a un archivo maestro.
+     *
+     * @param masterFile archivo maestro.
+     * @return archivo de punto de control (puede no existir).
+     */
+    static File fileFor(File masterFile) {
+        return new File(masterFile.getPath() + ".ckpt");
+    }
+
+    /**
+     * Lee el punto de control de un maestro.
+     *
+     * @param masterFile archivo maestro.
+     * @return el punto de control, o {@code null} si no existe, está dañado o es de otra versión.
+     * @throws IOException si el archivo existe pero no puede leerse.
+     */
+    static PartitionCheckpoint read(File masterFile) throws IOException {
+        File file = fileFor(masterFile);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readByte() != VERSION) {
+                return null;
+            }
+            long consumed = in.readLong();
+            long masterLength = in.readLong();
+            long masterLastModified = in.readLong();
+            boolean fullChecksum = in.readBoolean();
+            long checksum = in.readLong();
+            int count = in.readInt();
+            if (count != Destinations.values().length + 1) {
+                return null; // el catálogo de destinos ha cambiado
+            }
+            long[] lengths = new long[count];
+            for (int i = 0; i < count; i++) {
+                lengths[i] = in.readLong();
+            }
+            return new PartitionCheckpoint(consumed, masterLength, masterLastModified, fullChecksum, checksum, lengths);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Guarda el punto de control en un archivo temporal y lo renombra, para que una interrupción a
+     * mitad de escritura nunca deje un punto de control parcial.
+     *
+     * @param masterFile archivo maestro.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    void write(File masterFile) throws IOException {
+        File file = fileFor(masterFile);
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp, false)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(consumed);
+            out.writeLong(masterLength);
+            out.writeLong(masterLastModified);
+            out.writeBoolean(fullChecksum);
+            out.writeLong(checksum);
+            out.writeInt(outputLengths.length);
+            for (long length : outputLengths) {
+                out.writeLong(length);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Comprueba que el maestro y los archivos por destino siguen siendo los que produjo la ejecución
+     * anterior. Un punto de control con CRC32 parcial no vale si se pide el completo.
+     *
+     * @param masterFile   archivo maestro.
+     * @param outputs      archivos por destino, indexados por ordinal y seguidos del de cuarentena.
+     * @param fullChecksum {@code true} para exigir el CRC32 de todo el prefijo consumido.
+     * @return {@code true} si puede continuarse desde {@link #consumed()}.
+     * @throws IOException si el maestro no puede leerse.
+     */
+    boolean isValidFor(File masterFile, File[] outputs, boolean fullChecksum) throws IOException {
+        if (fullChecksum && !this.fullChecksum) {
+            return false;
+        }
+        long length = masterFile.length();
+        if (consumed > length) {
+            return false; // maestro truncado
+        }
+        if (length == masterLength && masterFile.lastModified() != masterLastModified) {
+            return false; // mismo tamaño y otra fecha: editado en su sitio
+        }
+        for (int i = 0; i < outputs.length; i++) {
+            long expected = outputLengths[i];
+            if (expected >= 0 && (!outputs[i].isFile() || outputs[i].length() != expected)) {
+                return false;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(masterFile.toPath(), StandardOpenOption.READ)) {
+            return checksum(channel, consumed, this.fullChecksum) == checksum;
+        }
+    }
+
+    /**
+     * @return bytes del maestro ya repartidos.
+     */
+    long consumed() {
+        return consumed;
+    }
+
+    /**
+     * @return copia de los tamaños de los archivos por destino y del de cuarentena.
+     */
+    long[] outputLengths() {
+        return outputLengths.clone();
+    }
+
+    /**
+     * Calcula el CRC32 de {@code [0, length)} completo o solo de sus primeros y sus últimos
+     * {@link #CHECKSUM_WINDOW} bytes.
+     *
+     * @param channel canal del maestro.
+     * @param length  longitud del prefijo.
+     * @param full    {@code true} para cubrir todo el prefijo.
+     * @return valor del CRC32.
+     * @throws IOException si el maestro no puede leerse.
+     */
+    static long checksum(FileChannel channel, long length, boolean full) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKSUM_WINDOW);
+        if (full) {
+            update(crc, channel, 0, length, buffer);
+        } else {
+            update(crc, channel, 0, Math.min(CHECKSUM_WINDOW, length), buffer);
+            long tailStart = Math.max(CHECKSUM_WINDOW, length - CHECKSUM_WINDOW);
+            update(crc, channel, tailStart, length, buffer);
+        }
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, length));
+        return crc.getValue();
+    }
+
+    /**
+     * Busca el final de la última línea completa del maestro, para no repartir un registro que otro
+     * proceso todavía está escribiendo.
+     *
+     * @param channel canal del maestro.
+     * @return posición siguiente al último {@code '\n'}, o {@code 0} si no hay ninguno.
+     * @throws IOException si el maestro no puede leerse.
+     */
+    static long completeLinesEnd(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) break;
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    private static void update(CRC32 crc, FileChannel channel, long from, long to, ByteBuffer buffer) throws IOException {
+        long position = from;
+        while (position < to) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("El maestro terminó antes de lo esperado.");
+            }
+            buffer.flip();
+            crc.update(buffer);
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,856 @@
+package Reservation;
+
+import Utils.BlockCompression;
+import Utils.MappedCsvReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Índice persistente de los registros del archivo maestro por nombre de pasajero. Se guarda junto al
+ * maestro ({@code reservas_maestro.txt.names.idx}) y permite buscar las reservas de un pasajero por
+ * su nombre completo ({@link #find(String)}) o por el principio del nombre
+ * ({@link #findByPrefix(String)}) sin recorrer el maestro.
+ *
+ * <p>Los nombres se normalizan antes de indexarlos y de buscarlos: sin espacios en los extremos,
+ * con los espacios intermedios reducidos a uno (como {@link Utils.Utils#capitalizeWords(String)}) y
+ * en minúsculas, de modo que {@code "ana  ruiz"} encuentra {@code "Ana Ruiz"}.</p>
+ *
+ * <pre>
+ * cabecera  : "RSVN" | versión (1 byte) | tamaño del maestro (long) | última modificación del maestro (long)
+ *             | nombres (int) | desplazamientos (long) | posición de la tabla (long) | posición de los nombres (long)
+ *             | posición del registro de altas (long)
+ * segmento  : desplazamientos de los registros en el maestro (long), agrupados por nombre
+ *             | tabla de nombres ordenada: primer desplazamiento (long) | posición del nombre (int) | longitud (int)
+ *             | nombres en UTF-8
+ * altas*    : longitud del nombre (int) | nombre en UTF-8 | desplazamiento del registro (long)
+ * </pre>
+ *
+ * <p>El segmento ordenado se proyecta en memoria por ventanas de 256 MB, como en
+ * {@link MappedCsvReader}, y se consulta con búsqueda binaria sobre la tabla de nombres. Las reservas que añade {@link ReservationIngestor} se anotan al final del archivo, en el
+ * registro de altas, con el mismo control de versión que {@link DestinationIndex}; al abrir el índice
+ * se cargan en memoria y, si son muchas, se funden con el segmento en uno nuevo sin volver a leer el
+ * maestro. Si el índice no existe o no corresponde al maestro se reconstruye con una ordenación
+ * externa: el maestro se recorre en tramos de {@value #RUN_SIZE} registros que se ordenan y se guardan
+ * en archivos temporales, y los tramos se mezclan al escribir el segmento, de modo que la memoria no
+ * depende del tamaño del maestro. Solo se admiten maestros en formato CSV sin comprimir.</p>
+ */
+public final class PassengerNameIndex {
+
+    private static final byte[] MAGIC = {'R', 'S', 'V', 'N'};
+    private static final byte VERSION = 1;
+    private static final int STAMP_POSITION = MAGIC.length + 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + Long.BYTES * 2 + Integer.BYTES + Long.BYTES * 4;
+    private static final int KEY_ENTRY_SIZE = Long.BYTES + Integer.BYTES * 2;
+    /** Registros por tramo ordenado en memoria durante la reconstrucción. */
+    private static final int RUN_SIZE = 1 << 18;
+    /** Altas pendientes a partir de las cuales se funden con el segmento al abrir el índice. */
+    private static final int MIN_COMPACTION = 1 << 14;
+    private static final int NAME_COLUMN = ReservationFields.PASSENGER_NAME.ordinal();
+    private static final Comparator<Entry> ENTRY_ORDER = (a, b) -> Arrays.compareUnsigned(a.key, b.key);
+
+    private final File masterFile;
+    private final MappedSegment segment;
+    private final int keyCount;
+    private final long postingCount;
+    private final long keyTablePosition;
+    private final long keyBlobPosition;
+    private final TreeMap<String, Postings> appended;
+    private final int appendedCount;
+    /** Tamaño y fecha del maestro que cubre este índice, tal y como se leyeron al cargarlo. */
+    private final long stampLength;
+    private final long stampLastModified;
+
+    private PassengerNameIndex(File masterFile, MappedSegment segment, int keyCount, long postingCount,
+                               long keyTablePosition, long keyBlobPosition, TreeMap<String, Postings> appended,
+                               int appendedCount, long stampLength, long stampLastModified) {
+        this.masterFile = masterFile;
+        this.stampLength = stampLength;
+        this.stampLastModified = stampLastModified;
+        this.segment = segment;
+        this.keyCount = keyCount;
+        this.postingCount = postingCount;
+        this.keyTablePosition = keyTablePosition;
+        this.keyBlobPosition = keyBlobPosition;
+        this.appended = appended;
+        this.appendedCount = appendedCount;
+    }
+
+    /**
+     * Devuelve el archivo de índice asociado a un archivo maestro.
+     *
+     * @param masterFile archivo maestro.
+     * @return archivo de índice (puede no existir).
+     */
+    public static File indexFileFor(File masterFile) {
+        return new File(masterFile.getPath() + ".names.idx");
+    }
+
+    /**
+     * Normaliza un nombre de pasajero para indexarlo o buscarlo.
+     *
+     * @param name nombre tal como aparece en el maestro o en la consulta.
+     * @return nombre sin espacios sobrantes y en minúsculas.
+     */
+    public static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c <= ' ') {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Abre el índice del archivo maestro, reconstruyéndolo si no existe o está obsoleto y fundiendo
+     * las altas pendientes si son muchas.
+     *
+     * @param masterFile archivo maestro en formato CSV.
+     * @return índice actualizado.
+     * @throws IOException si el maestro no puede leerse o el índice no puede escribirse.
+     */
+    public static PassengerNameIndex open(File masterFile) throws IOException {
+        checkFormat(masterFile);
+        if (!isStale(masterFile)) {
+            PassengerNameIndex index = load(masterFile);
+            if (index != null) {
+                if (index.appendedCount < Math.max(MIN_COMPACTION, index.postingCount / 8)) {
+                    return index;
+                }
+                return index.compact();
+            }
+        }
+        return rebuild(masterFile);
+    }
+
+    /**
+     * Indica si el índice no existe o no corresponde al contenido actual del archivo maestro.
+     *
+     * @param masterFile archivo maestro.
+     * @return {@code true} si el índice debe reconstruirse.
+     * @throws IOException si el índice existe pero no puede leerse.
+     */
+    public static boolean isStale(File masterFile) throws IOException {
+        long[] stamp = readStamp(indexFileFor(masterFile));
+        return stamp == null || stamp[0] != masterFile.length() || stamp[1] != masterFile.lastModified();
+    }
+
+    /**
+     * Recorre el archivo maestro completo y reescribe su índice mediante una ordenación externa.
+     *
+     * @param masterFile archivo maestro en formato CSV.
+     * @return índice recién construido.
+     * @throws IOException si el maestro no puede leerse o el índice no puede escribirse.
+     */
+    public static PassengerNameIndex rebuild(File masterFile) throws IOException {
+        checkFormat(masterFile);
+        // Fecha y tamaño se toman antes de leer y el recorrido se detiene en ese tamaño: lo que se
+        // añada mientras tanto deja el índice obsoleto, en lugar de darlo por incluido.
+        long lastModified = masterFile.lastModified();
+        long length = masterFile.length();
+        File directory = indexFileFor(masterFile).getAbsoluteFile().getParentFile();
+        List<File> runs = new ArrayList<>();
+        Run run = new Run();
+        try {
+            try (MappedCsvReader reader = MappedCsvReader.open(masterFile)) {
+                boolean isHeader = true;
+                while (reader.next() && reader.recordOffset() < length) {
+                    if (isHeader) {
+                        isHeader = false; // saltamos encabezado
+                        continue;
+                    }
+                    if (reader.fieldCount() <= NAME_COLUMN || reader.isBlank(NAME_COLUMN)) {
+                        continue;
+                    }
+                    if (run.add(normalize(reader.field(NAME_COLUMN)), reader.recordOffset())) {
+                        runs.add(run.spill(directory));
+                    }
+                }
+            }
+
+            List<EntrySource> sources = new ArrayList<>();
+            try {
+                for (File file : runs) {
+                    sources.add(new RunFileSource(file));
+                }
+                sources.add(run.sorted());
+                writeSegment(masterFile, sources, length, lastModified);
+            } finally {
+                for (EntrySource source : sources) {
+                    source.close();
+                }
+            }
+        } finally {
+            for (File file : runs) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+
+        PassengerNameIndex index = load(masterFile);
+        if (index == null) {
+            throw new IOException("No se pudo leer el índice recién construido: " + indexFileFor(masterFile));
+        }
+        return index;
+    }
+
+    /**
+     * Registra en el índice un lote de reservas añadidas de una sola vez al final del archivo
+     * maestro. Si el índice no existe no se hace nada, y si ya estaba obsoleto antes de la escritura
+     * se deja como está para que se reconstruya en la siguiente consulta.
+     *
+     * @param masterFile         archivo maestro.
+     * @param names              nombres de pasajero de las reservas añadidas.
+     * @param recordOffsets      desplazamientos de cada reserva en el maestro.
+     * @param count              número de entradas válidas en los arrays.
+     * @param lengthBefore       tamaño del maestro antes de añadir el lote.
+     * @param lastModifiedBefore fecha de modificación del maestro antes de añadir el lote.
+     * @throws IOException si el índice no puede actualizarse.
+     */
+    static void recordAppends(File masterFile, String[] names, long[] recordOffsets, int count,
+                              long lengthBefore, long lastModifiedBefore) throws IOException {
+        File indexFile = indexFileFor(masterFile);
+        long[] stamp = readStamp(indexFile);
+        if (stamp == null || stamp[0] != lengthBefore || stamp[1] != lastModifiedBefore) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(count * 32);
+        DataOutputStream entries = new DataOutputStream(bytes);
+        for (int i = 0; i < count; i++) {
+            byte[] key = normalize(names[i]).getBytes(StandardCharsets.UTF_8);
+            entries.writeInt(key.length);
+            entries.write(key);
+            entries.writeLong(recordOffsets[i]);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+            raf.seek(raf.length());
+            raf.write(bytes.toByteArray());
+            raf.seek(STAMP_POSITION);
+            raf.writeLong(masterFile.length());
+            raf.writeLong(masterFile.lastModified());
+        }
+    }
+
+    /**
+     * Busca las reservas de un pasajero por su nombre completo.
+     *
+     * @param name nombre del pasajero; se normaliza con {@link #normalize(String)}.
+     * @return desplazamientos de sus registros en el maestro, en orden creciente.
+     */
+    public long[] find(String name) {
+        String key = normalize(name);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        long[] found = new long[0];
+        int position = lowerBound(keyBytes);
+        if (position < keyCount && compareKey(position, keyBytes) == 0) {
+            found = postings(position, position + 1);
+        }
+        Postings added = appended.get(key);
+        return added == null ? found : merge(found, added);
+    }
+
+    /**
+     * Busca las reservas de los pasajeros cuyo nombre empieza por un texto.
+     *
+     * @param prefix principio del nombre; se normaliza con {@link #normalize(String)}.
+     * @return desplazamientos de sus registros en el maestro, en orden creciente.
+     */
+    public long[] findByPrefix(String prefix) {
+        String key = normalize(prefix);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        int first = lowerBound(keyBytes);
+        int last = first;
+        while (last < keyCount && startsWith(last, keyBytes)) {
+            last++;
+        }
+        long[] found = postings(first, last);
+        for (Map.Entry<String, Postings> entry : appended.tailMap(key, true).entrySet()) {
+            if (!entry.getKey().startsWith(key)) {
+                break;
+            }
+            found = merge(found, entry.getValue());
+        }
+        return found;
+    }
+
+    /**
+     * Lee del archivo maestro los registros indicados, por ejemplo los de {@link #find(String)}.
+     *
+     * @param offsets desplazamientos de los registros.
+     * @return registros en el orden de los desplazamientos.
+     * @throws IOException si el maestro no puede leerse.
+     */
+    public List<String[]> readRecords(long[] offsets) throws IOException {
+        return DestinationIndex.readRecordsAt(masterFile, offsets);
+    }
+
+    /**
+     * @return número de nombres distintos del segmento ordenado (sin contar las altas pendientes).
+     */
+    public int distinctNames() {
+        return keyCount;
+    }
+
+    /**
+     * @return número de registros indexados, incluidas las altas pendientes.
+     */
+    public long size() {
+        return postingCount + appendedCount;
+    }
+
+    /**
+     * @return archivo maestro al que corresponde el índice.
+     */
+    public File getMasterFile() {
+        return masterFile;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Consulta del segmento
+
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = keyCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareKey(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareKey(int index, byte[] key) {
+        long entry = keyTablePosition + (long) index * KEY_ENTRY_SIZE;
+        long start = keyBlobPosition + segment.getInt(entry + Long.BYTES);
+        int length = segment.getInt(entry + Long.BYTES + Integer.BYTES);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (segment.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private boolean startsWith(int index, byte[] prefix) {
+        long entry = keyTablePosition + (long) index * KEY_ENTRY_SIZE;
+        long start = keyBlobPosition + segment.getInt(entry + Long.BYTES);
+        int length = segment.getInt(entry + Long.BYTES + Integer.BYTES);
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (segment.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long postingStart(int index) {
+        return index == keyCount ? postingCount : segment.getLong(keyTablePosition + (long) index * KEY_ENTRY_SIZE);
+    }
+
+    /**
+     * Desplazamientos de los nombres {@code [from, to)}, que ocupan posiciones consecutivas del
+     * segmento, en orden creciente.
+     */
+    private long[] postings(int from, int to) {
+        long start = postingStart(from);
+        int count = Math.toIntExact(postingStart(to) - start);
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = segment.getLong(HEADER_SIZE + (start + i) * Long.BYTES);
+        }
+        if (to - from > 1) {
+            Arrays.sort(offsets);
+        }
+        return offsets;
+    }
+
+    private static long[] merge(long[] found, Postings added) {
+        long[] merged = Arrays.copyOf(found, found.length + added.size);
+        System.arraycopy(added.offsets, 0, merged, found.length, added.size);
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Lectura y escritura del archivo
+
+    private static void checkFormat(File masterFile) throws IOException {
+        if (BinaryReservationReader.isBinary(masterFile) || BlockCompression.isCompressed(masterFile)) {
+            throw new IOException("El índice por nombre solo admite archivos maestros en formato CSV sin comprimir.");
+        }
+    }
+
+    /**
+     * Carga un índice existente: proyecta el segmento ordenado y lee las altas pendientes.
+     *
+     * @return el índice o {@code null} si el archivo está dañado.
+     */
+    private static PassengerNameIndex load(File masterFile) throws IOException {
+        File indexFile = indexFileFor(masterFile);
+        MappedSegment segment;
+        long stampLength;
+        long stampLastModified;
+        int keyCount;
+        long postingCount;
+        long keyTablePosition;
+        long keyBlobPosition;
+        long appendedPosition;
+
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // lectura completa de la cabecera
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || header.get() != VERSION) {
+                return null;
+            }
+            header.position(STAMP_POSITION);
+            stampLength = header.getLong();
+            stampLastModified = header.getLong();
+            keyCount = header.getInt();
+            postingCount = header.getLong();
+            keyTablePosition = header.getLong();
+            keyBlobPosition = header.getLong();
+            appendedPosition = header.getLong();
+            if (appendedPosition > channel.size()
+                    || keyTablePosition != HEADER_SIZE + postingCount * Long.BYTES
+                    || keyBlobPosition != keyTablePosition + (long) keyCount * KEY_ENTRY_SIZE) {
+                return null;
+            }
+            segment = new MappedSegment(channel, appendedPosition);
+        }
+
+        TreeMap<String, Postings> appended = new TreeMap<>();
+        int appendedCount = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), 1 << 16))) {
+            in.skipNBytes(appendedPosition);
+            long remaining = indexFile.length() - appendedPosition;
+            while (remaining > 0) {
+                int length = in.readInt();
+                if (length < 0 || length > remaining) {
+                    return null;
+                }
+                byte[] key = new byte[length];
+                in.readFully(key);
+                long offset = in.readLong();
+                appended.computeIfAbsent(new String(key, StandardCharsets.UTF_8), k -> new Postings()).add(offset);
+                appendedCount++;
+                remaining -= Integer.BYTES + length + Long.BYTES;
+            }
+        } catch (EOFException e) {
+            return null; // alta a medio escribir
+        }
+
+        return new PassengerNameIndex(masterFile, segment, keyCount, postingCount, keyTablePosition,
+                keyBlobPosition, appended, appendedCount, stampLength, stampLastModified);
+    }
+
+    /**
+     * Funde las altas pendientes con el segmento ordenado en un índice nuevo.
+     */
+    private PassengerNameIndex compact() throws IOException {
+        List<Entry> added = new ArrayList<>(appendedCount);
+        for (Map.Entry<String, Postings> entry : appended.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            Postings postings = entry.getValue();
+            for (int i = 0; i < postings.size; i++) {
+                added.add(new Entry(key, postings.offsets[i]));
+            }
+        }
+        added.sort(ENTRY_ORDER);
+
+        // Se conserva la versión cargada, no la actual: las altas anotadas después de cargar no están
+        // en este índice, y con la versión actual el nuevo segmento las daría por incluidas.
+        writeSegment(masterFile, List.of(new SegmentSource(this), new MemorySource(added.toArray(new Entry[0]), added.size())),
+                stampLength, stampLastModified);
+        PassengerNameIndex index = load(masterFile);
+        return index != null && !isStale(masterFile) ? index : rebuild(masterFile);
+    }
+
+    /**
+     * Mezcla fuentes ordenadas por nombre y escribe el segmento en un temporal que sustituye al
+     * índice al terminar. A igualdad de nombre las entradas se toman en el orden de las fuentes, que
+     * corresponden a tramos sucesivos del maestro, de modo que los desplazamientos quedan crecientes.
+     */
+    private static void writeSegment(File masterFile, List<EntrySource> sources, long masterLength,
+                                     long masterLastModified) throws IOException {
+        File indexFile = indexFileFor(masterFile);
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        File temporary = File.createTempFile(indexFile.getName(), ".tmp", directory);
+        File keyTable = File.createTempFile(indexFile.getName(), ".keys", directory);
+        File keyBlob = File.createTempFile(indexFile.getName(), ".blob", directory);
+
+        try {
+            int keyCount = 0;
+            long postingCount = 0;
+            long blobSize = 0;
+            try (DataOutputStream postings = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16));
+                 DataOutputStream table = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(keyTable), 1 << 16));
+                 DataOutputStream blob = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(keyBlob), 1 << 16))) {
+                postings.write(new byte[HEADER_SIZE]); // se completa al terminar
+
+                PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> {
+                    int byKey = Arrays.compareUnsigned(sources.get(a).key(), sources.get(b).key());
+                    return byKey != 0 ? byKey : Integer.compare(a, b);
+                });
+                for (int i = 0; i < sources.size(); i++) {
+                    if (sources.get(i).next()) {
+                        queue.add(i);
+                    }
+                }
+
+                byte[] lastKey = null;
+                while (!queue.isEmpty()) {
+                    int slot = queue.poll();
+                    EntrySource source = sources.get(slot);
+                    byte[] key = source.key();
+                    if (lastKey == null || !Arrays.equals(lastKey, key)) {
+                        if (blobSize + key.length > Integer.MAX_VALUE || keyCount == Integer.MAX_VALUE) {
+                            throw new IOException("Demasiados nombres para el índice de " + masterFile);
+                        }
+                        table.writeLong(postingCount);
+                        table.writeInt((int) blobSize);
+                        table.writeInt(key.length);
+                        blob.write(key);
+                        blobSize += key.length;
+                        keyCount++;
+                        lastKey = key;
+                    }
+                    postings.writeLong(source.offset());
+                    postingCount++;
+                    if (source.next()) {
+                        queue.add(slot);
+                    }
+                }
+
+                table.flush();
+                blob.flush();
+                postings.flush();
+                Files.copy(keyTable.toPath(), postings);
+                Files.copy(keyBlob.toPath(), postings);
+            }
+
+            long keyTablePosition = HEADER_SIZE + postingCount * Long.BYTES;
+            long keyBlobPosition = keyTablePosition + (long) keyCount * KEY_ENTRY_SIZE;
+            long appendedPosition = keyBlobPosition + blobSize;
+            try (RandomAccessFile raf = new RandomAccessFile(temporary, "rw")) {
+                raf.write(MAGIC);
+                raf.writeByte(VERSION);
+                raf.writeLong(masterLength);
+                raf.writeLong(masterLastModified);
+                raf.writeInt(keyCount);
+                raf.writeLong(postingCount);
+                raf.writeLong(keyTablePosition);
+                raf.writeLong(keyBlobPosition);
+                raf.writeLong(appendedPosition);
+                raf.getFD().sync();
+            }
+            Files.move(temporary.toPath(), indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+            Files.deleteIfExists(keyTable.toPath());
+            Files.deleteIfExists(keyBlob.toPath());
+        }
+    }
+
+    private static long[] readStamp(File indexFile) throws IOException {
+        if (!indexFile.isFile() || indexFile.length() < HEADER_SIZE) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readByte() != VERSION) {
+                return null;
+            }
+            return new long[]{in.readLong(), in.readLong()};
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Ordenación externa
+
+    /**
+     * Nombre normalizado en UTF-8 y desplazamiento de un registro.
+     */
+    private record Entry(byte[] key, long offset) {
+    }
+
+    /**
+     * Desplazamientos de un nombre en el registro de altas, en el orden en que se añadieron.
+     */
+    private static final class Postings {
+        long[] offsets = new long[4];
+        int size;
+
+        void add(long offset) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+        }
+    }
+
+    /**
+     * Tramo del maestro que se ordena en memoria. Los nombres repetidos comparten sus bytes.
+     */
+    private static final class Run {
+        private final Entry[] entries = new Entry[RUN_SIZE];
+        private final Map<String, byte[]> keys = new HashMap<>();
+        private int size;
+
+        /**
+         * @return {@code true} si el tramo está lleno y debe volcarse.
+         */
+        boolean add(String name, long offset) {
+            entries[size++] = new Entry(keys.computeIfAbsent(name, k -> k.getBytes(StandardCharsets.UTF_8)), offset);
+            return size == entries.length;
+        }
+
+        /**
+         * Ordena el tramo (de forma estable: los desplazamientos de cada nombre siguen crecientes) y lo
+         * vuelca en un archivo temporal.
+         */
+        File spill(File directory) throws IOException {
+            Arrays.sort(entries, 0, size, ENTRY_ORDER);
+            File file = File.createTempFile("reservas-nombres", ".run", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+                for (int i = 0; i < size; i++) {
+                    out.writeInt(entries[i].key.length);
+                    out.write(entries[i].key);
+                    out.writeLong(entries[i].offset);
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file.toPath());
+                throw e;
+            }
+            Arrays.fill(entries, 0, size, null);
+            keys.clear();
+            size = 0;
+            return file;
+        }
+
+        /**
+         * Ordena lo que queda en memoria y lo expone como fuente sin volcarlo.
+         */
+        EntrySource sorted() {
+            Arrays.sort(entries, 0, size, ENTRY_ORDER);
+            return new MemorySource(entries, size);
+        }
+    }
+
+    /**
+     * Entradas ordenadas por nombre que se mezclan al escribir el segmento.
+     */
+    private interface EntrySource extends Closeable {
+        boolean next() throws IOException;
+
+        byte[] key();
+
+        long offset();
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    private static final class MemorySource implements EntrySource {
+        private final Entry[] entries;
+        private final int size;
+        private int position = -1;
+
+        MemorySource(Entry[] entries, int size) {
+            this.entries = entries;
+            this.size = size;
+        }
+
+        @Override
+        public boolean next() {
+            return ++position < size;
+        }
+
+        @Override
+        public byte[] key() {
+            return entries[position].key;
+        }
+
+        @Override
+        public long offset() {
+            return entries[position].offset;
+        }
+    }
+
+    private static final class RunFileSource implements EntrySource {
+        private final DataInputStream in;
+        private byte[] key;
+        private long offset;
+
+        RunFileSource(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            // Los nombres repetidos del tramo son consecutivos: se reutilizan los bytes del anterior
+            byte[] read = new byte[length];
+            in.readFully(read);
+            if (key == null || !Arrays.equals(key, read)) {
+                key = read;
+            }
+            offset = in.readLong();
+            return true;
+        }
+
+        @Override
+        public byte[] key() {
+            return key;
+        }
+
+        @Override
+        public long offset() {
+            return offset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Recorre el segmento ordenado de un índice ya cargado.
+     */
+    private static final class SegmentSource implements EntrySource {
+        private final PassengerNameIndex index;
+        private int keyIndex = -1;
+        private long posting = -1;
+        private long keyEnd;
+        private byte[] key;
+
+        SegmentSource(PassengerNameIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public boolean next() {
+            posting++;
+            while (posting >= keyEnd) {
+                if (++keyIndex >= index.keyCount) {
+                    return false;
+                }
+                posting = index.postingStart(keyIndex);
+                keyEnd = index.postingStart(keyIndex + 1);
+                long entry = index.keyTablePosition + (long) keyIndex * KEY_ENTRY_SIZE;
+                key = new byte[index.segment.getInt(entry + Long.BYTES + Integer.BYTES)];
+                index.segment.get(index.keyBlobPosition + index.segment.getInt(entry + Long.BYTES), key);
+            }
+            return true;
+        }
+
+        @Override
+        public byte[] key() {
+            return key;
+        }
+
+        @Override
+        public long offset() {
+            return index.segment.getLong(HEADER_SIZE + posting * Long.BYTES);
+        }
+    }
+
+    /**
+     * Segmento ordenado proyectado en ventanas de {@link #WINDOW_SIZE} bytes, de modo que los índices
+     * de más de 2 GB se consultan igual que los pequeños. Cada ventana se prolonga {@code Long.BYTES}
+     * sobre la siguiente para que ningún entero quede partido entre dos ventanas.
+     */
+    private static final class MappedSegment {
+        private static final int WINDOW_SHIFT = 28;
+        private static final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+
+        private final ByteBuffer[] windows;
+
+        MappedSegment(FileChannel channel, long size) throws IOException {
+            windows = new ByteBuffer[(int) ((size + WINDOW_SIZE - 1) >>> WINDOW_SHIFT)];
+            for (int i = 0; i < windows.length; i++) {
+                long start = (long) i << WINDOW_SHIFT;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE + Long.BYTES, size - start));
+            }
+        }
+
+        byte get(long position) {
+            return windows[(int) (position >>> WINDOW_SHIFT)].get((int) (position & (WINDOW_SIZE - 1)));
+        }
+
+        int getInt(long position) {
+            return windows[(int) (position >>> WINDOW_SHIFT)].getInt((int) (position & (WINDOW_SIZE - 1)));
+        }
+
+        long getLong(long position) {
+            return windows[(int) (position >>> WINDOW_SHIFT)].getLong((int) (position & (WINDOW_SIZE - 1)));
+        }
+
+        void get(long position, byte[] destination) {
+            for (int i = 0; i < destination.length; i++) {
+                destination[i] = get(position + i);
+            }
+        }
+    }
+}
@@ -2,8 +2,22 @@ package Reservation;
 
 import javax.swing.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.stream.Stream;
+
+import Utils.BlockCompression;
+import Utils.FieldValidator;
+import Utils.FileFanOut;
+import Utils.MappedCsvReader;
+import Utils.ProcessingOptions;
+import Utils.ReservationCsvWriter;
+import Utils.ReservationMetrics;
+import Utils.ReservationRecordReader;
 
 import static Utils.Utils.*;
 import static java.util.Arrays.stream;
@@ -12,8 +26,18 @@ import static java.util.Arrays.stream;
  * Gestiona la creación y explotación de archivos de reservas. Esta clase ofrece utilidades para
  * generar ficheros CSV, capturar información mediante cuadros de diálogo y realizar operaciones de
  * reporte o particionado por destino.
+ *
+ * <p>Las operaciones de lectura aceptan tanto el CSV habitual como el formato binario columnar de
+ * {@link BinaryReservationWriter} y el CSV comprimido de {@link BlockCompression}; el formato se
+ * detecta automáticamente al abrir el archivo. La captura de nuevas reservas solo está disponible
+ * sobre archivos CSV sin comprimir.</p>
  */
 public class ReservationAll {
+    /**
+     * Tamaño del búfer con el que los informes de consola escriben en {@link System#out}.
+     */
+    private static final int CONSOLE_BUFFER_SIZE = 1 << 16;
+
     private final String fileName;
     private boolean has4Fields = false;
 
@@ -92,51 +116,505 @@ public class ReservationAll {
      * Genera un archivo independiente por cada destino encontrado en el archivo maestro. Cada
      * fichero incluirá únicamente las reservas que coinciden con dicho destino.
      *
+     * <p>Para {@link ReservationFields#DESTINATION} el maestro se carga en un {@link ReservationStore}
+     * (columnas primitivas y diccionario de nombres) y las reservas se agrupan por el ordinal del
+     * destino; cualquier registro inválido detiene el proceso y los que tienen un destino fuera de
+     * {@link Destinations} se apartan en {@link Destinations#QUARANTINE_FILE_NAME}. Los demás campos
+     * conservan la agrupación por texto.</p>
+     *
      * @param field campo que se utilizará para discriminar los destinos (habitualmente {@link ReservationFields#DESTINATION}).
      * @throws IOException si hay problemas al leer o escribir los archivos generados.
      */
     public void createandFillFileByDestination(ReservationFields field) throws IOException {
+        createandFillFileByDestination(field, false);
+    }
+
+    /**
+     * Particionado completo por destino. Todos los grupos se validan antes de escribir ningún archivo.
+     *
+     * @param field           campo que se utilizará para discriminar los destinos.
+     * @param compressed      {@code true} para escribir los archivos comprimidos.
+     * @param concurrentFiles número de archivos que se escriben a la vez.
+     * @param timer           medición de la llamada, que recibe los registros y bytes leídos.
+     * @return {@code true} si se completó; {@code false} si se detuvo por un registro no válido.
+     * @throws IOException si hay problemas al leer o escribir los archivos generados.
+     */
+    private boolean createandFillFileByDestinationFull(ReservationFields field, boolean compressed, int concurrentFiles,
+                                                    ReservationMetrics.Timer timer) throws IOException {
         if (!has4Fields) {
             throw new IllegalStateException("La opción de crear archivos por destino requiere el destino.");
         }
+        if (field == ReservationFields.DESTINATION) {
+            return createandFillFileByDestinationFromStore(compressed, concurrentFiles, timer);
+        }
 
         // Mapa destino -> reservas
         Map<String, List<String[]>> reservasPorDestino = getUniqueDestinationsWithRecords(field);
+        timer.addBytesRead(new File(fileName).length());
+        for (List<String[]> reservas : reservasPorDestino.values()) {
+            timer.addRows(reservas.size());
+        }
         if (reservasPorDestino.isEmpty()) {
             System.out.printf("No hay reservas para procesar con el destino %s.", field.name());
-            return;
+            return true;
+        }
+        for (List<String[]> reservas : reservasPorDestino.values()) {
+            if (!validateReservationRecords(reservas, (has4Fields) ? 4 : 3)) {
+                return false; // si hay error, salimos
+            }
         }
 
         // Crear un archivo por cada destino
-        for (Map.Entry<String, List<String[]>> entry : reservasPorDestino.entrySet()) {
-            if (!validateReservationRecords(entry.getValue(), (has4Fields) ? 4 : 3)) {
-                return; // si hay error, salimos
+        File directory = new File(System.getProperty("user.dir"));
+        Map<String, File> outputs = new LinkedHashMap<>();
+        try (FileFanOut fanOut = new FileFanOut(concurrentFiles)) {
+            for (Map.Entry<String, List<String[]>> entry : reservasPorDestino.entrySet()) {
+                List<String[]> reservas = entry.getValue();
+                String cleanDest = entry.getKey().toLowerCase().replaceAll("\\s+", "_");
+                File auxFile = new File(directory, outputName("reservas_" + cleanDest + ".txt", compressed));
+                outputs.put(entry.getKey(), auxFile);
+
+                fanOut.submit(auxFile, writer -> {
+                    // Escribir encabezados
+                    writer.writeHeader(ReservationFields.values().length);
+
+                    // Escribir reservas de ese destino
+                    for (String[] reserva : reservas) {
+                        writer.write(reserva);
+                    }
+                });
+            }
+            fanOut.await();
+        }
+
+        for (Map.Entry<String, File> entry : outputs.entrySet()) {
+            System.out.println("Archivo generado para destino: " + entry.getKey() + " -> " + entry.getValue().getAbsolutePath());
+        }
+        return true;
+    }
+
+    /**
+     * Genera o actualiza los archivos por destino. En modo incremental solo se reparten las reservas
+     * añadidas al maestro desde la ejecución anterior: se leen a partir del byte guardado en el punto
+     * de control ({@code <maestro>.ckpt}) y se añaden al final de los archivos por destino existentes.
+     * Si no hay punto de control, o el maestro se ha truncado o modificado, o algún archivo por destino
+     * ya no coincide con el que se generó, todos los archivos se regeneran desde el principio.
+     *
+     * <p>Las reservas se escriben con el mismo formato que el particionado completo, incluida la
+     * cuarentena de destinos desconocidos. La última línea
+     * del maestro solo se reparte cuando termina en salto de línea, para no leer un registro a medio
+     * escribir. El modo incremental solo admite maestros CSV; con un maestro binario se regeneran
+     * todos los archivos.</p>
+     *
+     * @param field       campo que se utilizará para discriminar los destinos; en modo incremental solo
+     *                    se admite {@link ReservationFields#DESTINATION}.
+     * @param incremental {@code true} para repartir únicamente las reservas nuevas.
+     * @throws IOException si hay problemas al leer o escribir los archivos generados.
+     */
+    public void createandFillFileByDestination(ReservationFields field, boolean incremental) throws IOException {
+        createandFillFileByDestination(field, incremental, ProcessingOptions.defaults());
+    }
+
+    /**
+     * Genera o actualiza los archivos por destino con las opciones indicadas.
+     *
+     * <p>Con {@link ProcessingOptions#compressed()} los archivos se escriben comprimidos
+     * ({@code reservas_<destino>.txt.gz}, formato de {@link BlockCompression}); se leen igual que los
+     * de texto con {@link #logguer(ReservationClass...)},
+     * {@link #showReservationsByCountry(Destinations)} y {@link Utils.Utils#processReservationFile(File, int)},
+     * y en modo incremental las reservas nuevas se añaden como bloques comprimidos al final.</p>
+     *
+     * <p>Con {@link ProcessingOptions#concurrentFiles()} mayor que {@code 1} se escriben varios
+     * archivos a la vez, cada uno en su propio hilo ({@link FileFanOut}), lo que acelera la generación
+     * cuando el disco es lento o está en red. En el particionado completo cada archivo se escribe en un
+     * temporal que sustituye al anterior al terminar, así que nadie ve un archivo a medio escribir, y
+     * un error en un destino no impide generar los demás: se lanza el primero con el resto como
+     * suprimidos. En modo incremental las reservas nuevas se añaden en el hilo que llama.</p>
+     *
+     * @param field       campo que se utilizará para discriminar los destinos.
+     * @param incremental {@code true} para repartir únicamente las reservas nuevas.
+     * @param options     opciones de escritura; se usan {@link ProcessingOptions#compressed()},
+     *                    {@link ProcessingOptions#concurrentFiles()} y, en modo incremental,
+     *                    {@link ProcessingOptions#fullChecksum()}.
+     * @throws IOException si hay problemas al leer o escribir los archivos generados.
+     */
+    public void createandFillFileByDestination(ReservationFields field, boolean incremental, ProcessingOptions options)
+            throws IOException {
+        boolean compressed = options.compressed();
+        int concurrentFiles = options.concurrentFiles();
+        try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.PARTITION)) {
+            if (!incremental) {
+                if (createandFillFileByDestinationFull(field, compressed, concurrentFiles, timer)) {
+                    timer.success();
+                }
+                return;
+            }
+            if (!has4Fields) {
+                throw new IllegalStateException("La opción de crear archivos por destino requiere el destino.");
+            }
+            if (field != ReservationFields.DESTINATION) {
+                throw new IllegalArgumentException("El particionado incremental solo admite el campo DESTINATION.");
+            }
+
+            File masterFile = new File(fileName);
+            boolean completed;
+            if (BinaryReservationReader.isBinary(masterFile) || BlockCompression.isCompressed(masterFile)) {
+                System.out.println("ℹ El particionado incremental solo admite maestros CSV sin comprimir; se regeneran todos los archivos.");
+                completed = createandFillFileByDestinationFromStore(compressed, concurrentFiles, timer);
+            } else {
+                completed = createandFillFileByDestinationIncremental(masterFile, compressed,
+                        options.fullChecksum(), timer);
+            }
+            if (completed) {
+                timer.success();
+            }
+        }
+    }
+
+    /**
+     * Particionado incremental a partir del punto de control del maestro.
+     *
+     * @param masterFile   archivo maestro en formato CSV.
+     * @param compressed   {@code true} para escribir los archivos comprimidos.
+     * @param fullChecksum {@code true} para comprobar el CRC32 de todo lo ya repartido del maestro.
+     * @param timer        medición de la llamada, que recibe las reservas repartidas y los bytes leídos.
+     * @return {@code true} si se completó; {@code false} si se detuvo por un registro no válido.
+     * @throws IOException si hay problemas al leer o escribir los archivos generados.
+     */
+    private boolean createandFillFileByDestinationIncremental(File masterFile, boolean compressed, boolean fullChecksum,
+                                                           ReservationMetrics.Timer timer) throws IOException {
+        Destinations[] destinations = Destinations.values();
+        int quarantineSlot = destinations.length;
+        File directory = new File(System.getProperty("user.dir"));
+        File[] outputs = new File[destinations.length + 1];
+        for (Destinations destination : destinations) {
+            outputs[destination.ordinal()] = new File(directory, outputName(destination.fileName(), compressed));
+        }
+        outputs[quarantineSlot] = new File(directory, outputName(Destinations.QUARANTINE_FILE_NAME, compressed));
+
+        long end;
+        try (FileChannel channel = FileChannel.open(masterFile.toPath(), StandardOpenOption.READ)) {
+            end = PartitionCheckpoint.completeLinesEnd(channel);
+        }
+
+        PartitionCheckpoint checkpoint = PartitionCheckpoint.read(masterFile);
+        boolean resume = checkpoint != null && checkpoint.consumed() <= end
+                && checkpoint.isValidFor(masterFile, outputs, fullChecksum);
+        long start = resume ? checkpoint.consumed() : 0;
+        long[] lengths = new long[outputs.length];
+        if (resume) {
+            lengths = checkpoint.outputLengths();
+        } else {
+            Arrays.fill(lengths, -1);
+            System.out.println("ℹ Sin punto de control válido: se regeneran todos los archivos por destino.");
+        }
+
+        ReservationCsvWriter[] writers = new ReservationCsvWriter[outputs.length];
+        long[] added = new long[outputs.length];
+        ReservationFields[] reservationFields = ReservationFields.values();
+        timer.addBytesRead(end - start);
+        try (MappedCsvReader reader = MappedCsvReader.open(masterFile, start)) {
+            boolean isHeader = start == 0;
+            while (reader.next()) {
+                if (reader.recordOffset() >= end) {
+                    break; // línea incompleta al final del maestro
+                }
+                if (isHeader) {
+                    isHeader = false; // saltamos encabezado
+                    continue;
+                }
+
+                String error = null;
+                if (reader.fieldCount() != reservationFields.length) {
+                    ReservationMetrics.recordFieldCountFailure();
+                    error = "se esperaban " + reservationFields.length + " campos, pero hay " + reader.fieldCount() + ".";
+                }
+                for (int colIndex = 0; error == null && colIndex < reservationFields.length; colIndex++) {
+                    error = FieldValidator.message(reader.validate(colIndex, reservationFields[colIndex]), reservationFields[colIndex]);
+                }
+                if (error != null) {
+                    // Sin punto de control nuevo: la próxima ejecución detectará el cambio y regenerará todo
+                    System.out.println("❌ Error en el registro del byte " + reader.recordOffset() + " del maestro: " + error);
+                    return false; // si hay error, salimos
+                }
+                Destinations destination = reader.destination(3);
+
+                int slot = destination != null ? destination.ordinal() : quarantineSlot;
+                if (writers[slot] == null) {
+                    boolean append = lengths[slot] >= 0;
+                    writers[slot] = ReservationCsvWriter.open(outputs[slot], append);
+                    if (!append) {
+                        writers[slot].writeHeader(reservationFields.length);
+                    }
+                }
+                writers[slot].write(reader, destination);
+                added[slot]++;
+            }
+        } finally {
+            closeAll(writers);
+        }
+        timer.addRows(Arrays.stream(added).sum());
+
+        for (int i = 0; i < writers.length; i++) {
+            if (writers[i] != null) {
+                lengths[i] = outputs[i].length();
+            }
+        }
+        // La fecha se toma antes del CRC32: una edición posterior invalidará el punto de control
+        long masterLength = masterFile.length();
+        long masterLastModified = masterFile.lastModified();
+        try (FileChannel channel = FileChannel.open(masterFile.toPath(), StandardOpenOption.READ)) {
+            new PartitionCheckpoint(end, masterLength, masterLastModified, fullChecksum,
+                    PartitionCheckpoint.checksum(channel, end, fullChecksum), lengths).write(masterFile);
+        }
+
+        boolean anyWritten = false;
+        for (int i = 0; i < writers.length; i++) {
+            if (writers[i] != null) {
+                anyWritten = true;
+                System.out.println("Archivo " + (resume ? "actualizado" : "generado") + " para destino: "
+                        + (i == quarantineSlot ? "desconocido (cuarentena)" : destinations[i].name())
+                        + " (+" + added[i] + ") -> " + outputs[i].getAbsolutePath());
+            }
+        }
+        if (!anyWritten) {
+            System.out.println(resume
+                    ? "ℹ No hay reservas nuevas desde el último particionado."
+                    : "No hay reservas para procesar con el destino " + ReservationFields.DESTINATION.name() + ".");
+        }
+        return true;
+    }
+
+    /**
+     * Particionado por destino a partir de un {@link ReservationStore}. Cada archivo se genera con
+     * {@link FileFanOut}: se escribe en un temporal y sustituye al anterior solo si se completa.
+     *
+     * @param compressed      {@code true} para escribir los archivos comprimidos.
+     * @param concurrentFiles número de archivos que se escriben a la vez.
+     * @param timer           medición de la llamada, que recibe las reservas repartidas y los bytes leídos.
+     * @return {@code true} si se completó; {@code false} si se detuvo por un registro no válido.
+     * @throws IOException si hay problemas al leer o escribir los archivos generados.
+     */
+    private boolean createandFillFileByDestinationFromStore(boolean compressed, int concurrentFiles,
+                                                         ReservationMetrics.Timer timer) throws IOException {
+        ReservationStore store;
+        List<String[]> quarantine = new ArrayList<>();
+        try {
+            validateInputs();
+            timer.addBytesRead(new File(fileName).length());
+            store = ReservationStore.load(new File(fileName), has4Fields, quarantine);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return false; // si hay error, salimos
+        }
+        timer.addRows(store.size() + quarantine.size());
+
+        File directory = new File(System.getProperty("user.dir"));
+        File quarantineFile = new File(directory, outputName(Destinations.QUARANTINE_FILE_NAME, compressed));
+        Destinations[] destinations = Destinations.values();
+        File[] outputs = new File[destinations.length];
+        int[][] indexesByDestination = store.indexesByDestination();
+
+        try (FileFanOut fanOut = new FileFanOut(concurrentFiles)) {
+            if (!quarantine.isEmpty()) {
+                fanOut.submit(quarantineFile, writer -> {
+                    writer.writeHeader(ReservationFields.values().length);
+                    for (String[] fields : quarantine) {
+                        writer.write(fields, null);
+                    }
+                });
+            }
+
+            for (Destinations destination : destinations) {
+                int[] indexes = indexesByDestination[destination.ordinal()];
+                if (indexes.length == 0) {
+                    continue;
+                }
+
+                outputs[destination.ordinal()] = new File(directory, outputName(destination.fileName(), compressed));
+                fanOut.submit(outputs[destination.ordinal()], writer -> {
+                    writer.writeHeader(ReservationFields.values().length);
+                    for (int index : indexes) {
+                        writer.write(store.seatNumber(index), store.seatRow(index), store.passengerName(index),
+                                store.reservationClass(index), destination);
+                    }
+                });
             }
+            fanOut.await();
+        }
+
+        if (!quarantine.isEmpty()) {
+            System.out.println("⚠ Reservas con destino desconocido en cuarentena: " + quarantine.size()
+                    + " -> " + quarantineFile.getAbsolutePath());
+        }
+        if (store.size() == 0) {
+            System.out.printf("No hay reservas para procesar con el destino %s.", ReservationFields.DESTINATION.name());
+            return true;
+        }
+        for (Destinations destination : destinations) {
+            if (outputs[destination.ordinal()] != null) {
+                System.out.println("Archivo generado para destino: " + destination.name() + " -> "
+                        + outputs[destination.ordinal()].getAbsolutePath());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Carga el archivo de la instancia en un {@link ReservationStore}.
+     *
+     * @return almacén con todas las reservas del archivo.
+     * @throws IOException              si el archivo no puede leerse.
+     * @throws IllegalArgumentException si algún registro no es válido.
+     */
+    public ReservationStore loadStore() throws IOException {
+        validateInputs();
+        return ReservationStore.load(new File(fileName), has4Fields);
+    }
+
+    /**
+     * Variante en streaming de {@link #createandFillFileByDestination(ReservationFields)}. Lee el
+     * archivo maestro una sola vez y envía cada registro directamente al escritor abierto de su
+     * destino, indexado por el ordinal de {@link Destinations}. A diferencia de la versión original
+     * no se acumulan las reservas en memoria, por lo que el consumo queda acotado por el número de
+     * destinos y no por el tamaño del archivo.
+     *
+     * <p>Los registros inválidos detienen el proceso igual que en la versión original; los que
+     * tienen un destino fuera del catálogo se apartan en {@link Destinations#QUARANTINE_FILE_NAME}.
+     * Cada archivo se escribe en un temporal ({@link ReservationCsvWriter#openAtomic(File)}) y
+     * todos sustituyen a los anteriores al terminar la lectura; si el proceso se detiene, los
+     * archivos anteriores quedan intactos.</p>
+     *
+     * @param field campo que se utilizará para discriminar los destinos; solo se admite
+     *              {@link ReservationFields#DESTINATION}.
+     * @throws IOException si hay problemas al leer o escribir los archivos generados.
+     */
+    public void createandFillFileByDestinationStreaming(ReservationFields field) throws IOException {
+        createandFillFileByDestinationStreaming(field, ProcessingOptions.defaults());
+    }
+
+    /**
+     * Variante de {@link #createandFillFileByDestinationStreaming(ReservationFields)} que puede
+     * escribir los archivos por destino comprimidos ({@code reservas_<destino>.txt.gz}).
+     *
+     * @param field   campo que se utilizará para discriminar los destinos; solo se admite
+     *                {@link ReservationFields#DESTINATION}.
+     * @param options opciones de escritura; solo se usa {@link ProcessingOptions#compressed()}, porque
+     *                cada archivo se escribe a medida que se lee el maestro.
+     * @throws IOException si hay problemas al leer o escribir los archivos generados.
+     */
+    public void createandFillFileByDestinationStreaming(ReservationFields field, ProcessingOptions options)
+            throws IOException {
+        if (!has4Fields) {
+            throw new IllegalStateException("La opción de crear archivos por destino requiere el destino.");
+        }
+        if (field != ReservationFields.DESTINATION) {
+            throw new IllegalArgumentException("El particionado en streaming solo admite el campo DESTINATION.");
+        }
 
-            String dest = entry.getKey();
-            List<String[]> reservas = entry.getValue();
+        try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.PARTITION)) {
+            Destinations[] destinations = Destinations.values();
+            int quarantineSlot = destinations.length;
+            ReservationCsvWriter[] writers = new ReservationCsvWriter[destinations.length + 1];
+            File[] files = new File[destinations.length + 1];
+            ReservationFields[] reservationFields = ReservationFields.values();
 
-            String cleanDest = dest.toLowerCase().replaceAll("\\s+", "_");
-            ReservationAll aux = new ReservationAll(true, "reservas_" + cleanDest + ".txt");
-            File auxFile = aux.createFile();
+            try (ReservationRecordReader reader = ReservationRecordReader.open(new File(fileName))) {
+                timer.addBytesRead(new File(fileName).length());
+                boolean isHeader = true;
 
-            // Abrimos en modo overwrite para limpiar el archivo
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(auxFile, false))) {
-                // Escribir encabezados
-                writer.write("SEAT_NUMBER, PASSENGER_NAME, CLASS, DESTINATION");
-                writer.newLine();
+                while (reader.next()) {
+                    long lineNumber = reader.lineNumber();
+                    if (isHeader) {
+                        isHeader = false; // saltamos encabezado
+                        continue;
+                    }
+
+                    // CSV esperado: asiento,nombre,clase,destino
+                    if (reader.fieldCount() != reservationFields.length) {
+                        ReservationMetrics.recordFieldCountFailure();
+                        System.out.printf("❌ Error en registro #%d: se esperaban %d campos, pero hay %d.%n",
+                                lineNumber - 1, reservationFields.length, reader.fieldCount());
+                        return; // si hay error, salimos
+                    }
 
-                // Escribir reservas de ese destino
-                for (String[] reserva : reservas) {
-                    writer.write(String.join(", ", reserva));
-                    writer.newLine();
+                    for (int colIndex = 0; colIndex < reservationFields.length; colIndex++) {
+                        int code = reader.validate(colIndex, reservationFields[colIndex]);
+                        if (code != FieldValidator.OK) {
+                            System.out.printf("❌ Error en registro #%d, campo %s: %s%n",
+                                    lineNumber - 1, reservationFields[colIndex].name(),
+                                    FieldValidator.message(code, reservationFields[colIndex]));
+                            return; // si hay error, salimos
+                        }
+                    }
+
+                    Destinations destination = reader.destination(3);
+                    int slot = destination != null ? destination.ordinal() : quarantineSlot;
+                    if (writers[slot] == null) {
+                        files[slot] = new File(System.getProperty("user.dir"), outputName(
+                                destination != null ? destination.fileName() : Destinations.QUARANTINE_FILE_NAME, options.compressed()));
+                        // Se escribe en un temporal que sustituye al archivo anterior al terminar
+                        writers[slot] = ReservationCsvWriter.openAtomic(files[slot]);
+                        writers[slot].writeHeader(reservationFields.length);
+                    }
+
+                    writers[slot].write(reader, destination);
+                    timer.addRows(1);
+                }
+
+                for (ReservationCsvWriter writer : writers) {
+                    if (writer != null) writer.commit();
                 }
+            } finally {
+                closeAll(writers);
             }
 
-            System.out.println("Archivo generado para destino: " + dest + " -> " + auxFile.getAbsolutePath());
+            boolean anyWritten = false;
+            for (int i = 0; i < destinations.length; i++) {
+                if (files[i] != null) {
+                    anyWritten = true;
+                    System.out.println("Archivo generado para destino: " + destinations[i].name() + " -> " + files[i].getAbsolutePath());
+                }
+            }
+            if (files[quarantineSlot] != null) {
+                System.out.println("⚠ Reservas con destino desconocido en cuarentena -> " + files[quarantineSlot].getAbsolutePath());
+            }
+            if (!anyWritten) {
+                System.out.printf("No hay reservas para procesar con el destino %s.", field.name());
+            }
+            timer.success();
         }
     }
 
+    /**
+     * @param fileName   nombre del archivo de salida sin comprimir.
+     * @param compressed {@code true} si el archivo se escribe comprimido.
+     * @return el nombre del archivo que se escribirá.
+     */
+    private static String outputName(String fileName, boolean compressed) {
+        return compressed ? BlockCompression.compressedName(fileName) : fileName;
+    }
+
+    /**
+     * Cierra todos los escritores abiertos, propagando el primer error encontrado.
+     *
+     * @param writers escritores indexados por destino; las posiciones vacías se ignoran.
+     * @throws IOException si alguno de los escritores no puede cerrarse.
+     */
+    private static void closeAll(Closeable[] writers) throws IOException {
+        IOException failure = null;
+        for (Closeable writer : writers) {
+            if (writer == null) continue;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
     /**
      * Obtiene los destinos únicos presentes en el archivo gestionado y agrupa sus registros
      * asociados.
@@ -149,18 +627,17 @@ public class ReservationAll {
         // Mapa destino -> reservas
         Map<String, List<String[]>> reservasPorDestino = new HashMap<>();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
+        try (ReservationRecordReader reader = ReservationRecordReader.open(new File(fileName))) {
             boolean isHeader = true;
 
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(","); // CSV esperado: asiento,nombre,clase,destino
-
+            while (reader.next()) {
                 if (isHeader) {
                     isHeader = false; // saltamos encabezado
                     continue;
                 }
 
+                String[] parts = reader.fields(); // CSV esperado: asiento,nombre,clase,destino
+
                 String destino = switch (field) {
                     case SEAT_NUMBER -> (!parts[1].trim().isEmpty()) ? parts[1].trim() : null;
                     case PASSENGER_NAME -> (!parts[1].trim().isEmpty()) ? parts[1].trim() : null;
@@ -188,125 +665,262 @@ public class ReservationAll {
 
     /**
      * Escribe los encabezados proporcionados en el archivo de reservas. Solo se ejecuta si el
-     * archivo está vacío para evitar duplicar información.
+     * archivo está vacío para evitar duplicar información; la comprobación se hace con el archivo
+     * bloqueado, por lo que es segura aunque otros hilos o procesos estén escribiendo en él.
      *
      * @param file    archivo sobre el que se escribirán los encabezados.
      * @param headers lista de campos a registrar como cabecera.
      * @throws IOException si ocurre un problema de escritura.
      */
     public void writeHeaders(File file, ReservationFields... headers) throws IOException {
-        boolean fileExists = file.exists() && file.length() > 0;
-
-        // Solo escribir encabezados si el archivo está vacío
-        if (!fileExists) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
-                for (int i = 0; i < headers.length; i++) {
-                    writer.write(headers[i].name());
-                    if (i < headers.length - 1) {
-                        writer.write(", ");
+        StringBuilder headerLine = new StringBuilder();
+        for (int i = 0; i < headers.length; i++) {
+            headerLine.append(headers[i].name());
+            if (i < headers.length - 1) {
+                headerLine.append(", ");
+            }
+        }
+        headerLine.append(System.lineSeparator());
+
+        // Se comprueba el tamaño con el archivo bloqueado para que dos escritores no dupliquen el encabezado
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            MasterFileLock.withLock(file, channel, () -> {
+                if (channel.size() == 0) {
+                    ByteBuffer buffer = Charset.defaultCharset().encode(headerLine.toString());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
                     }
                 }
-                writer.newLine();
-            }
+                return null;
+            });
         }
     }
 
     /**
      * Solicita al usuario los datos de una reserva y los persiste en el archivo asociado a la
      * instancia. El método se apoya en validaciones de formato para cada campo y muestra mensajes de
-     * confirmación o error según corresponda.
+     * confirmación o error según corresponda. La reserva se escribe a través de un
+     * {@link ReservationIngestor} de un solo registro, que la rechaza si el asiento ya está ocupado
+     * en ese destino.
      */
     public void writeReservation() {
+        ReservationRecord reservation = promptReservation();
+        if (reservation == null) {
+            System.out.println("Operación cancelada por el usuario.");
+            return;
+        }
+
+        try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.WRITE_RESERVATION)) {
+            boolean written;
+            try (ReservationIngestor ingestor = openIngestor(1, 0)) {
+                written = ingestor.append(reservation);
+                if (!written) {
+                    System.out.println("❌ La reserva no se guardó: el asiento " + reservation.seat()
+                            + " ya está ocupado. Revisa registro_errores.log.");
+                } else {
+                    timer.addRows(1);
+                }
+            }
+            if (written) {
+                timer.success();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Abre un canal de ingesta en lote sobre el archivo de la instancia con los parámetros de
+     * confirmación por defecto ({@link ReservationIngestor#DEFAULT_COMMIT_EVERY} reservas o
+     * {@link ReservationIngestor#DEFAULT_COMMIT_INTERVAL_MILLIS} ms).
+     *
+     * @return canal de ingesta; debe cerrarse para confirmar las últimas reservas.
+     * @throws IOException si el archivo no puede abrirse o no es un CSV sin comprimir.
+     */
+    public ReservationIngestor openIngestor() throws IOException {
+        return openIngestor(ReservationIngestor.DEFAULT_COMMIT_EVERY, ReservationIngestor.DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Abre un canal de ingesta en lote sobre el archivo de la instancia, rechazando las reservas de
+     * asientos ya ocupados en su destino. Si el archivo está vacío se escriben primero los encabezados.
+     *
+     * @param commitEvery          número de reservas que se acumulan antes de confirmarlas en disco.
+     * @param commitIntervalMillis tiempo máximo, en milisegundos, que una reserva puede quedar
+     *                             pendiente; {@code 0} para confirmar solo por tamaño de lote.
+     * @return canal de ingesta; debe cerrarse para confirmar las últimas reservas.
+     * @throws IOException si el archivo no puede abrirse o no es un CSV sin comprimir.
+     */
+    public ReservationIngestor openIngestor(int commitEvery, long commitIntervalMillis) throws IOException {
+        return openIngestor(commitEvery, commitIntervalMillis, true);
+    }
+
+    /**
+     * Abre un canal de ingesta en lote sobre el archivo de la instancia. Si el archivo está vacío se
+     * escriben primero los encabezados.
+     *
+     * @param commitEvery          número de reservas que se acumulan antes de confirmarlas en disco.
+     * @param commitIntervalMillis tiempo máximo, en milisegundos, que una reserva puede quedar
+     *                             pendiente; {@code 0} para confirmar solo por tamaño de lote.
+     * @param detectSeatConflicts  {@code true} para rechazar las reservas de asientos ya ocupados en
+     *                             su destino; la ocupación se carga del archivo la primera vez y
+     *                             se reutiliza en los canales siguientes mientras no cambie.
+     * @return canal de ingesta; debe cerrarse para confirmar las últimas reservas.
+     * @throws IOException si el archivo no puede abrirse o no es un CSV sin comprimir.
+     */
+    public ReservationIngestor openIngestor(int commitEvery, long commitIntervalMillis, boolean detectSeatConflicts)
+            throws IOException {
+        validateInputs();
+        return new ReservationIngestor(new File(fileName), has4Fields, commitEvery, commitIntervalMillis,
+                detectSeatConflicts);
+    }
+
+    /**
+     * Abre el modo de escritura concurrente sobre el archivo de la instancia: varios hilos pueden
+     * enviar reservas a la vez y un único hilo escritor las confirma en lotes, con el archivo
+     * bloqueado frente a otros procesos.
+     *
+     * @return appender compartible entre hilos; debe cerrarse para confirmar las últimas reservas.
+     * @throws IOException si el archivo no puede abrirse o no es un CSV sin comprimir.
+     */
+    public ConcurrentReservationAppender openConcurrentAppender() throws IOException {
+        validateInputs();
+        return new ConcurrentReservationAppender(new File(fileName), has4Fields,
+                ConcurrentReservationAppender.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Añade al archivo de la instancia todas las reservas de un flujo, sin interacción con el
+     * usuario. Las reservas que no superan la validación se registran en {@code registro_errores.log}.
+     *
+     * @param reservations reservas a añadir.
+     * @return número de reservas escritas.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public long ingest(Stream<ReservationRecord> reservations) throws IOException {
+        return ingest(reservations.iterator());
+    }
+
+    /**
+     * Añade al archivo de la instancia todas las reservas de un iterador, sin interacción con el
+     * usuario. Las reservas que no superan la validación se registran en {@code registro_errores.log}.
+     *
+     * @param reservations reservas a añadir.
+     * @return número de reservas escritas.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public long ingest(Iterator<ReservationRecord> reservations) throws IOException {
+        ReservationIngestor ingestor = openIngestor(ReservationIngestor.DEFAULT_COMMIT_EVERY, 0);
+        try (ingestor) {
+            while (reservations.hasNext()) {
+                ingestor.append(reservations.next());
+            }
+        }
+
+        if (ingestor.getRejectedCount() > 0) {
+            System.out.println("⚠️ Reservas rechazadas: " + ingestor.getRejectedCount()
+                    + ". Revisa registro_errores.log.");
+        }
+        return ingestor.getAcceptedCount();
+    }
+
+    /**
+     * Pide mediante cuadros de diálogo los datos de una reserva, repitiendo cada pregunta hasta que
+     * el valor sea válido.
+     *
+     * @return la reserva capturada o {@code null} si el usuario cancela la selección de clase o destino.
+     */
+    private ReservationRecord promptReservation() {
         String error;
         String reservationDataSeat;
         String reservationDataName;
         boolean itsOkey;
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
-            // Opciones para la columna de clases de la reserva.
-            String[] clases = {
-                    String.valueOf(ReservationClass.ECONOMY),
-                    String.valueOf(ReservationClass.BUSINESS),
-                    String.valueOf(ReservationClass.FIRST)
-            };
+        // Opciones para la columna de clases de la reserva.
+        String[] clases = {
+                String.valueOf(ReservationClass.ECONOMY),
+                String.valueOf(ReservationClass.BUSINESS),
+                String.valueOf(ReservationClass.FIRST)
+        };
 
+        // Bucle hasta que el usuario ingrese algo válido
+        do {
+            itsOkey = false;
+            reservationDataSeat = JOptionPane.showInputDialog("Ingrese el número de asiento").trim();
+            error = validateField(reservationDataSeat, ReservationFields.SEAT_NUMBER);
+            if (error != null) {
+                JOptionPane.showMessageDialog(null,
+                        error,
+                        "Error de validación",
+                        JOptionPane.WARNING_MESSAGE);
+            } else {
+                // OK
+                itsOkey = true;
+                JOptionPane.showMessageDialog(null,
+                        "✅ Dato válido: " + reservationDataSeat,
+                        "Correcto",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+        } while (!itsOkey);
 
+        do {
+            itsOkey = false;
+            reservationDataName = JOptionPane.showInputDialog("Ingrese el nombre del pasajero (máx 32 carácteres)").trim();
+            error = validateField(reservationDataName, ReservationFields.PASSENGER_NAME);
 
-            // Bucle hasta que el usuario ingrese algo válido
-            do {
-                itsOkey = false;
-                reservationDataSeat = JOptionPane.showInputDialog("Ingrese el número de asiento").trim();
-                error = validateField(reservationDataSeat, ReservationFields.SEAT_NUMBER);
-                if (error != null) {
-                    JOptionPane.showMessageDialog(null,
-                            error,
-                            "Error de validación",
-                            JOptionPane.WARNING_MESSAGE);
-                } else {
-                    // OK
-                    itsOkey = true;
-                    JOptionPane.showMessageDialog(null,
-                            "✅ Dato válido: " + reservationDataSeat,
-                            "Correcto",
-                            JOptionPane.INFORMATION_MESSAGE);
-                }
-            } while (!itsOkey);
+            if (error != null) {
+                JOptionPane.showMessageDialog(null,
+                        error,
+                        "Error de validación",
+                        JOptionPane.WARNING_MESSAGE);
+            } else {
+                // OK
+                itsOkey = true;
+                JOptionPane.showMessageDialog(null,
+                        "✅ Dato válido: " + reservationDataName,
+                        "Correcto",
+                        JOptionPane.INFORMATION_MESSAGE);
+                reservationDataName = capitalizeWords(reservationDataName);
+            }
+        } while (!itsOkey);
 
-            do {
-                itsOkey = false;
-                reservationDataName = JOptionPane.showInputDialog("Ingrese el nombre del pasajero (máx 32 carácteres)").trim();
-                error = validateField(reservationDataName, ReservationFields.PASSENGER_NAME);
+        String seleccion = (String) JOptionPane.showInputDialog(
+                null,   // no hay ventana padre
+                "Seleccione la clase:", // mensaje
+                "Clase de Reserva", // título
+                JOptionPane.QUESTION_MESSAGE, // tipo con icono de pregunta
+                null,   // sin icono personalizado
+                clases, // opciones del combo
+                clases[0]   // opción seleccionada por defecto
+        );
+        if (seleccion == null) {
+            return null;
+        }
 
-                if (error != null) {
-                    JOptionPane.showMessageDialog(null,
-                            error,
-                            "Error de validación",
-                            JOptionPane.WARNING_MESSAGE);
-                } else {
-                    // OK
-                    itsOkey = true;
-                    JOptionPane.showMessageDialog(null,
-                            "✅ Dato válido: " + reservationDataName,
-                            "Correcto",
-                            JOptionPane.INFORMATION_MESSAGE);
-                    reservationDataName = capitalizeWords(reservationDataName);
-                }
-            } while (!itsOkey);
-
-            String seleccion = (String) JOptionPane.showInputDialog(
-                    null,   // no hay ventana padre
-                    "Seleccione la clase:", // mensaje
-                    "Clase de Reserva", // título
-                    JOptionPane.QUESTION_MESSAGE, // tipo con icono de pregunta
-                    null,   // sin icono personalizado
-                    clases, // opciones del combo
-                    clases[0]   // opción seleccionada por defecto
+        String reservationDataDestination = null;
+        if (has4Fields) {
+            reservationDataDestination = (String) JOptionPane.showInputDialog(
+                    null,
+                    "Ingrese el destino del vuelo",
+                    "Destino",
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    stream(Destinations.values()).map(Enum::name).toArray(),
+                    stream(Destinations.values()).map(Enum::name).toArray()[0]
             );
-            String reservationData = reservationDataSeat + ", " + reservationDataName + ", " + seleccion;
-
-            if (has4Fields) {
-                String reservationDataDestination = (String) JOptionPane.showInputDialog(
-                        null,
-                        "Ingrese el destino del vuelo",
-                        "Destino",
-                        JOptionPane.QUESTION_MESSAGE,
-                        null,
-                        stream(Destinations.values()).map(Enum::name).toArray(),
-                        stream(Destinations.values()).map(Enum::name).toArray()[0]
-                );
-                reservationData += ", " + reservationDataDestination;
-            }
-
-            writer.write(reservationData);
-            writer.newLine();
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (reservationDataDestination == null) {
+                return null;
+            }
         }
+
+        return ReservationRecord.parse(reservationDataSeat, reservationDataName, seleccion, reservationDataDestination);
     }
 
     /**
      * Pregunta al usuario cuántas reservas desea crear y repite el proceso de captura tantas veces
-     * como se haya indicado.
+     * como se haya indicado. Todas las reservas se escriben por un mismo {@link ReservationIngestor},
+     * sin reabrir el archivo en cada una.
      */
     public void pickHowManyRegisters() {
         SpinnerNumberModel model = new SpinnerNumberModel(
@@ -331,8 +945,20 @@ public class ReservationAll {
 
         if (option == JOptionPane.OK_OPTION) {
             int cantidad = (Integer) spinner.getValue();
-            for (int i = 0; i < cantidad; i++) {
-                writeReservation();
+            try (ReservationIngestor ingestor = openIngestor()) {
+                for (int i = 0; i < cantidad; i++) {
+                    ReservationRecord reservation = promptReservation();
+                    if (reservation == null) {
+                        System.out.println("Operación cancelada por el usuario.");
+                        break;
+                    }
+                    if (!ingestor.append(reservation)) {
+                        System.out.println("❌ La reserva no se guardó: el asiento " + reservation.seat()
+                                + " ya está ocupado. Revisa registro_errores.log.");
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
             }
         } else {
             System.out.println("Operación cancelada por el usuario.");
@@ -346,105 +972,358 @@ public class ReservationAll {
      * @param reservationClass clase de reserva a filtrar (opcional).
      */
     public void logguer(ReservationClass... reservationClass) {
-        List<String[]> reservas = new ArrayList<>();
+        logguer(true, reservationClass);
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // CSV esperado: asiento,nombre,clase,(destino opcional)
-                String[] parts = line.split(",");
-                reservas.add(parts);
-            }
+    /**
+     * Muestra un informe en consola con el contenido del archivo de reservas, permitiendo omitir el
+     * detalle registro a registro en archivos grandes.
+     *
+     * @param includeDetail    {@code true} para listar cada reserva antes de las estadísticas.
+     * @param reservationClass clase de reserva a filtrar (opcional).
+     */
+    public void logguer(boolean includeDetail, ReservationClass... reservationClass) {
+        PrintStream console = bufferedConsole();
+        try {
+            report(new ConsoleReportRenderer(console, has4Fields), includeDetail, reservationClass);
         } catch (FileNotFoundException e) {
             throw new RuntimeException("❌ No se encontró el archivo de reservas. Verifica la ruta o si existe.", e);
         } catch (IOException e) {
             throw new RuntimeException("💥 Error de entrada/salida al procesar el archivo de reservas.", e);
+        } finally {
+            console.flush();
         }
+    }
 
-        // Encabezado bonito
-        System.out.println("╔══════════════════════════════════════╗");
-        System.out.println("║          📖 RESERVAS LOG             ║");
-        System.out.println("╚══════════════════════════════════════╝\n");
-
-        // Detalle
-        System.out.println("➡ Detalle de reservas:");
-        System.out.println("─────────────────────────────");
+    /**
+     * Abre un recorrido perezoso de las reservas del archivo que cumplen los filtros indicados.
+     *
+     * @param classes      clases admitidas, o {@code null} (o vacío) para no filtrar por clase.
+     * @param destinations destinos admitidos, o {@code null} (o vacío) para no filtrar por destino.
+     * @return el cursor, que debe cerrarse al terminar.
+     * @throws IOException si el archivo no existe o no puede abrirse.
+     */
+    public ReservationCursor openCursor(Set<ReservationClass> classes, Set<Destinations> destinations) throws IOException {
+        return ReservationCursor.open(new File(fileName), classes, destinations);
+    }
 
-        for (int i = 1; i < reservas.size(); i++) {
-            String[] r = reservas.get(i);
+    /**
+     * Obtiene una página de las reservas que cumplen los filtros. El archivo se lee solo hasta la
+     * última reserva de la página (más una, para saber si hay más).
+     *
+     * @param offset       número de reservas que cumplen los filtros a saltar.
+     * @param limit        número máximo de reservas de la página.
+     * @param classes      clases admitidas, o {@code null} (o vacío) para no filtrar por clase.
+     * @param destinations destinos admitidos, o {@code null} (o vacío) para no filtrar por destino.
+     * @return la página; vacía si {@code offset} supera el número de reservas.
+     * @throws IOException si el archivo no existe o no puede leerse.
+     */
+    public ReservationPage page(long offset, int limit, Set<ReservationClass> classes, Set<Destinations> destinations)
+            throws IOException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("El desplazamiento y el límite no pueden ser negativos.");
+        }
+        try (ReservationCursor cursor = openCursor(classes, destinations)) {
+            cursor.skip(offset);
+            List<String[]> rows = cursor.next(limit);
+            return new ReservationPage(cursor.position() - rows.size(), rows, cursor.hasNext());
+        }
+    }
 
-            String asiento = r[0].trim();
-            String pasajero = r[1].trim();
-            String clase = r[2].trim();
+    /**
+     * Muestra en consola una página de las reservas que cumplen los filtros, numeradas por su
+     * posición en el listado completo, y el desplazamiento de la página siguiente. A diferencia de
+     * {@link #logguer(ReservationClass...)} no recorre el resto del archivo ni calcula estadísticas.
+     *
+     * @param offset       número de reservas que cumplen los filtros a saltar.
+     * @param limit        número máximo de reservas a mostrar.
+     * @param classes      clases admitidas, o {@code null} (o vacío) para no filtrar por clase.
+     * @param destinations destinos admitidos, o {@code null} (o vacío) para no filtrar por destino.
+     * @return la página mostrada.
+     * @throws IOException si el archivo no existe o no puede leerse.
+     */
+    public ReservationPage logguerPage(long offset, int limit, Set<ReservationClass> classes, Set<Destinations> destinations)
+            throws IOException {
+        ReservationPage page = page(offset, limit, classes, destinations);
 
-            if (has4Fields) {
-                String destino = (r.length > 3 && !r[3].trim().isEmpty()) ? r[3].trim() : "N/A";
-                System.out.printf(
-                        "#%d | 🪑 Asiento: %-5s 👤 Pasajero: %-15s 🎟 Clase: %-10s 🌍 Destino: %s%n",
-                        (i), asiento, pasajero, clase, destino
-                );
-            } else {
-                System.out.printf(
-                        "#%d | 🪑 Asiento: %-5s 👤 Pasajero: %-15s 🎟 Clase: %-10s%n",
-                        (i), asiento, pasajero, clase
-                );
+        PrintStream console = bufferedConsole();
+        try {
+            ConsoleReportRenderer renderer = new ConsoleReportRenderer(console, has4Fields);
+            renderer.begin();
+            long index = page.offset();
+            for (String[] row : page.rows()) {
+                renderer.row(++index, row);
             }
+            renderer.endPage(page);
+        } finally {
+            console.flush();
         }
+        return page;
+    }
+
+    /**
+     * Recorre el archivo de reservas una sola vez calculando sus {@link ReservationStatistics} y
+     * presenta el resultado con el renderizador indicado. La memoria utilizada es constante.
+     *
+     * @param renderer         presentación del informe (por ejemplo {@link ConsoleReportRenderer} o
+     *                         {@link JsonReportRenderer}).
+     * @param includeDetail    {@code true} para entregar cada registro al renderizador.
+     * @param reservationClass clase de reserva a destacar (opcional).
+     * @return las estadísticas calculadas.
+     * @throws IOException si el archivo no existe o no puede leerse.
+     */
+    public ReservationStatistics report(ReservationReportRenderer renderer, boolean includeDetail,
+                                        ReservationClass... reservationClass) throws IOException {
+        ReservationStatistics statistics = new ReservationStatistics();
 
-        // Estadísticas
-        System.out.println("\n📊 Estadísticas");
-        System.out.println("─────────────────────────────");
-        System.out.printf("✔ Total de reservas            : %d%n", reservas.size() - 1);
+        try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.REPORT)) {
+            long index = 0;
+            try (ReservationRecordReader reader = ReservationRecordReader.open(new File(fileName))) {
+                timer.addBytesRead(new File(fileName).length());
+                renderer.begin();
 
-        // Si hay claseFiltro, contamos esa clase
-        if (reservationClass.length > 0) {
-            String claseBuscada = reservationClass[0].name().toLowerCase();
-            long count = reservas.stream()
-                    .skip(1) // saltamos encabezado
-                    .filter(r -> r.length > 2 && claseBuscada.equalsIgnoreCase(r[2].trim()))
-                    .count();
+                boolean isHeader = true;
+                while (reader.next()) {
+                    if (isHeader) {
+                        isHeader = false; // saltamos encabezado
+                        continue;
+                    }
 
-            System.out.printf("✔ Pasajeros en %s        : %d%n", claseBuscada, count);
-        }
+                    // CSV esperado: asiento,nombre,clase,(destino opcional)
+                    String[] row = reader.fields();
+                    statistics.add(row);
+                    index++;
+                    if (includeDetail) {
+                        renderer.row(index, row);
+                    }
+                }
+            }
 
-        // Final
-        System.out.println("\n🎯 Proceso completado con éxito");
+            renderer.end(statistics, reservationClass);
+            timer.addRows(index);
+            timer.success();
+        }
+        return statistics;
     }
 
     /**
-     * Muestra por consola las reservas almacenadas en el archivo correspondiente al país indicado.
-     * Si el archivo no existe se informa de ello.
+     * Muestra por consola las reservas almacenadas en el archivo correspondiente al país indicado,
+     * o en su variante comprimida ({@code reservas_<destino>.txt.gz}) si solo existe esta. Si no
+     * existe ninguno de los dos se informa de ello.
      *
      * @param country destino del que se desean listar las reservas.
      * @throws IOException si ocurre un problema al acceder al archivo.
      */
     public static void showReservationsByCountry(Destinations country) throws IOException {
+        File file = destinationFile(country);
+        if (file == null) {
+            return;
+        }
+
+        // Si existe, mostrar contenido
+        ReservationAll reservationsByCountry = new ReservationAll(file.getPath());
+        reservationsByCountry.logguer();
+    }
+
+    /**
+     * Muestra por consola una página de las reservas del archivo del país indicado (o de su variante
+     * comprimida), leyendo el archivo solo hasta el final de la página.
+     *
+     * @param country destino del que se desean listar las reservas.
+     * @param offset  número de reservas a saltar.
+     * @param limit   número máximo de reservas a mostrar.
+     * @return la página mostrada, o {@code null} si no existe el archivo del destino.
+     * @throws IOException si ocurre un problema al acceder al archivo.
+     */
+    public static ReservationPage showReservationsByCountry(Destinations country, long offset, int limit) throws IOException {
+        File file = destinationFile(country);
+        if (file == null) {
+            return null;
+        }
+        return new ReservationAll(file.getPath()).logguerPage(offset, limit, null, null);
+    }
+
+    /**
+     * Muestra por consola las reservas del país indicado igual que
+     * {@link #showReservationsByCountry(Destinations)}, pero tomándolas de una {@link DestinationCache}:
+     * el archivo solo se lee la primera vez o cuando ha cambiado.
+     *
+     * @param country destino del que se desean listar las reservas.
+     * @param cache   caché de archivos por destino.
+     * @throws IOException si ocurre un problema al acceder al archivo.
+     */
+    public static void showReservationsByCountry(Destinations country, DestinationCache cache) throws IOException {
+        DestinationDataset dataset = cache.get(country);
+        if (dataset == null) {
+            System.out.println("❌ No existe el archivo: " + resolveDestinationFile(country).getPath());
+            return;
+        }
+
+        PrintStream console = bufferedConsole();
+        try {
+            ReservationReportRenderer renderer = new ConsoleReportRenderer(console, false);
+            ReservationStatistics statistics = new ReservationStatistics();
+
+            renderer.begin();
+            long index = 0;
+            for (String[] row : dataset.getRows()) {
+                statistics.add(row);
+                renderer.row(++index, row);
+            }
+            renderer.end(statistics);
+        } finally {
+            console.flush();
+        }
+    }
+
+    /**
+     * Localiza el archivo de un destino, o su variante comprimida si solo existe esta, e informa por
+     * consola si no existe ninguno de los dos.
+     *
+     * @return el archivo o {@code null} si no existe.
+     */
+    private static File destinationFile(Destinations country) {
+        File file = resolveDestinationFile(country);
+
+        // Verificar si existe
+        if (!file.exists() || !file.isFile()) {
+            System.out.println("❌ No existe el archivo: " + file.getPath());
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Devuelve el archivo de un destino ({@code reservas_<destino>.txt}) o su variante comprimida si
+     * solo existe esta, sin comprobar que exista.
+     *
+     * @param country destino.
+     * @return referencia al archivo (puede no existir).
+     */
+    static File resolveDestinationFile(Destinations country) {
         // 1. Construir nombre del archivo
-        String fileName = buildFileName(country);
+        String fileName = country.fileName();
 
         // 2. Crear referencia al archivo (sin crearlo)
         File file = new File(fileName);
+        File compressedFile = new File(BlockCompression.compressedName(fileName));
+        if (!file.isFile() && compressedFile.isFile()) {
+            file = compressedFile;
+        }
+        return file;
+    }
 
-        // 3. Verificar si existe
-        if (!file.exists() || !file.isFile()) {
+    /**
+     * Muestra por consola las reservas de un destino leyéndolas directamente del archivo maestro a
+     * través de su {@link DestinationIndex}. No necesita los archivos por destino: si el índice no
+     * existe o está obsoleto se reconstruye antes de la consulta.
+     *
+     * @param country destino del que se desean listar las reservas.
+     * @throws IOException si ocurre un problema al acceder al archivo maestro o a su índice.
+     */
+    public void showReservationsByCountryIndexed(Destinations country) throws IOException {
+        if (!has4Fields) {
+            throw new IllegalStateException("La consulta por destino requiere el destino.");
+        }
+
+        File masterFile = new File(fileName);
+        if (!masterFile.isFile()) {
             System.out.println("❌ No existe el archivo: " + fileName);
-            return; // Salir del método
+            return;
         }
 
-        // 4. Si existe, mostrar contenido
-        ReservationAll reservationsByCountry = new ReservationAll(fileName);
-        reservationsByCountry.logguer();
+        DestinationIndex index = DestinationIndex.open(masterFile);
+        PrintStream console = bufferedConsole();
+        try {
+            ReservationReportRenderer renderer = new ConsoleReportRenderer(console, has4Fields);
+            ReservationStatistics statistics = new ReservationStatistics();
+
+            renderer.begin();
+            long position = 0;
+            for (String[] row : index.readRecords(country)) {
+                statistics.add(row);
+                renderer.row(++position, row);
+            }
+            renderer.end(statistics);
+        } finally {
+            console.flush();
+        }
     }
 
     /**
-     * Genera el nombre de archivo estandarizado para un destino concreto.
+     * Busca las reservas de un pasajero por su nombre completo a través del {@link PassengerNameIndex}
+     * del archivo maestro, sin recorrerlo. Mayúsculas y espacios sobrantes no se tienen en cuenta; si
+     * el índice no existe o está obsoleto se reconstruye antes de la consulta.
      *
-     * @param country destino a convertir en nombre de archivo.
-     * @return nombre normalizado del archivo.
+     * @param passengerName nombre del pasajero.
+     * @return registros del pasajero en el orden del archivo maestro (vacío si el maestro no existe).
+     * @throws IOException si ocurre un problema al acceder al archivo maestro o a su índice.
+     */
+    public List<String[]> findReservationsByPassenger(String passengerName) throws IOException {
+        PassengerNameIndex index = passengerIndex();
+        return index == null ? List.of() : index.readRecords(index.find(passengerName));
+    }
+
+    /**
+     * Busca las reservas de los pasajeros cuyo nombre empieza por un texto (por ejemplo, el apellido
+     * que se está tecleando en el mostrador), a través del {@link PassengerNameIndex}.
+     *
+     * @param prefix principio del nombre.
+     * @return registros encontrados en el orden del archivo maestro (vacío si el maestro no existe).
+     * @throws IOException si ocurre un problema al acceder al archivo maestro o a su índice.
+     */
+    public List<String[]> findReservationsByPassengerPrefix(String prefix) throws IOException {
+        PassengerNameIndex index = passengerIndex();
+        return index == null ? List.of() : index.readRecords(index.findByPrefix(prefix));
+    }
+
+    /**
+     * Muestra por consola las reservas de un pasajero, con el mismo formato que
+     * {@link #showReservationsByCountryIndexed(Destinations)}.
+     *
+     * @param passengerName nombre del pasajero.
+     * @throws IOException si ocurre un problema al acceder al archivo maestro o a su índice.
+     */
+    public void showReservationsByPassenger(String passengerName) throws IOException {
+        List<String[]> rows = findReservationsByPassenger(passengerName);
+        PrintStream console = bufferedConsole();
+        try {
+            ReservationReportRenderer renderer = new ConsoleReportRenderer(console, has4Fields);
+            ReservationStatistics statistics = new ReservationStatistics();
+
+            renderer.begin();
+            long position = 0;
+            for (String[] row : rows) {
+                statistics.add(row);
+                renderer.row(++position, row);
+            }
+            renderer.end(statistics);
+        } finally {
+            console.flush();
+        }
+    }
+
+    /**
+     * Índice por nombre de pasajero del archivo maestro ({@link PassengerNameIndex#open(File)}), que se
+     * reconstruye si no corresponde al maestro. Devuelve {@code null} y lo avisa por consola si el
+     * maestro no existe.
+     */
+    private PassengerNameIndex passengerIndex() throws IOException {
+        File masterFile = new File(fileName);
+        if (!masterFile.isFile()) {
+            System.out.println("❌ No existe el archivo: " + fileName);
+            return null;
+        }
+        return PassengerNameIndex.open(masterFile);
+    }
+
+    /**
+     * Flujo para los informes de consola: acumula la salida en un búfer de
+     * {@value #CONSOLE_BUFFER_SIZE} bytes y la entrega a {@link System#out} en bloques, en lugar de
+     * vaciarla en cada línea. Debe vaciarse ({@link PrintStream#flush()}) al terminar el informe.
      */
-    private static String buildFileName(Destinations country) {
-        String normalized = country.name().toLowerCase();  // enum a minúsculas
-        return "reservas_" + normalized + ".txt";
+    private static PrintStream bufferedConsole() {
+        return new PrintStream(new BufferedOutputStream(System.out, CONSOLE_BUFFER_SIZE), false);
     }
 
     /**
@@ -0,0 +1,159 @@
+package Reservation;
+
+import Utils.ReservationRecordReader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recorrido perezoso y paginado de las reservas de un archivo, en cualquiera de los formatos de
+ * {@link ReservationRecordReader}. El archivo se lee solo hasta donde lo necesita cada página: las
+ * reservas que se saltan o no cumplen los filtros se descartan sin convertir sus campos en
+ * {@link String}, y únicamente se materializan las que se devuelven.
+ *
+ * <p>Los filtros comparan la clase (tercer campo) y el destino (cuarto campo) con las reglas de
+ * {@link ReservationStatistics} y {@link Destinations#fromText(CharSequence)}; un registro sin el
+ * campo filtrado no los cumple. Sin filtros se recorren todos los registros tras el encabezado,
+ * igual que en {@link ReservationAll#logguer(ReservationClass...)}.</p>
+ *
+ * <pre>
+ * try (ReservationCursor cursor = ReservationCursor.open(file, EnumSet.of(ReservationClass.BUSINESS), null)) {
+ *     while (cursor.hasNext()) {
+ *         List&lt;String[]&gt; page = cursor.next(100);
+ *     }
+ * }
+ * </pre>
+ */
+public final class ReservationCursor implements Closeable {
+
+    private final ReservationRecordReader reader;
+    private final Set<ReservationClass> classes;
+    private final Set<Destinations> destinations;
+
+    private long position;
+    private boolean pending;
+    private boolean exhausted;
+
+    private ReservationCursor(ReservationRecordReader reader, Set<ReservationClass> classes, Set<Destinations> destinations) {
+        this.reader = reader;
+        this.classes = classes;
+        this.destinations = destinations;
+    }
+
+    /**
+     * Abre un cursor sobre un archivo de reservas, posicionado antes de la primera reserva que
+     * cumple los filtros.
+     *
+     * @param file         archivo de reservas (CSV, CSV comprimido o binario).
+     * @param classes      clases admitidas, o {@code null} (o vacío) para no filtrar por clase.
+     * @param destinations destinos admitidos, o {@code null} (o vacío) para no filtrar por destino.
+     * @return el cursor.
+     * @throws IOException si el archivo no existe o no puede abrirse.
+     */
+    public static ReservationCursor open(File file, Set<ReservationClass> classes, Set<Destinations> destinations)
+            throws IOException {
+        ReservationRecordReader reader = ReservationRecordReader.open(file);
+        try {
+            reader.next(); // encabezado
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        return new ReservationCursor(reader,
+                classes == null || classes.isEmpty() ? null : EnumSet.copyOf(classes),
+                destinations == null || destinations.isEmpty() ? null : EnumSet.copyOf(destinations));
+    }
+
+    /**
+     * @return {@code true} si queda al menos una reserva que cumple los filtros. Puede leer del
+     *         archivo hasta encontrarla.
+     * @throws IOException si ocurre un problema al leer el archivo.
+     */
+    public boolean hasNext() throws IOException {
+        return advance();
+    }
+
+    /**
+     * Devuelve las siguientes reservas que cumplen los filtros.
+     *
+     * @param limit número máximo de reservas.
+     * @return campos de cada reserva; menos de {@code limit} solo al llegar al final del archivo.
+     * @throws IOException si ocurre un problema al leer el archivo.
+     */
+    public List<String[]> next(int limit) throws IOException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("El límite no puede ser negativo.");
+        }
+        List<String[]> rows = new ArrayList<>(Math.min(limit, 1024));
+        while (rows.size() < limit && advance()) {
+            rows.add(reader.fields());
+            pending = false;
+            position++;
+        }
+        return rows;
+    }
+
+    /**
+     * Descarta reservas que cumplen los filtros sin materializarlas.
+     *
+     * @param count número de reservas a saltar.
+     * @return reservas saltadas; menos de {@code count} solo al llegar al final del archivo.
+     * @throws IOException si ocurre un problema al leer el archivo.
+     */
+    public long skip(long count) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("El número de reservas a saltar no puede ser negativo.");
+        }
+        long skipped = 0;
+        while (skipped < count && advance()) {
+            pending = false;
+            position++;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return reservas que cumplen los filtros ya devueltas o saltadas; es el desplazamiento de la
+     *         siguiente página.
+     */
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Deja el lector sobre la siguiente reserva que cumple los filtros, si aún no lo está.
+     *
+     * @return {@code false} al llegar al final del archivo.
+     */
+    private boolean advance() throws IOException {
+        while (!pending && !exhausted) {
+            if (!reader.next()) {
+                exhausted = true;
+            } else {
+                pending = matches();
+            }
+        }
+        return pending;
+    }
+
+    private boolean matches() {
+        int classIndex = ReservationFields.CLASS.ordinal();
+        if (classes != null && (reader.fieldCount() <= classIndex || !classes.contains(reader.reservationClass(classIndex)))) {
+            return false;
+        }
+        int destinationIndex = ReservationFields.DESTINATION.ordinal();
+        return destinations == null
+                || (reader.fieldCount() > destinationIndex && destinations.contains(reader.destination(destinationIndex)));
+    }
+}
@@ -0,0 +1,289 @@
+package Reservation;
+
+import Utils.FieldValidator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generador determinista de archivos maestros sintéticos, sin interfaz gráfica. Produce reservas
+ * válidas repartidas entre todos los {@link Destinations} y {@link ReservationClass} y, opcionalmente,
+ * una fracción de filas inválidas que incumplen cada una de las reglas de
+ * {@link Utils.Utils#validateField(String, ReservationFields)}.
+ *
+ * <p>Con la misma semilla, fracción de inválidos y número de filas el archivo generado es idéntico
+ * byte a byte, de modo que benchmarks y pruebas pueden reutilizar los mismos datos. Las filas se
+ * codifican directamente en un búfer de 4 MB que se vuelca mediante un {@link FileChannel}, lo que
+ * permite generar cientos de millones de reservas en poco tiempo.</p>
+ *
+ * <p>Uso desde la línea de comandos:</p>
+ * <pre>
+ * java -cp tarea-01.jar Reservation.ReservationGenerator reservas_maestro.txt 1000000 0.05 42
+ * </pre>
+ */
+public final class ReservationGenerator {
+
+    /** Semilla utilizada cuando no se indica ninguna. */
+    public static final long DEFAULT_SEED = 20251004L;
+
+    private static final int BUFFER_SIZE = 4 << 20;
+    /** Espacio reservado al final del búfer; ninguna fila generada supera este tamaño. */
+    private static final int MAX_ROW_BYTES = 512;
+
+    private static final String[] FIRST_NAMES = {
+            "Ana", "Luis", "Eva", "Juan", "Marta", "Pedro", "Lucía", "Carlos", "Sofía", "Javier",
+            "Elena", "Andrés", "Paula", "Raúl", "Irene", "Tomás"
+    };
+    private static final String[] LAST_NAMES = {
+            "López", "Pérez", "Ruiz", "García", "Martín", "Sánchez", "Gómez", "Díaz", "Muñoz",
+            "Álvarez", "Romero", "Navarro"
+    };
+
+    // Valores que incumplen cada regla de validación
+    private static final String[] INVALID_SEATS = {"1234A", "12G", "A12", "12c", "C"};
+    private static final String[] INVALID_NAMES = {"Ana 2", "Luis_Pérez", "Eva-María", "J0an", "Marta!"};
+    private static final String[] INVALID_CLASSES = {"PREMIUM", "economy", "Business", "TURISTA", "1ST"};
+    private static final String[] INVALID_DESTINATIONS = {"X", "NY", "BA"};
+    private static final String[] INVALID_LABELS = {"", "campo vacío", "asiento", "nombre", "clase", "destino"};
+    private static final int[] INVALID_CODES = {
+            FieldValidator.EMPTY,
+            FieldValidator.INVALID_SEAT,
+            FieldValidator.INVALID_NAME,
+            FieldValidator.INVALID_CLASS,
+            FieldValidator.DESTINATION_TOO_SHORT
+    };
+
+    private final long seed;
+    private final double invalidFraction;
+    private final long[] invalidCounts = new long[FieldValidator.DESTINATION_TOO_SHORT + 1];
+
+    /**
+     * Crea un generador que solo produce reservas válidas.
+     *
+     * @param seed semilla del generador pseudoaleatorio.
+     */
+    public ReservationGenerator(long seed) {
+        this(seed, 0.0);
+    }
+
+    /**
+     * Crea un generador que intercala filas inválidas con la proporción indicada.
+     *
+     * @param seed            semilla del generador pseudoaleatorio.
+     * @param invalidFraction fracción de filas inválidas, entre 0 y 1.
+     * @throws IllegalArgumentException si la fracción está fuera de rango.
+     */
+    public ReservationGenerator(long seed, double invalidFraction) {
+        if (!(invalidFraction >= 0.0 && invalidFraction <= 1.0)) {
+            throw new IllegalArgumentException("La fracción de filas inválidas debe estar entre 0 y 1: " + invalidFraction);
+        }
+        this.seed = seed;
+        this.invalidFraction = invalidFraction;
+    }
+
+    /**
+     * Genera un archivo maestro con encabezado y cuatro campos por registro.
+     *
+     * @param output archivo de destino; se sobrescribe si existe.
+     * @param rows   número de reservas (sin contar el encabezado).
+     * @return número de filas inválidas generadas.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public long generate(File output, long rows) throws IOException {
+        return generate(output, rows, true);
+    }
+
+    /**
+     * Genera un archivo maestro con encabezado.
+     *
+     * @param output         archivo de destino; se sobrescribe si existe.
+     * @param rows           número de reservas (sin contar el encabezado).
+     * @param hasDestination {@code true} para incluir la columna {@code DESTINATION}.
+     * @return número de filas inválidas generadas.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public long generate(File output, long rows, boolean hasDestination) throws IOException {
+        if (rows < 0) {
+            throw new IllegalArgumentException("El número de filas no puede ser negativo: " + rows);
+        }
+
+        Charset charset = Charset.defaultCharset();
+        byte[][] firstNames = encode(encodable(FIRST_NAMES, charset), charset);
+        byte[][] lastNames = encode(encodable(LAST_NAMES, charset), charset);
+        byte[][] classes = encode(ReservationClass.values(), charset);
+        byte[][] destinations = encode(Destinations.values(), charset);
+        byte[][] invalidSeats = encode(INVALID_SEATS, charset);
+        byte[][] invalidNames = encode(INVALID_NAMES, charset);
+        byte[][] invalidClasses = encode(INVALID_CLASSES, charset);
+        byte[][] invalidDestinations = encode(INVALID_DESTINATIONS, charset);
+        byte[] separator = ", ".getBytes(charset);
+        byte[] newLine = System.lineSeparator().getBytes(charset);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Arrays.fill(invalidCounts, 0);
+        long invalidRows = 0;
+
+        try (FileChannel channel = new FileOutputStream(output, false).getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+            String header = hasDestination
+                    ? "SEAT_NUMBER, PASSENGER_NAME, CLASS, DESTINATION"
+                    : "SEAT_NUMBER, PASSENGER_NAME, CLASS";
+            buffer.put(header.getBytes(charset)).put(newLine);
+
+            for (long i = 0; i < rows; i++) {
+                if (buffer.remaining() < MAX_ROW_BYTES) {
+                    drain(channel, buffer);
+                }
+
+                // Una tirada por fila decide si es inválida y qué regla incumple
+                boolean invalid = random.nextDouble() < invalidFraction;
+                int code = FieldValidator.OK;
+                int field = -1;
+                if (invalid) {
+                    code = INVALID_CODES[random.nextInt(hasDestination ? INVALID_CODES.length : INVALID_CODES.length - 1)];
+                    field = switch (code) {
+                        case FieldValidator.EMPTY -> random.nextInt(hasDestination ? 4 : 3);
+                        case FieldValidator.INVALID_SEAT -> 0;
+                        case FieldValidator.INVALID_NAME -> 1;
+                        case FieldValidator.INVALID_CLASS -> 2;
+                        default -> 3;
+                    };
+                    invalidCounts[code]++;
+                    invalidRows++;
+                }
+                boolean empty = code == FieldValidator.EMPTY;
+
+                // Asiento
+                if (field != 0) {
+                    putSeat(buffer, 1 + random.nextInt(999), (char) ('A' + random.nextInt(6)));
+                } else if (!empty) {
+                    buffer.put(pick(invalidSeats, random));
+                }
+                buffer.put(separator);
+
+                // Pasajero
+                if (field != 1) {
+                    buffer.put(pick(firstNames, random)).put((byte) ' ').put(pick(lastNames, random));
+                } else if (!empty) {
+                    buffer.put(pick(invalidNames, random));
+                }
+                buffer.put(separator);
+
+                // Clase
+                if (field != 2) {
+                    buffer.put(pick(classes, random));
+                } else if (!empty) {
+                    buffer.put(pick(invalidClasses, random));
+                }
+
+                // Destino
+                if (hasDestination) {
+                    buffer.put(separator);
+                    if (field != 3) {
+                        buffer.put(pick(destinations, random));
+                    } else if (!empty) {
+                        buffer.put(pick(invalidDestinations, random));
+                    }
+                }
+                buffer.put(newLine);
+            }
+            drain(channel, buffer);
+        }
+        return invalidRows;
+    }
+
+    /**
+     * Devuelve cuántas filas inválidas de un tipo se generaron en la última llamada a
+     * {@code generate}.
+     *
+     * @param validationCode código de {@link FieldValidator} (por ejemplo {@link FieldValidator#INVALID_SEAT}).
+     * @return número de filas inválidas con ese código.
+     */
+    public long getInvalidCount(int validationCode) {
+        if (validationCode <= FieldValidator.OK || validationCode >= invalidCounts.length) {
+            throw new IllegalArgumentException("Código de validación desconocido: " + validationCode);
+        }
+        return invalidCounts[validationCode];
+    }
+
+    /**
+     * Genera un archivo maestro desde la línea de comandos.
+     *
+     * @param args {@code <archivo> <filas> [fracciónInválidos] [semilla]}.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("Uso: ReservationGenerator <archivo> <filas> [fracciónInválidos] [semilla]");
+            return;
+        }
+        File output = new File(args[0]);
+        long rows = Long.parseLong(args[1]);
+        double invalidFraction = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+
+        ReservationGenerator generator = new ReservationGenerator(seed, invalidFraction);
+        long start = System.nanoTime();
+        long invalidRows = generator.generate(output, rows);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("✅ Generadas " + rows + " reservas en " + output.getAbsolutePath()
+                + " (" + elapsedMs + " ms, semilla " + seed + ").");
+        if (invalidRows > 0) {
+            System.out.println("⚠️ Filas inválidas: " + invalidRows);
+            for (int code : INVALID_CODES) {
+                System.out.println("  - " + INVALID_LABELS[code] + ": " + generator.getInvalidCount(code));
+            }
+        }
+    }
+
+    private static void putSeat(ByteBuffer buffer, int number, char letter) {
+        if (number >= 100) buffer.put((byte) ('0' + number / 100));
+        if (number >= 10) buffer.put((byte) ('0' + number / 10 % 10));
+        buffer.put((byte) ('0' + number % 10));
+        buffer.put((byte) letter);
+    }
+
+    private static byte[] pick(byte[][] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Descarta los nombres con tildes si la codificación por defecto no puede representarlos, ya que
+     * al leerlos con {@code FileReader} dejarían de ser válidos.
+     */
+    private static String[] encodable(String[] values, Charset charset) {
+        return Arrays.stream(values).filter(value -> charset.newEncoder().canEncode(value)).toArray(String[]::new);
+    }
+
+    private static byte[][] encode(String[] values, Charset charset) {
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].getBytes(charset);
+        }
+        return encoded;
+    }
+
+    private static byte[][] encode(Enum<?>[] values, Charset charset) {
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].name().getBytes(charset);
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,380 @@
+package Reservation;
+
+import Utils.BlockCompression;
+import Utils.ErrorLogSink;
+import Utils.ReservationMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canal de ingesta de reservas sobre un archivo maestro CSV. Mantiene el archivo abierto durante toda
+ * la sesión, valida cada {@link ReservationRecord} con las reglas de
+ * {@link Utils.Utils#validateField(String, ReservationFields)} y agrupa las escrituras: las reservas
+ * aceptadas se acumulan en memoria y se confirman en bloque (una sola escritura y un
+ * {@code force}) cada {@code commitEvery} reservas o, si se indica, cada {@code commitIntervalMillis}
+ * milisegundos aunque no se haya completado el lote.
+ *
+ * <p>Las reservas rechazadas no se escriben; se registran en {@code registro_errores.log} con su
+ * posición en la secuencia de entrada. Si se activa la detección de conflictos, también se rechaza
+ * la reserva de un asiento que ya está ocupado en su destino: la ocupación ({@link SeatOccupancy}) se
+ * carga del maestro la primera vez que se abre un canal sobre él, se actualiza con cada reserva
+ * aceptada y se conserva al cerrar el canal para el siguiente mientras nadie más modifique el archivo,
+ * así que los asientos que otros procesos escriban con el canal abierto solo se detectan al procesar
+ * el archivo. El índice por destino ({@link DestinationIndex}) y el índice
+ * por nombre de pasajero ({@link PassengerNameIndex}) se actualizan en cada confirmación. Se obtiene mediante {@link ReservationAll#openIngestor(int, long)}.</p>
+ *
+ * <p>Un mismo canal puede usarse desde varios hilos, y varios canales (incluso de procesos
+ * distintos) pueden escribir a la vez sobre el mismo maestro: cada confirmación se realiza con el
+ * archivo bloqueado. Para muchos productores concurrentes es preferible
+ * {@link ConcurrentReservationAppender}, que evita la contención entre ellos.</p>
+ *
+ * <p>Si una confirmación falla, incluida la que se hace en segundo plano por tiempo, el lote no se
+ * reintenta (pudo quedar escrito a medias) y el error se relanza en la siguiente llamada a
+ * {@link #append}, {@link #commit()} o {@link #close()}.</p>
+ */
+public class ReservationIngestor implements Closeable {
+
+    /** Número de reservas por confirmación por defecto. */
+    public static final int DEFAULT_COMMIT_EVERY = 1024;
+    /** Intervalo máximo por defecto, en milisegundos, entre la llegada de una reserva y su confirmación. */
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 200;
+
+    private final File masterFile;
+    private final boolean hasDestination;
+    private final int commitEvery;
+    private final FileChannel channel;
+    private final ErrorLogSink errorLog;
+    /** Ocupación de asientos, o {@code null} si no se comprueban conflictos. */
+    private final SeatOccupancy occupancy;
+    /** Tamaño del maestro que refleja la ocupación, o {@code -1} si otro proceso lo modificó después. */
+    private long occupancyLength;
+    private long occupancyLastModified;
+    private final ScheduledExecutorService timer;
+    private final Charset charset = Charset.defaultCharset();
+
+    private final byte[] header;
+
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private byte[] pendingDestinations;
+    private String[] pendingNames;
+    private long[] pendingOffsets;
+    private int pendingCount;
+
+    private boolean headerChecked;
+    private long sequence;
+    private long accepted;
+    private long rejected;
+    private boolean closed;
+    /** Primer error de una confirmación; a partir de él el canal no admite más operaciones. */
+    private IOException failure;
+
+    ReservationIngestor(File masterFile, boolean hasDestination, int commitEvery, long commitIntervalMillis,
+                        boolean detectSeatConflicts) throws IOException {
+        if (commitEvery < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser al menos 1.");
+        }
+        if (commitIntervalMillis < 0) {
+            throw new IllegalArgumentException("El intervalo de confirmación no puede ser negativo.");
+        }
+        if (BinaryReservationReader.isBinary(masterFile) || BlockCompression.isCompressed(masterFile)) {
+            throw new IOException("La ingesta solo admite archivos maestros en formato CSV sin comprimir: "
+                    + masterFile.getName());
+        }
+        this.masterFile = masterFile;
+        this.hasDestination = hasDestination;
+        this.commitEvery = commitEvery;
+        this.pendingDestinations = new byte[Math.min(commitEvery, 1024)];
+        this.pendingOffsets = new long[pendingDestinations.length];
+        this.pendingNames = new String[pendingDestinations.length];
+        this.channel = FileChannel.open(masterFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        SeatOccupancy.Snapshot snapshot = null;
+        if (detectSeatConflicts) {
+            try {
+                snapshot = SeatOccupancy.acquire(masterFile, hasDestination);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        this.occupancy = snapshot != null ? snapshot.occupancy() : null;
+        this.occupancyLength = snapshot != null ? snapshot.length() : -1;
+        this.occupancyLastModified = snapshot != null ? snapshot.lastModified() : 0;
+        this.errorLog = new ErrorLogSink(new File("registro_errores.log"));
+
+        String headerLine = (hasDestination
+                ? "SEAT_NUMBER, PASSENGER_NAME, CLASS, DESTINATION"
+                : "SEAT_NUMBER, PASSENGER_NAME, CLASS") + System.lineSeparator();
+        this.header = headerLine.getBytes(charset);
+
+        if (commitIntervalMillis > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "reservation-ingestor-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::timedCommit, commitIntervalMillis, commitIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            timer = null;
+        }
+    }
+
+    /**
+     * Valida una reserva y, si es correcta, la añade al lote en curso.
+     *
+     * @param reservation reserva a ingerir.
+     * @return {@code true} si se aceptó; {@code false} si no era válida o su asiento ya estaba
+     *         ocupado, y se registró en el log.
+     * @throws IOException si falla la confirmación del lote o la escritura del log.
+     */
+    public synchronized boolean append(ReservationRecord reservation) throws IOException {
+        ensureOpen();
+        sequence++;
+
+        String error = reservation == null ? "❌ Reserva vacía." : reservation.validate(hasDestination);
+        if (error != null) {
+            rejected++;
+            errorLog.log(sequence, reservation == null ? new String[0] : rejectedFields(reservation), error);
+            return false;
+        }
+
+        Destinations destination = hasDestination ? reservation.destination() : null;
+        if (occupancy != null && !occupancy.occupy(destination,
+                SeatOccupancy.seatIndex(reservation.seatNumber(), reservation.seatRow()))) {
+            rejected++;
+            ReservationMetrics.recordSeatConflict();
+            errorLog.log(sequence, rejectedFields(reservation),
+                    SeatOccupancy.conflictMessage(reservation.seat(), SeatOccupancy.keyOf(destination)));
+            return false;
+        }
+
+        appendEncoded(encode(reservation), hasDestination ? reservation.destination().ordinal() : -1,
+                reservation.passengerName());
+        return true;
+    }
+
+    /**
+     * Codifica una reserva válida como línea del maestro, separador incluido. No depende del estado
+     * del canal, por lo que puede llamarse desde cualquier hilo sin sincronización.
+     *
+     * @param reservation reserva ya validada.
+     * @return bytes de la línea.
+     */
+    byte[] encode(ReservationRecord reservation) {
+        return (reservation.toCsv(hasDestination) + System.lineSeparator()).getBytes(charset);
+    }
+
+    /**
+     * Añade al lote en curso una reserva ya validada y codificada con {@link #encode}.
+     *
+     * @param line        bytes de la línea.
+     * @param destination   ordinal del destino, o {@code -1} si el archivo no tiene destinos.
+     * @param passengerName nombre del pasajero, para el índice por nombre.
+     * @throws IOException si falla la confirmación del lote.
+     */
+    synchronized void appendEncoded(byte[] line, int destination, String passengerName) throws IOException {
+        ensureOpen();
+        if (pendingCount == pendingOffsets.length) {
+            pendingOffsets = Arrays.copyOf(pendingOffsets, pendingCount * 2);
+            pendingDestinations = Arrays.copyOf(pendingDestinations, pendingCount * 2);
+            pendingNames = Arrays.copyOf(pendingNames, pendingCount * 2);
+        }
+        pendingOffsets[pendingCount] = pending.size();
+        pendingDestinations[pendingCount] = (byte) destination;
+        pendingNames[pendingCount] = passengerName;
+        pendingCount++;
+        pending.writeBytes(line);
+        accepted++;
+
+        if (pendingCount >= commitEvery) {
+            commit();
+        }
+    }
+
+    /**
+     * Confirma inmediatamente las reservas pendientes: las escribe en una sola operación, fuerza su
+     * paso a disco y actualiza los índices por destino y por nombre. Todo ello se hace con el archivo bloqueado
+     * frente a otros hilos y procesos, de modo que los registros nunca se intercalan y el encabezado
+     * solo lo escribe quien encuentra el archivo vacío.
+     *
+     * @throws IOException si el archivo maestro o el índice no pueden escribirse, o si falló una
+     *                     confirmación anterior.
+     */
+    public synchronized void commit() throws IOException {
+        ensureOpen();
+        if (pending.size() == 0 && headerChecked) {
+            return;
+        }
+
+        try {
+            writeBatch();
+            errorLog.flush();
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        MasterFileLock.withLock(masterFile, channel, () -> {
+            long lengthBefore = channel.size();
+            long lastModifiedBefore = masterFile.lastModified();
+            if (lengthBefore != occupancyLength || lastModifiedBefore != occupancyLastModified) {
+                occupancyLength = -1; // el maestro cambió por otra vía: la ocupación no se conserva
+            }
+            long recordsStart = lengthBefore;
+            if (lengthBefore == 0) {
+                writeFully(ByteBuffer.wrap(header));
+                recordsStart = header.length;
+            }
+            headerChecked = true;
+
+            long writeStart = System.nanoTime();
+            byte[] batch = pending.toByteArray();
+            writeFully(ByteBuffer.wrap(batch));
+            channel.force(false);
+            if (occupancyLength >= 0) {
+                occupancyLength = channel.size();
+                occupancyLastModified = masterFile.lastModified();
+            }
+            ReservationMetrics.recordWrite(batch.length, System.nanoTime() - writeStart);
+
+            int count = pendingCount;
+            pending.reset();
+            pendingCount = 0;
+
+            if (count > 0) {
+                // Los desplazamientos del lote son relativos; se trasladan a la posición real del maestro
+                for (int i = 0; i < count; i++) {
+                    pendingOffsets[i] += recordsStart;
+                }
+                if (hasDestination) {
+                    DestinationIndex.recordAppends(masterFile, pendingDestinations, pendingOffsets, count,
+                            lengthBefore, lastModifiedBefore);
+                }
+                PassengerNameIndex.recordAppends(masterFile, pendingNames, pendingOffsets, count,
+                        lengthBefore, lastModifiedBefore);
+                Arrays.fill(pendingNames, 0, count, null);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Devuelve cuántas reservas se han aceptado (confirmadas o pendientes).
+     *
+     * @return número de reservas aceptadas.
+     */
+    public synchronized long getAcceptedCount() {
+        return accepted;
+    }
+
+    /**
+     * Devuelve cuántas reservas se han rechazado por no superar la validación o por conflicto de asiento.
+     *
+     * @return número de reservas rechazadas.
+     */
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * Confirma las reservas pendientes y cierra el archivo maestro y el log de errores.
+     *
+     * @throws IOException si la última confirmación, una anterior o el cierre fallan.
+     */
+    @Override
+    public void close() throws IOException {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                commit();
+                if (occupancy != null && occupancyLength >= 0) {
+                    SeatOccupancy.release(masterFile, hasDestination,
+                            new SeatOccupancy.Snapshot(occupancy, occupancyLength, occupancyLastModified));
+                }
+            } finally {
+                closed = true;
+                try {
+                    channel.close();
+                } finally {
+                    errorLog.close();
+                }
+            }
+        }
+    }
+
+    private void timedCommit() {
+        synchronized (this) {
+            if (closed || failure != null) {
+                return;
+            }
+            try {
+                commit();
+            } catch (IOException e) {
+                // queda en failure y se relanza en la siguiente llamada del usuario
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("El canal de ingesta ya está cerrado: " + masterFile.getName());
+        }
+    }
+
+    /**
+     * Campos de una reserva rechazada para el log. Los caracteres de control del nombre se escriben
+     * como escapes Unicode para que un salto de línea no parta la entrada del log.
+     */
+    private static String[] rejectedFields(ReservationRecord reservation) {
+        return new String[]{
+                reservation.seat(),
+                escapeControl(String.valueOf(reservation.passengerName())),
+                String.valueOf(reservation.reservationClass()),
+                String.valueOf(reservation.destination())
+        };
+    }
+
+    private static String escapeControl(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isISOControl(c)) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+                }
+                escaped.append(String.format("\\u%04X", (int) c));
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package Reservation;
+
+import java.util.List;
+
+/**
+ * Página de un listado de reservas obtenida con {@link ReservationCursor} o
+ * {@link ReservationAll#page(long, int, java.util.Set, java.util.Set)}.
+ *
+ * @param offset  posición de la primera reserva de la página entre las que cumplen los filtros,
+ *                empezando en {@code 0}.
+ * @param rows    campos de cada reserva de la página, en el orden del archivo.
+ * @param hasMore {@code true} si quedan reservas después de la página.
+ */
+public record ReservationPage(long offset, List<String[]> rows, boolean hasMore) {
+
+    /**
+     * @return desplazamiento con el que pedir la página siguiente.
+     */
+    public long nextOffset() {
+        return offset + rows.size();
+    }
+}
@@ -0,0 +1,348 @@
+package Reservation;
+
+import Utils.ReservationMetrics;
+import Utils.ReservationRecordReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Consulta sobre todos los archivos por destino ({@code reservas_<destino>.txt} o su variante
+ * comprimida) del directorio de trabajo, tal como los deja
+ * {@link ReservationAll#createandFillFileByDestination(ReservationFields)}. Los filtros se combinan
+ * con «y» y la consulta termina con un recuento ({@link #count()}), un recuento agrupado por columna
+ * ({@link #countBy(ReservationFields)}) o la lista de reservas ({@link #list()}).
+ *
+ * <pre>
+ * long primera = new ReservationQuery().classes(ReservationClass.FIRST).passengerName("Ana Lopez").count();
+ * Map&lt;String, Long&gt; business = new ReservationQuery().classes(ReservationClass.BUSINESS)
+ *         .countBy(ReservationFields.DESTINATION);
+ * </pre>
+ *
+ * <p>Cada archivo se recorre en un hilo, hasta {@link #parallelism(int)} a la vez. Con
+ * {@link #destinations(Destinations...)} solo se abren los archivos de los destinos indicados; los
+ * demás filtros se evalúan registro a registro, la clase y el destino sin convertir los campos en
+ * {@link String}. El archivo de cuarentena ({@link Destinations#QUARANTINE_FILE_NAME}) no forma parte
+ * de la consulta y los destinos sin archivo se ignoran.</p>
+ */
+public final class ReservationQuery {
+
+    private static final Destinations[] DESTINATIONS = Destinations.values();
+    private static final int CLASS = ReservationFields.CLASS.ordinal();
+    private static final int DESTINATION = ReservationFields.DESTINATION.ordinal();
+    /** Clave de {@link #countBy(ReservationFields)} para los registros sin la columna agrupada. */
+    private static final String MISSING = "N/A";
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private EnumSet<ReservationClass> classes;
+    private EnumSet<Destinations> destinations;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Predicate<String>[] predicates = new Predicate[ReservationFields.values().length];
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Restringe la consulta a las reservas de alguna de las clases indicadas.
+     *
+     * @param classes clases admitidas.
+     * @return esta consulta.
+     */
+    public ReservationQuery classes(ReservationClass... classes) {
+        EnumSet<ReservationClass> accepted = EnumSet.noneOf(ReservationClass.class);
+        accepted.addAll(Arrays.asList(classes));
+        if (this.classes != null) {
+            accepted.retainAll(this.classes);
+        }
+        this.classes = accepted;
+        return this;
+    }
+
+    /**
+     * Restringe la consulta a los destinos indicados. Los archivos de los demás destinos no se leen.
+     *
+     * @param destinations destinos admitidos.
+     * @return esta consulta.
+     */
+    public ReservationQuery destinations(Destinations... destinations) {
+        EnumSet<Destinations> accepted = EnumSet.noneOf(Destinations.class);
+        accepted.addAll(Arrays.asList(destinations));
+        if (this.destinations != null) {
+            accepted.retainAll(this.destinations);
+        }
+        this.destinations = accepted;
+        return this;
+    }
+
+    /**
+     * Restringe la consulta a un pasajero, sin distinguir mayúsculas ni espacios en los extremos.
+     *
+     * @param name nombre del pasajero.
+     * @return esta consulta.
+     */
+    public ReservationQuery passengerName(String name) {
+        String expected = name.trim();
+        return where(ReservationFields.PASSENGER_NAME, expected::equalsIgnoreCase);
+    }
+
+    /**
+     * Añade un filtro sobre el texto de una columna, sin espacios en los extremos. Los registros sin
+     * esa columna no lo cumplen. Sobre {@link ReservationFields#DESTINATION} no descarta archivos:
+     * para eso se usa {@link #destinations(Destinations...)}.
+     *
+     * @param field     columna a filtrar.
+     * @param predicate condición que debe cumplir su valor.
+     * @return esta consulta.
+     */
+    public ReservationQuery where(ReservationFields field, Predicate<String> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        int index = field.ordinal();
+        predicates[index] = predicates[index] == null ? predicate : predicates[index].and(predicate);
+        return this;
+    }
+
+    /**
+     * @param parallelism número máximo de archivos que se recorren a la vez.
+     * @return esta consulta.
+     */
+    public ReservationQuery parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("El paralelismo debe ser al menos 1.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @return número de reservas que cumplen los filtros.
+     * @throws IOException si algún archivo no puede leerse.
+     */
+    public long count() throws IOException {
+        long total = 0;
+        for (long[] matches : scan(() -> new long[1], (reader, matches) -> matches[0]++)) {
+            total += matches[0];
+        }
+        return total;
+    }
+
+    /**
+     * Cuenta las reservas que cumplen los filtros agrupándolas por el valor de una columna. Las
+     * clases y destinos reconocidos se agrupan por su nombre en {@link ReservationClass} o
+     * {@link Destinations}; el resto de valores por su texto sin espacios en los extremos.
+     *
+     * @param field columna por la que agrupar.
+     * @return recuento por valor, en el orden en que aparecen recorriendo los destinos en el orden de
+     *         {@link Destinations}; los registros sin esa columna se cuentan como {@value #MISSING}.
+     * @throws IOException si algún archivo no puede leerse.
+     */
+    public Map<String, Long> countBy(ReservationFields field) throws IOException {
+        int index = field.ordinal();
+        List<Map<String, long[]>> partials = scan(LinkedHashMap::new,
+                (reader, counts) -> counts.computeIfAbsent(groupKey(reader, index), key -> new long[1])[0]++);
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map<String, long[]> partial : partials) {
+            for (Map.Entry<String, long[]> entry : partial.entrySet()) {
+                result.merge(entry.getKey(), entry.getValue()[0], Long::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return campos de las reservas que cumplen los filtros, agrupadas por destino en el orden de
+     *         {@link Destinations} y en el orden de su archivo dentro de cada destino.
+     * @throws IOException si algún archivo no puede leerse.
+     */
+    public List<String[]> list() throws IOException {
+        return list(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Como {@link #list()}, pero cada archivo deja de leerse al reunir {@code limit} reservas.
+     *
+     * @param limit número máximo de reservas.
+     * @return las primeras {@code limit} reservas de {@link #list()}.
+     * @throws IOException si algún archivo no puede leerse.
+     */
+    public List<String[]> list(int limit) throws IOException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("El límite no puede ser negativo.");
+        }
+        List<List<String[]>> partials = scan(ArrayList::new, limit, (reader, rows) -> rows.add(reader.fields()));
+
+        List<String[]> result = new ArrayList<>();
+        for (List<String[]> rows : partials) {
+            for (String[] row : rows) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private <R> List<R> scan(Supplier<R> creator, BiConsumer<ReservationRecordReader, R> accumulator) throws IOException {
+        return scan(creator, Long.MAX_VALUE, accumulator);
+    }
+
+    /**
+     * Recorre en paralelo los archivos de los destinos admitidos.
+     *
+     * @param creator     crea el resultado parcial de cada archivo.
+     * @param limit       número máximo de registros aceptados por archivo.
+     * @param accumulator recibe cada registro que cumple los filtros.
+     * @return resultados parciales en el orden de {@link Destinations}.
+     * @throws IOException si algún archivo no puede leerse (el primero, con el resto como suprimidos)
+     *                     o el hilo se interrumpe.
+     */
+    private <R> List<R> scan(Supplier<R> creator, long limit, BiConsumer<ReservationRecordReader, R> accumulator) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (Destinations destination : DESTINATIONS) {
+            if (destinations != null && !destinations.contains(destination)) {
+                continue; // destino descartado por el filtro: su archivo no se abre
+            }
+            File file = ReservationAll.resolveDestinationFile(destination);
+            if (file.isFile()) {
+                files.add(file);
+            }
+        }
+
+        try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.QUERY)) {
+            List<R> partials = new ArrayList<>(files.size());
+            long[] scanned = new long[files.size()];
+            int threads = Math.min(parallelism, files.size());
+
+            if (threads <= 1) {
+                for (int i = 0; i < files.size(); i++) {
+                    partials.add(scanFile(files.get(i), creator, limit, accumulator, scanned, i));
+                }
+            } else {
+                int pool = POOL_COUNT.incrementAndGet();
+                AtomicInteger threadCount = new AtomicInteger();
+                ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+                    Thread thread = new Thread(task, "reservation-query-" + pool + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                try {
+                    List<Future<R>> results = new ArrayList<>(files.size());
+                    for (int i = 0; i < files.size(); i++) {
+                        File file = files.get(i);
+                        int slot = i;
+                        results.add(executor.submit(() -> scanFile(file, creator, limit, accumulator, scanned, slot)));
+                    }
+                    partials.addAll(await(results, files));
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                timer.addRows(scanned[i]);
+                timer.addBytesRead(files.get(i).length());
+            }
+            timer.success();
+            return partials;
+        }
+    }
+
+    private static <R> List<R> await(List<Future<R>> results, List<File> files) throws IOException {
+        List<R> partials = new ArrayList<>(results.size());
+        IOException failure = null;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                partials.add(results.get(i).get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                IOException error = cause instanceof IOException io
+                        ? io
+                        : new IOException("No se pudo consultar " + files.get(i).getName() + ".", cause);
+                if (failure == null) {
+                    failure = error;
+                } else {
+                    failure.addSuppressed(error);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrumpido esperando la consulta de los archivos por destino.");
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return partials;
+    }
+
+    private <R> R scanFile(File file, Supplier<R> creator, long limit, BiConsumer<ReservationRecordReader, R> accumulator,
+                           long[] scanned, int slot) throws IOException {
+        try (ReservationRecordReader reader = ReservationRecordReader.open(file)) {
+            R partial = creator.get();
+            long accepted = 0;
+            long rows = 0;
+            boolean isHeader = true;
+            while (accepted < limit && reader.next()) {
+                if (isHeader) {
+                    isHeader = false; // saltamos encabezado
+                    continue;
+                }
+                rows++;
+                if (matches(reader)) {
+                    accumulator.accept(reader, partial);
+                    accepted++;
+                }
+            }
+            scanned[slot] = rows;
+            return partial;
+        }
+    }
+
+    private boolean matches(ReservationRecordReader reader) {
+        int fieldCount = reader.fieldCount();
+        if (classes != null && (fieldCount <= CLASS || !classes.contains(reader.reservationClass(CLASS)))) {
+            return false;
+        }
+        if (destinations != null && (fieldCount <= DESTINATION || !destinations.contains(reader.destination(DESTINATION)))) {
+            return false;
+        }
+        for (int i = 0; i < predicates.length; i++) {
+            if (predicates[i] != null && (fieldCount <= i || !predicates[i].test(reader.field(i).trim()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String groupKey(ReservationRecordReader reader, int index) {
+        if (reader.fieldCount() <= index) {
+            return MISSING;
+        }
+        if (index == CLASS) {
+            ReservationClass reservationClass = reader.reservationClass(index);
+            if (reservationClass != null) {
+                return reservationClass.name();
+            }
+        } else if (index == DESTINATION) {
+            Destinations destination = reader.destination(index);
+            if (destination != null) {
+                return destination.name();
+            }
+        }
+        return reader.field(index).trim();
+    }
+}
@@ -0,0 +1,122 @@
+package Reservation;
+
+import Utils.FieldValidator;
+
+/**
+ * Reserva tipada: asiento ya separado en número y letra de fila, clase y destino como enumeraciones.
+ * Es la unidad que aceptan las APIs de ingesta en lote de {@link ReservationAll}.
+ *
+ * @param seatNumber       número de fila del asiento (1 a 3 dígitos).
+ * @param seatRow          letra del asiento ({@code A}-{@code F}).
+ * @param passengerName    nombre del pasajero.
+ * @param reservationClass clase de la reserva.
+ * @param destination      destino, o {@code null} en archivos de tres campos.
+ */
+public record ReservationRecord(int seatNumber,
+                                char seatRow,
+                                String passengerName,
+                                ReservationClass reservationClass,
+                                Destinations destination) {
+
+    /**
+     * Construye una reserva a partir de sus campos de texto, aplicando las mismas reglas que
+     * {@link Utils.Utils#validateField(String, ReservationFields)}; el nombre tampoco puede contener
+     * caracteres de control.
+     *
+     * @param seat             asiento, por ejemplo {@code 12C}.
+     * @param passengerName    nombre del pasajero.
+     * @param reservationClass nombre de la clase.
+     * @param destination      destino, o {@code null} si el archivo no incluye destinos.
+     * @return la reserva tipada.
+     * @throws IllegalArgumentException con el mensaje de validación si algún campo no es válido o el
+     *                                  destino no pertenece a {@link Destinations}.
+     */
+    public static ReservationRecord parse(String seat, String passengerName, String reservationClass, String destination) {
+        check(FieldValidator.validate(seat, ReservationFields.SEAT_NUMBER), ReservationFields.SEAT_NUMBER);
+        check(FieldValidator.validateWritableName(passengerName), ReservationFields.PASSENGER_NAME);
+        check(FieldValidator.validate(reservationClass, ReservationFields.CLASS), ReservationFields.CLASS);
+
+        Destinations parsedDestination = null;
+        if (destination != null) {
+            check(FieldValidator.validate(destination, ReservationFields.DESTINATION), ReservationFields.DESTINATION);
+            parsedDestination = Destinations.fromText(destination);
+            if (parsedDestination == null) {
+                throw new IllegalArgumentException("❌ Destino desconocido: " + destination.trim());
+            }
+        }
+
+        String trimmedSeat = seat.trim();
+        int rowPosition = trimmedSeat.length() - 1;
+        return new ReservationRecord(
+                Integer.parseInt(trimmedSeat, 0, rowPosition, 10),
+                trimmedSeat.charAt(rowPosition),
+                passengerName.trim(),
+                ReservationClass.valueOf(reservationClass.trim()),
+                parsedDestination);
+    }
+
+    /**
+     * Devuelve el asiento en su forma textual, por ejemplo {@code 12C}.
+     *
+     * @return número de asiento seguido de la letra de fila.
+     */
+    public String seat() {
+        return Integer.toString(seatNumber) + seatRow;
+    }
+
+    /**
+     * Valida la reserva con las reglas de {@link Utils.Utils#validateField(String, ReservationFields)}.
+     * El nombre tampoco puede contener caracteres de control ({@link FieldValidator#validateWritableName}),
+     * ya que se escribe tal cual como parte de una línea del maestro.
+     *
+     * @param requireDestination {@code true} si el archivo de destino tiene cuatro campos.
+     * @return {@code null} si la reserva es válida o el mensaje del primer error encontrado.
+     */
+    public String validate(boolean requireDestination) {
+        int code = (seatNumber < 0 || seatNumber > 999)
+                ? FieldValidator.INVALID_SEAT
+                : FieldValidator.validate(seat(), ReservationFields.SEAT_NUMBER);
+        if (code != FieldValidator.OK) {
+            return FieldValidator.message(code, ReservationFields.SEAT_NUMBER);
+        }
+        code = FieldValidator.validateWritableName(passengerName);
+        if (code != FieldValidator.OK) {
+            return FieldValidator.message(code, ReservationFields.PASSENGER_NAME);
+        }
+        if (reservationClass == null) {
+            return FieldValidator.message(FieldValidator.EMPTY, ReservationFields.CLASS);
+        }
+        if (requireDestination && destination == null) {
+            return FieldValidator.message(FieldValidator.EMPTY, ReservationFields.DESTINATION);
+        }
+        return null;
+    }
+
+    /**
+     * Devuelve los campos en el orden de {@link ReservationFields}, tal y como se escriben en el CSV.
+     *
+     * @param includeDestination {@code true} para incluir el destino como cuarto campo.
+     * @return campos de texto de la reserva.
+     */
+    public String[] fields(boolean includeDestination) {
+        return includeDestination
+                ? new String[]{seat(), passengerName, reservationClass.name(), destination.name()}
+                : new String[]{seat(), passengerName, reservationClass.name()};
+    }
+
+    /**
+     * Devuelve la línea CSV de la reserva con el formato de {@link ReservationAll#writeReservation()}.
+     *
+     * @param includeDestination {@code true} para incluir el destino como cuarto campo.
+     * @return línea sin separador final.
+     */
+    public String toCsv(boolean includeDestination) {
+        return String.join(", ", fields(includeDestination));
+    }
+
+    private static void check(int code, ReservationFields field) {
+        if (code != FieldValidator.OK) {
+            throw new IllegalArgumentException(FieldValidator.message(code, field));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package Reservation;
+
+/**
+ * Presentación de un informe de reservas. {@link ReservationAll#report(ReservationReportRenderer, boolean, ReservationClass...)}
+ * recorre el archivo una sola vez, entrega cada registro a {@link #row(long, String[])} (si se ha
+ * pedido el detalle) y termina con las estadísticas agregadas.
+ */
+public interface ReservationReportRenderer {
+
+    /**
+     * Se invoca antes de recorrer el archivo.
+     */
+    void begin();
+
+    /**
+     * Se invoca con cada registro cuando el informe incluye el detalle.
+     *
+     * @param index  posición del registro, empezando en 1 tras el encabezado.
+     * @param fields campos del registro.
+     */
+    void row(long index, String[] fields);
+
+    /**
+     * Se invoca al terminar el recorrido.
+     *
+     * @param statistics       estadísticas calculadas.
+     * @param reservationClass clase de reserva a destacar (opcional).
+     */
+    void end(ReservationStatistics statistics, ReservationClass... reservationClass);
+}
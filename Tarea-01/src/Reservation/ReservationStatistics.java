@@ -0,0 +1,129 @@
+package Reservation;
+
+/**
+ * Estadísticas agregadas de un archivo de reservas calculadas en una sola pasada. Todos los
+ * contadores son primitivos, por lo que la memoria necesaria es constante independientemente del
+ * número de registros.
+ *
+ * <p>Se contabilizan:</p>
+ * <ul>
+ *     <li>el total de registros,</li>
+ *     <li>los registros por {@link ReservationClass} y por {@link Destinations},</li>
+ *     <li>la matriz clase × destino,</li>
+ *     <li>la ocupación por letra de asiento (A-F).</li>
+ * </ul>
+ * Los valores que no pertenecen a los catálogos cuentan en el total pero no en los desgloses.
+ */
+public class ReservationStatistics {
+
+    /** Letras de asiento posibles, en el orden de {@link #getSeatCount(char)}. */
+    public static final String SEAT_LETTERS = "ABCDEF";
+
+    private static final ReservationClass[] CLASSES = ReservationClass.values();
+
+    private long total;
+    private final long[] byClass = new long[CLASSES.length];
+    private final long[] byDestination = new long[Destinations.values().length];
+    private final long[][] byClassAndDestination = new long[CLASSES.length][Destinations.values().length];
+    private final long[] bySeatLetter = new long[SEAT_LETTERS.length()];
+
+    /**
+     * Incorpora un registro a las estadísticas.
+     *
+     * @param row campos del registro (asiento, nombre, clase y, opcionalmente, destino).
+     */
+    public void add(String[] row) {
+        total++;
+
+        int seatLetter = (row.length > 0) ? seatLetterIndex(row[0]) : -1;
+        if (seatLetter >= 0) {
+            bySeatLetter[seatLetter]++;
+        }
+
+        ReservationClass reservationClass = (row.length > 2) ? toReservationClass(row[2]) : null;
+        Destinations destination = (row.length > 3) ? Destinations.fromText(row[3]) : null;
+
+        if (reservationClass != null) {
+            byClass[reservationClass.ordinal()]++;
+        }
+        if (destination != null) {
+            byDestination[destination.ordinal()]++;
+        }
+        if (reservationClass != null && destination != null) {
+            byClassAndDestination[reservationClass.ordinal()][destination.ordinal()]++;
+        }
+    }
+
+    /**
+     * @return número total de registros (sin contar el encabezado).
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @param reservationClass clase consultada.
+     * @return número de registros de esa clase.
+     */
+    public long getCount(ReservationClass reservationClass) {
+        return byClass[reservationClass.ordinal()];
+    }
+
+    /**
+     * @param destination destino consultado.
+     * @return número de registros con ese destino.
+     */
+    public long getCount(Destinations destination) {
+        return byDestination[destination.ordinal()];
+    }
+
+    /**
+     * @param reservationClass clase consultada.
+     * @param destination      destino consultado.
+     * @return número de registros de esa clase con ese destino.
+     */
+    public long getCount(ReservationClass reservationClass, Destinations destination) {
+        return byClassAndDestination[reservationClass.ordinal()][destination.ordinal()];
+    }
+
+    /**
+     * @param seatLetter letra de asiento (A-F).
+     * @return número de asientos ocupados con esa letra.
+     */
+    public long getSeatCount(char seatLetter) {
+        int index = SEAT_LETTERS.indexOf(seatLetter);
+        if (index < 0) {
+            throw new IllegalArgumentException("Letra de asiento no válida: " + seatLetter);
+        }
+        return bySeatLetter[index];
+    }
+
+    /**
+     * Obtiene la letra del asiento sin crear cadenas intermedias.
+     *
+     * @return posición de la letra en {@link #SEAT_LETTERS} o {@code -1} si no es válida.
+     */
+    private static int seatLetterIndex(String seat) {
+        int end = seat.length();
+        while (end > 0 && seat.charAt(end - 1) <= ' ') end--;
+        if (end == 0) {
+            return -1;
+        }
+        char letter = seat.charAt(end - 1);
+        return (letter >= 'A' && letter <= 'F') ? letter - 'A' : -1;
+    }
+
+    /**
+     * Reconoce la clase sin distinguir mayúsculas ni espacios en los extremos, igual que el filtro
+     * original de {@link ReservationAll#logguer(ReservationClass...)}.
+     */
+    private static ReservationClass toReservationClass(String value) {
+        String trimmed = value.trim();
+        for (ReservationClass reservationClass : CLASSES) {
+            if (reservationClass.name().equalsIgnoreCase(trimmed)) {
+                return reservationClass;
+            }
+        }
+        return null;
+    }
+}
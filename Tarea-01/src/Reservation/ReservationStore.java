@@ -0,0 +1,396 @@
+package Reservation;
+
+import Utils.FieldValidator;
+import Utils.ReservationMetrics;
+import Utils.ReservationRecordReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Almacén en memoria de reservas organizado por columnas de tipos primitivos: número de asiento
+ * ({@code int}), letra de fila, clase y destino ({@code byte}) y una referencia a un diccionario de
+ * nombres. Cada reserva ocupa 11 bytes más su nombre, que se guarda una sola vez aunque se repita,
+ * frente a los cinco objetos ({@code String[]} y cuatro {@code String}) por registro de la
+ * representación habitual.
+ *
+ * <p>Todas las reservas del almacén son válidas: {@link #load(File, boolean)} valida cada registro con
+ * las reglas de {@link Utils.Utils#validateField(String, ReservationFields)} al cargarlo. Los campos
+ * se guardan ya recortados, por lo que no es necesario volver a aplicar {@code trim()}.</p>
+ */
+public final class ReservationStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte NO_DESTINATION = -1;
+    private static final ReservationClass[] CLASSES = ReservationClass.values();
+    private static final Destinations[] DESTINATIONS = Destinations.values();
+
+    private final boolean hasDestination;
+    private final NamePool names = new NamePool();
+
+    private int size;
+    private int[] seatNumbers = new int[INITIAL_CAPACITY];
+    private byte[] seatRows = new byte[INITIAL_CAPACITY];
+    private byte[] classes = new byte[INITIAL_CAPACITY];
+    private byte[] destinations = new byte[INITIAL_CAPACITY];
+    private int[] nameIds = new int[INITIAL_CAPACITY];
+
+    /**
+     * Crea un almacén vacío.
+     *
+     * @param hasDestination {@code true} si las reservas incluyen destino.
+     */
+    public ReservationStore(boolean hasDestination) {
+        this.hasDestination = hasDestination;
+    }
+
+    /**
+     * Carga en un almacén todas las reservas de un archivo maestro, en CSV o binario.
+     *
+     * @param file           archivo maestro con encabezado.
+     * @param hasDestination {@code true} si los registros incluyen destino.
+     * @return almacén con las reservas en el orden del archivo.
+     * @throws IOException              si el archivo no puede leerse.
+     * @throws IllegalArgumentException si algún registro no es válido; el mensaje indica el número de
+     *                                  registro y el error de validación.
+     */
+    public static ReservationStore load(File file, boolean hasDestination) throws IOException {
+        return load(file, hasDestination, null);
+    }
+
+    /**
+     * Carga en un almacén las reservas de un archivo maestro, apartando las que tienen un destino
+     * fuera de {@link Destinations} en lugar de detener la carga.
+     *
+     * @param file           archivo maestro con encabezado.
+     * @param hasDestination {@code true} si los registros incluyen destino.
+     * @param quarantine     lista en la que se añaden, con los campos recortados, los registros
+     *                       válidos cuyo destino no pertenece al catálogo; {@code null} para tratarlos
+     *                       como error.
+     * @return almacén con las demás reservas en el orden del archivo.
+     * @throws IOException              si el archivo no puede leerse.
+     * @throws IllegalArgumentException si algún registro no es válido; el mensaje indica el número de
+     *                                  registro y el error de validación.
+     */
+    public static ReservationStore load(File file, boolean hasDestination, List<String[]> quarantine)
+            throws IOException {
+        ReservationStore store = new ReservationStore(hasDestination);
+        int expectedFields = hasDestination ? 4 : 3;
+        ReservationFields[] types = ReservationFields.values();
+
+        try (ReservationRecordReader reader = ReservationRecordReader.open(file)) {
+            boolean isHeader = true;
+            while (reader.next()) {
+                if (isHeader) {
+                    isHeader = false; // saltamos encabezado
+                    continue;
+                }
+                long recordNumber = reader.lineNumber() - 1;
+
+                if (reader instanceof BinaryReservationReader binary) {
+                    if (hasDestination && binary.destination() == null) {
+                        throw invalid(recordNumber, "el archivo binario no incluye destinos.");
+                    }
+                    store.add(binary.seatNumber(), binary.seatRow(), binary.passengerName(),
+                            binary.reservationClass(), hasDestination ? binary.destination() : null);
+                    continue;
+                }
+
+                if (reader.fieldCount() != expectedFields) {
+                    ReservationMetrics.recordFieldCountFailure();
+                    throw invalid(recordNumber, "se esperaban " + expectedFields + " campos, pero hay " + reader.fieldCount() + ".");
+                }
+                for (int i = 0; i < expectedFields; i++) {
+                    int code = FieldValidator.validate(reader.field(i), types[i]);
+                    if (code != FieldValidator.OK) {
+                        throw invalid(recordNumber, "campo " + types[i].name() + ": " + FieldValidator.message(code, types[i]));
+                    }
+                }
+
+                Destinations destination = null;
+                if (hasDestination) {
+                    destination = reader.destination(3);
+                    if (destination == null) {
+                        if (quarantine == null) {
+                            throw invalid(recordNumber, "destino desconocido: " + reader.field(3).trim());
+                        }
+                        String[] fields = reader.fields();
+                        for (int i = 0; i < fields.length; i++) {
+                            fields[i] = fields[i].trim();
+                        }
+                        quarantine.add(fields);
+                        continue;
+                    }
+                }
+
+                String seat = reader.field(0).trim();
+                int rowPosition = seat.length() - 1;
+                store.add(Integer.parseInt(seat, 0, rowPosition, 10), seat.charAt(rowPosition),
+                        reader.field(1).trim(), ReservationClass.valueOf(reader.field(2).trim()), destination);
+            }
+        }
+
+        store.trimToSize();
+        return store;
+    }
+
+    /**
+     * Añade una reserva tipada.
+     *
+     * @param reservation reserva a añadir.
+     * @throws IllegalArgumentException si la reserva no es válida.
+     */
+    public void add(ReservationRecord reservation) {
+        String error = reservation.validate(hasDestination);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        add(reservation.seatNumber(), reservation.seatRow(), reservation.passengerName(),
+                reservation.reservationClass(), reservation.destination());
+    }
+
+    private void add(int seatNumber, char seatRow, String passengerName,
+                     ReservationClass reservationClass, Destinations destination) {
+        if (size == seatNumbers.length) {
+            grow();
+        }
+        seatNumbers[size] = seatNumber;
+        seatRows[size] = (byte) seatRow;
+        classes[size] = (byte) reservationClass.ordinal();
+        destinations[size] = (hasDestination && destination != null) ? (byte) destination.ordinal() : NO_DESTINATION;
+        nameIds[size] = names.intern(passengerName.trim());
+        size++;
+    }
+
+    /**
+     * @return número de reservas almacenadas.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} si las reservas incluyen destino.
+     */
+    public boolean hasDestination() {
+        return hasDestination;
+    }
+
+    /**
+     * @return número de nombres distintos en el diccionario.
+     */
+    public int distinctNames() {
+        return names.count;
+    }
+
+    /**
+     * @param index posición de la reserva.
+     * @return número de fila del asiento.
+     */
+    public int seatNumber(int index) {
+        checkIndex(index);
+        return seatNumbers[index];
+    }
+
+    /**
+     * @param index posición de la reserva.
+     * @return letra del asiento.
+     */
+    public char seatRow(int index) {
+        checkIndex(index);
+        return (char) seatRows[index];
+    }
+
+    /**
+     * @param index posición de la reserva.
+     * @return nombre del pasajero.
+     */
+    public String passengerName(int index) {
+        checkIndex(index);
+        return names.get(nameIds[index]);
+    }
+
+    /**
+     * @param index posición de la reserva.
+     * @return clase de la reserva.
+     */
+    public ReservationClass reservationClass(int index) {
+        checkIndex(index);
+        return CLASSES[classes[index]];
+    }
+
+    /**
+     * @param index posición de la reserva.
+     * @return destino de la reserva, o {@code null} si el almacén no tiene destinos.
+     */
+    public Destinations destination(int index) {
+        checkIndex(index);
+        byte ordinal = destinations[index];
+        return ordinal == NO_DESTINATION ? null : DESTINATIONS[ordinal];
+    }
+
+    /**
+     * Materializa una reserva como {@link ReservationRecord}.
+     *
+     * @param index posición de la reserva.
+     * @return la reserva.
+     */
+    public ReservationRecord get(int index) {
+        return new ReservationRecord(seatNumber(index), seatRow(index), passengerName(index),
+                reservationClass(index), destination(index));
+    }
+
+    /**
+     * Devuelve los campos de una reserva con el formato de los registros CSV.
+     *
+     * @param index posición de la reserva.
+     * @return campos en el orden de {@link ReservationFields}.
+     */
+    public String[] fields(int index) {
+        return get(index).fields(hasDestination);
+    }
+
+    /**
+     * Agrupa las posiciones de las reservas por destino, conservando el orden del archivo dentro de
+     * cada grupo. Se resuelve con un recuento por ordinal, sin mapas ni listas de objetos.
+     *
+     * @return array indexado por el ordinal de {@link Destinations} con las posiciones de cada destino.
+     * @throws IllegalStateException si el almacén no tiene destinos.
+     */
+    public int[][] indexesByDestination() {
+        if (!hasDestination) {
+            throw new IllegalStateException("El almacén no contiene destinos.");
+        }
+        int[] counts = new int[DESTINATIONS.length];
+        for (int i = 0; i < size; i++) {
+            counts[destinations[i]]++;
+        }
+        int[][] groups = new int[DESTINATIONS.length][];
+        for (int d = 0; d < groups.length; d++) {
+            groups[d] = new int[counts[d]];
+        }
+        int[] filled = new int[DESTINATIONS.length];
+        for (int i = 0; i < size; i++) {
+            int d = destinations[i];
+            groups[d][filled[d]++] = i;
+        }
+        return groups;
+    }
+
+    /**
+     * Ajusta la capacidad de las columnas al número de reservas almacenadas.
+     */
+    public void trimToSize() {
+        seatNumbers = Arrays.copyOf(seatNumbers, size);
+        seatRows = Arrays.copyOf(seatRows, size);
+        classes = Arrays.copyOf(classes, size);
+        destinations = Arrays.copyOf(destinations, size);
+        nameIds = Arrays.copyOf(nameIds, size);
+        names.trimToSize();
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, seatNumbers.length + (seatNumbers.length >> 1));
+        seatNumbers = Arrays.copyOf(seatNumbers, capacity);
+        seatRows = Arrays.copyOf(seatRows, capacity);
+        classes = Arrays.copyOf(classes, capacity);
+        destinations = Arrays.copyOf(destinations, capacity);
+        nameIds = Arrays.copyOf(nameIds, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Reserva " + index + " fuera de rango (tamaño " + size + ").");
+        }
+    }
+
+    private static IllegalArgumentException invalid(long recordNumber, String detail) {
+        return new IllegalArgumentException("❌ Error en registro #" + recordNumber + ", " + detail);
+    }
+
+    /**
+     * Diccionario de nombres. Los nombres válidos solo contienen letras (incluidas las acentuadas
+     * del castellano) y espacios, todos representables en ISO-8859-1, así que se guardan como bytes
+     * consecutivos en un único array; una tabla hash de direccionamiento abierto sobre enteros
+     * permite reutilizar el identificador de los nombres repetidos.
+     */
+    private static final class NamePool {
+        private byte[] data = new byte[1 << 14];
+        private int dataLength;
+        private int[] offsets = new int[257];
+        private int count;
+        private int[] table = new int[512];
+
+        int intern(String name) {
+            byte[] bytes = name.getBytes(StandardCharsets.ISO_8859_1);
+            int hash = hash(bytes, 0, bytes.length);
+            int mask = table.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int id = table[slot] - 1;
+                if (id < 0) {
+                    id = append(bytes);
+                    table[slot] = id + 1;
+                    if (count * 2 > table.length) {
+                        rehash();
+                    }
+                    return id;
+                }
+                if (equalsAt(id, bytes)) {
+                    return id;
+                }
+            }
+        }
+
+        String get(int id) {
+            return new String(data, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.ISO_8859_1);
+        }
+
+        void trimToSize() {
+            data = Arrays.copyOf(data, dataLength);
+            offsets = Arrays.copyOf(offsets, count + 1);
+        }
+
+        private int append(byte[] bytes) {
+            if (dataLength + bytes.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + bytes.length));
+            }
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            System.arraycopy(bytes, 0, data, dataLength, bytes.length);
+            dataLength += bytes.length;
+            offsets[count + 1] = dataLength;
+            return count++;
+        }
+
+        private boolean equalsAt(int id, byte[] bytes) {
+            int start = offsets[id];
+            return offsets[id + 1] - start == bytes.length
+                    && Arrays.equals(data, start, start + bytes.length, bytes, 0, bytes.length);
+        }
+
+        private void rehash() {
+            int[] newTable = new int[table.length * 2];
+            int mask = newTable.length - 1;
+            for (int id = 0; id < count; id++) {
+                int slot = hash(data, offsets[id], offsets[id + 1]) & mask;
+                while (newTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newTable[slot] = id + 1;
+            }
+            table = newTable;
+        }
+
+        private static int hash(byte[] bytes, int from, int to) {
+            int h = 1;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + bytes[i];
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
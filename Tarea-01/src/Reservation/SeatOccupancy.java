@@ -0,0 +1,249 @@
+package Reservation;
+
+import Utils.ReservationRecordReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice de ocupación de asientos para detectar reservas duplicadas o por encima del cupo. Cada
+ * destino dispone de un mapa de bits con un bit por asiento (filas {@code 0}-{@code 999} por letras
+ * {@code A}-{@code F}, 6000 bits en 94 {@code long}); todos los mapas viven en un único array indexado
+ * por {@link Destinations#ordinal()}, de modo que comprobar y marcar un asiento cuesta una operación de
+ * bits, sin búsquedas ni objetos por asiento.
+ *
+ * <p>Los registros sin destino (archivos de tres columnas) se identifican con {@code null} y ocupan
+ * un mapa propio. Las instancias no son seguras entre hilos</p>
+ *
+ * <p>La ocupación de un archivo maestro se carga una vez por sesión: los canales de ingesta la
+ * toman con {@link #acquire(File, boolean)} y la devuelven al cerrarse con
+ * {@link #release(File, boolean, Snapshot)}, junto con la versión del archivo que refleja. Mientras el
+ * maestro solo lo modifiquen esos canales, abrir otro no vuelve a recorrerlo.</p>
+ */
+public final class SeatOccupancy {
+
+    /** Número de filas posibles: de {@code 0} a {@code 999}. */
+    public static final int SEAT_NUMBERS = 1000;
+    /** Número de letras por fila: de {@code A} a {@code F}. */
+    public static final int SEAT_LETTERS = 6;
+
+    private static final int WORDS_PER_DESTINATION = (SEAT_NUMBERS * SEAT_LETTERS + 63) >>> 6;
+    /** Mapa de los registros sin destino, a continuación de los de {@link Destinations}. */
+    private static final int NO_DESTINATION = Destinations.values().length;
+
+    private final long[] bits = new long[WORDS_PER_DESTINATION * (NO_DESTINATION + 1)];
+
+    /** Ocupación de los maestros ya cargados en esta sesión, por ruta y número de columnas. */
+    private static final Map<String, Snapshot> SESSIONS = new HashMap<>();
+
+    /**
+     * Calcula la posición de un asiento dentro del mapa de bits.
+     *
+     * @param seatNumber número de fila del asiento.
+     * @param seatRow    letra del asiento.
+     * @return posición del asiento o {@code -1} si está fuera de rango.
+     */
+    public static int seatIndex(int seatNumber, char seatRow) {
+        if (seatNumber < 0 || seatNumber >= SEAT_NUMBERS || seatRow < 'A' || seatRow > 'F') {
+            return -1;
+        }
+        return seatNumber * SEAT_LETTERS + (seatRow - 'A');
+    }
+
+    /**
+     * Calcula la posición de un asiento a partir de su texto (por ejemplo {@code "12A"} o
+     * {@code " 012A"}), sin crear objetos intermedios.
+     *
+     * @param seat texto del asiento.
+     * @return posición del asiento o {@code -1} si el texto no es un asiento válido.
+     */
+    public static int seatIndex(String seat) {
+        int start = 0;
+        int end = seat.length();
+        while (start < end && Character.isWhitespace(seat.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(seat.charAt(end - 1))) end--;
+
+        int digits = end - start - 1;
+        if (digits < 1 || digits > 3) {
+            return -1;
+        }
+        int number = 0;
+        for (int i = start; i < end - 1; i++) {
+            char c = seat.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return seatIndex(number, seat.charAt(end - 1));
+    }
+
+    /**
+     * Construye el mensaje de error de un asiento ya ocupado.
+     *
+     * @param seat        texto del asiento.
+     * @param destination destino, o cadena vacía si el archivo no tiene destinos.
+     * @return descripción del conflicto.
+     */
+    public static String conflictMessage(String seat, String destination) {
+        return destination.isEmpty()
+                ? "❌ El asiento " + seat.trim() + " ya está reservado."
+                : "❌ El asiento " + seat.trim() + " ya está reservado para " + destination + ".";
+    }
+
+    /**
+     * Marca un asiento como ocupado.
+     *
+     * @param destination destino de la reserva, o {@code null} si no tiene.
+     * @param seat        posición del asiento obtenida con {@code seatIndex}.
+     * @return {@code true} si el asiento estaba libre; {@code false} si ya estaba ocupado.
+     * @throws IllegalArgumentException si la posición del asiento no es válida.
+     */
+    public boolean occupy(Destinations destination, int seat) {
+        checkSeat(seat);
+        int word = slotOf(destination) * WORDS_PER_DESTINATION + (seat >>> 6);
+        long mask = 1L << seat;
+        if ((bits[word] & mask) != 0) {
+            return false;
+        }
+        bits[word] |= mask;
+        return true;
+    }
+
+    /**
+     * Indica si un asiento está ocupado.
+     *
+     * @param destination destino, o {@code null} si no tiene.
+     * @param seat        posición del asiento obtenida con {@code seatIndex}.
+     * @return {@code true} si el asiento ya está reservado.
+     */
+    public boolean isOccupied(Destinations destination, int seat) {
+        checkSeat(seat);
+        return (bits[slotOf(destination) * WORDS_PER_DESTINATION + (seat >>> 6)] & (1L << seat)) != 0;
+    }
+
+    /**
+     * Cuenta los asientos ocupados de un destino.
+     *
+     * @param destination destino, o {@code null} si no tiene.
+     * @return número de asientos reservados.
+     */
+    public int occupiedCount(Destinations destination) {
+        int count = 0;
+        int from = slotOf(destination) * WORDS_PER_DESTINATION;
+        for (int i = from; i < from + WORDS_PER_DESTINATION; i++) {
+            count += Long.bitCount(bits[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Carga la ocupación registrada en un archivo maestro. Los registros no válidos se ignoran: ya
+     * se notifican al procesar el archivo.
+     *
+     * @param masterFile     archivo maestro con encabezado; si no existe la ocupación queda vacía.
+     * @param hasDestination {@code true} si los registros incluyen destino.
+     * @return ocupación de los asientos del archivo.
+     * @throws IOException si el archivo no puede leerse.
+     */
+    static SeatOccupancy load(File masterFile, boolean hasDestination) throws IOException {
+        SeatOccupancy occupancy = new SeatOccupancy();
+        if (!masterFile.exists() || masterFile.length() == 0) {
+            return occupancy;
+        }
+
+        int destinationField = ReservationFields.DESTINATION.ordinal();
+        try (ReservationRecordReader reader = ReservationRecordReader.open(masterFile)) {
+            boolean isHeader = true;
+            while (reader.next()) {
+                if (isHeader) {
+                    isHeader = false; // saltamos encabezado
+                    continue;
+                }
+                int seat = reader.fieldCount() > 0 ? seatIndex(reader.field(0)) : -1;
+                if (seat < 0) {
+                    continue;
+                }
+                Destinations destination = null;
+                if (hasDestination) {
+                    if (reader.fieldCount() <= destinationField) {
+                        continue;
+                    }
+                    destination = reader.destination(destinationField);
+                    if (destination == null) {
+                        continue; // destino desconocido: el registro va a cuarentena
+                    }
+                }
+                occupancy.occupy(destination, seat);
+            }
+        }
+        return occupancy;
+    }
+
+    /**
+     * Toma la ocupación de un archivo maestro para un canal de ingesta: la guardada en la sesión si
+     * corresponde a la versión actual del archivo (tamaño y fecha de modificación) o, si no, la que se
+     * carga de él. Mientras el canal la usa no la comparte con otros canales.
+     *
+     * @param masterFile     archivo maestro.
+     * @param hasDestination {@code true} si los registros incluyen destino.
+     * @return ocupación y versión del archivo a la que corresponde.
+     * @throws IOException si el archivo no puede leerse.
+     */
+    static Snapshot acquire(File masterFile, boolean hasDestination) throws IOException {
+        Snapshot saved;
+        synchronized (SESSIONS) {
+            saved = SESSIONS.remove(sessionKey(masterFile, hasDestination));
+        }
+        long length = masterFile.length();
+        long lastModified = masterFile.lastModified();
+        if (saved != null && saved.length() == length && saved.lastModified() == lastModified) {
+            return saved;
+        }
+        return new Snapshot(load(masterFile, hasDestination), length, lastModified);
+    }
+
+    /**
+     * Devuelve a la sesión la ocupación de un canal de ingesta, actualizada con las reservas que ha
+     * escrito, para que el siguiente canal sobre el mismo maestro no tenga que cargarla.
+     *
+     * @param masterFile     archivo maestro.
+     * @param hasDestination {@code true} si los registros incluyen destino.
+     * @param snapshot       ocupación y versión del archivo tras la última escritura del canal.
+     */
+    static void release(File masterFile, boolean hasDestination, Snapshot snapshot) {
+        synchronized (SESSIONS) {
+            SESSIONS.put(sessionKey(masterFile, hasDestination), snapshot);
+        }
+    }
+
+    private static String sessionKey(File masterFile, boolean hasDestination) {
+        return masterFile.getAbsolutePath() + (hasDestination ? "#4" : "#3");
+    }
+
+    /**
+     * Ocupación de un archivo maestro y versión del archivo (tamaño y fecha de modificación) que refleja.
+     */
+    record Snapshot(SeatOccupancy occupancy, long length, long lastModified) {
+    }
+
+    /**
+     * @param destination destino, o {@code null} si la reserva no tiene.
+     * @return texto con el que se nombra el destino en los mensajes de conflicto.
+     */
+    public static String keyOf(Destinations destination) {
+        return destination == null ? "" : destination.name();
+    }
+
+    private static int slotOf(Destinations destination) {
+        return destination == null ? NO_DESTINATION : destination.ordinal();
+    }
+
+    private static void checkSeat(int seat) {
+        if (seat < 0 || seat >= SEAT_NUMBERS * SEAT_LETTERS) {
+            throw new IllegalArgumentException("Asiento fuera de rango: " + seat);
+        }
+    }
+}
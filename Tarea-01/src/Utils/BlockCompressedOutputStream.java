@@ -0,0 +1,172 @@
+package Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Flujo de salida que escribe en el formato de {@link BlockCompression}. El texto se acumula hasta
+ * completar un bloque y se comprime cortando en el último salto de línea, para que ningún registro
+ * quede repartido entre dos bloques; solo una línea más larga que {@link BlockCompression#BLOCK_SIZE}
+ * se corta por la mitad. Para escribir texto se envuelve en un {@link java.io.OutputStreamWriter}:
+ *
+ * <pre>
+ * try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+ *         new BlockCompressedOutputStream(file, false)))) {
+ *     writer.write("SEAT_NUMBER, PASSENGER_NAME, CLASS, DESTINATION");
+ *     writer.newLine();
+ * }
+ * </pre>
+ *
+ * <p>{@link #flush()} comprime las líneas completas pendientes; el resto se escribe al cerrar el
+ * flujo. Las instancias no son seguras entre hilos.</p>
+ */
+public final class BlockCompressedOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] pending = new byte[BlockCompression.BLOCK_SIZE];
+    private int pendingLength;
+    private byte[] block = new byte[BlockCompression.BLOCK_SIZE + 1024];
+    private boolean closed;
+
+    /**
+     * Abre un archivo comprimido para escribir en él.
+     *
+     * @param file   archivo de destino.
+     * @param append {@code true} para añadir bloques al final de un archivo comprimido existente;
+     *               {@code false} para sobrescribirlo.
+     * @throws IOException si el archivo no puede abrirse.
+     */
+    public BlockCompressedOutputStream(File file, boolean append) throws IOException {
+        this.out = new BufferedOutputStream(new FileOutputStream(file, append), 1 << 16);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (pendingLength == pending.length) {
+            writeBlocks(false);
+        }
+        pending[pendingLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (pendingLength == pending.length) {
+                writeBlocks(false);
+            }
+            int n = Math.min(len, pending.length - pendingLength);
+            System.arraycopy(b, off, pending, pendingLength, n);
+            pendingLength += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Comprime las líneas completas pendientes y vacía el archivo. Una línea sin terminar queda
+     * pendiente hasta completarse o hasta cerrar el flujo.
+     *
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlocks(false);
+        out.flush();
+    }
+
+    /**
+     * Comprime todo lo pendiente y cierra el archivo.
+     *
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlocks(true);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Escribe un bloque con el texto pendiente hasta el último salto de línea, o con todo si
+     * {@code all} es {@code true} o el búfer está lleno sin saltos de línea.
+     */
+    private void writeBlocks(boolean all) throws IOException {
+        if (pendingLength == 0) {
+            return;
+        }
+        int cut = pendingLength;
+        if (!all) {
+            int lastNewline = pendingLength - 1;
+            while (lastNewline >= 0 && pending[lastNewline] != '\n') lastNewline--;
+            if (lastNewline >= 0) {
+                cut = lastNewline + 1;
+            } else if (pendingLength < pending.length) {
+                return; // la única línea pendiente aún no está completa
+            }
+        }
+
+        writeBlock(pending, cut);
+        System.arraycopy(pending, cut, pending, 0, pendingLength - cut);
+        pendingLength -= cut;
+    }
+
+    /**
+     * Comprime {@code data[0, length)} como un miembro GZIP independiente.
+     */
+    private void writeBlock(byte[] data, int length) throws IOException {
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == block.length) {
+                block = Arrays.copyOf(block, block.length * 2);
+            }
+            compressedLength += deflater.deflate(block, compressedLength, block.length - compressedLength);
+        }
+        crc.reset();
+        crc.update(data, 0, length);
+
+        int memberSize = BlockCompression.HEADER_SIZE + compressedLength + BlockCompression.TRAILER_SIZE;
+        out.write(new byte[]{
+                0x1f, (byte) 0x8b, 8, 0x04, // firma, deflate, FEXTRA
+                0, 0, 0, 0, 0, (byte) 0xff, // mtime, xfl, sistema desconocido
+                8, 0, BlockCompression.SUBFIELD_ID1, BlockCompression.SUBFIELD_ID2, 4, 0,
+        });
+        writeIntLE(memberSize);
+        out.write(block, 0, compressedLength);
+        writeIntLE((int) crc.getValue());
+        writeIntLE(length);
+    }
+
+    private void writeIntLE(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("El flujo comprimido está cerrado.");
+        }
+    }
+}
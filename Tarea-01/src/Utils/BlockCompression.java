@@ -0,0 +1,271 @@
+package Utils;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Formato comprimido por bloques para los archivos de reservas. Un archivo comprimido es una
+ * secuencia de miembros GZIP independientes, de modo que cualquier herramienta GZIP (o
+ * {@link java.util.zip.GZIPInputStream}) lo descomprime completo. Cada miembro contiene como máximo
+ * {@value #BLOCK_SIZE} bytes de texto, termina siempre en un salto de línea y guarda su tamaño
+ * comprimido en el campo extra de la cabecera:
+ *
+ * <pre>
+ * miembro* : 1f 8b 08 04 | mtime (0) | xfl | os | XLEN = 8 | 'R' 'V' | 4 | tamaño del miembro (int LE)
+ *          | datos deflate | CRC32 (int LE) | tamaño sin comprimir (int LE)
+ * </pre>
+ *
+ * <p>Con el tamaño de cada miembro se localizan los límites de los bloques sin descomprimir nada, y
+ * como ningún registro queda partido entre dos bloques, cada uno se puede descomprimir y validar en
+ * un hilo distinto. Añadir bloques al final de un archivo existente produce de nuevo un archivo
+ * válido, lo que permite el particionado incremental sobre archivos comprimidos.</p>
+ */
+public final class BlockCompression {
+
+    /** Extensión que se añade al nombre de los archivos comprimidos. */
+    public static final String FILE_SUFFIX = ".gz";
+
+    /** Tamaño máximo del texto de cada bloque. */
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    static final int HEADER_SIZE = 20;
+    static final int TRAILER_SIZE = 8;
+    static final byte SUBFIELD_ID1 = 'R';
+    static final byte SUBFIELD_ID2 = 'V';
+
+    private static final int GZIP_ID1 = 0x1f;
+    private static final int GZIP_ID2 = 0x8b;
+    private static final int FLAG_EXTRA = 0x04;
+
+    private BlockCompression() {
+    }
+
+    /**
+     * Indica si un archivo está comprimido con GZIP comprobando su firma inicial.
+     *
+     * @param file archivo a comprobar.
+     * @return {@code true} si el archivo empieza por la firma GZIP.
+     * @throws IOException si el archivo existe pero no puede leerse.
+     */
+    public static boolean isCompressed(File file) throws IOException {
+        if (!file.isFile() || file.length() < 2) {
+            return false;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            return in.read() == GZIP_ID1 && in.read() == GZIP_ID2;
+        }
+    }
+
+    /**
+     * Devuelve el archivo comprimido correspondiente a un nombre de archivo de texto.
+     *
+     * @param fileName nombre del archivo sin comprimir (por ejemplo {@code reservas_lima.txt}).
+     * @return nombre con {@link #FILE_SUFFIX}.
+     */
+    public static String compressedName(String fileName) {
+        return fileName + FILE_SUFFIX;
+    }
+
+    /**
+     * Abre un archivo de salida, comprimido si su nombre termina en {@link #FILE_SUFFIX}. Al
+     * sobrescribir se elimina la otra variante del mismo archivo ({@code reservas_lima.txt} o
+     * {@code reservas_lima.txt.gz}), para que las consultas no encuentren una versión antigua.
+     *
+     * @param file   archivo de salida.
+     * @param append {@code true} para añadir al final del archivo existente.
+     * @return flujo sin búfer sobre el archivo, o {@link BlockCompressedOutputStream} si se comprime.
+     * @throws IOException si el archivo no puede abrirse.
+     */
+    public static OutputStream newOutputStream(File file, boolean append) throws IOException {
+        if (!append) {
+            deleteOtherVariant(file);
+        }
+        return file.getName().endsWith(FILE_SUFFIX)
+                ? new BlockCompressedOutputStream(file, append)
+                : new FileOutputStream(file, append);
+    }
+
+    /**
+     * Elimina la otra variante de un archivo de salida: {@code reservas_lima.txt.gz} para
+     * {@code reservas_lima.txt} y viceversa.
+     *
+     * @param file archivo de salida.
+     * @throws IOException si la otra variante existe y no puede eliminarse.
+     */
+    public static void deleteOtherVariant(File file) throws IOException {
+        String path = file.getPath();
+        Files.deleteIfExists(Path.of(path.endsWith(FILE_SUFFIX)
+                ? path.substring(0, path.length() - FILE_SUFFIX.length())
+                : path + FILE_SUFFIX));
+    }
+
+    /**
+     * Localiza los bloques de un archivo comprimido leyendo solo sus cabeceras.
+     *
+     * @param channel canal del archivo comprimido.
+     * @return posiciones de inicio de cada bloque seguidas del tamaño del archivo, o {@code null} si
+     *         algún miembro no indica su tamaño (archivo GZIP generado por otra herramienta).
+     * @throws IOException si el archivo no puede leerse o está truncado.
+     */
+    public static long[] blockOffsets(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long[] offsets = new long[16];
+        int count = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        long position = 0;
+        while (position < size) {
+            header.clear();
+            while (header.hasRemaining()) {
+                if (channel.read(header, position + header.position()) < 0) {
+                    throw new EOFException("Cabecera de bloque incompleta en el byte " + position);
+                }
+            }
+            int blockSize = blockSize(header, 0);
+            if (blockSize < 0) {
+                return null;
+            }
+            if (count + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count++] = position;
+            position += blockSize;
+        }
+        if (position != size) {
+            throw new EOFException("El último bloque del archivo comprimido está incompleto.");
+        }
+        offsets[count++] = size;
+        return Arrays.copyOf(offsets, count);
+    }
+
+    /**
+     * Descomprime los bloques completos que ocupan {@code [start, end)}.
+     *
+     * @param channel canal del archivo comprimido.
+     * @param start   inicio del primer bloque, obtenido con {@link #blockOffsets(FileChannel)}.
+     * @param end     fin del último bloque.
+     * @return texto de los bloques, sin decodificar.
+     * @throws IOException si los bloques no pueden leerse o están dañados.
+     */
+    public static byte[] inflate(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(Math.toIntExact(end - start)).order(ByteOrder.LITTLE_ENDIAN);
+        while (compressed.hasRemaining()) {
+            if (channel.read(compressed, start + compressed.position()) < 0) {
+                throw new EOFException("El archivo comprimido terminó antes de lo esperado.");
+            }
+        }
+
+        byte[] text = new byte[BLOCK_SIZE];
+        int length = 0;
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        try {
+            int position = 0;
+            while (position < compressed.capacity()) {
+                int blockSize = position + HEADER_SIZE <= compressed.capacity() ? blockSize(compressed, position) : -1;
+                if (blockSize < HEADER_SIZE + TRAILER_SIZE || position + blockSize > compressed.capacity()) {
+                    throw new IOException("Bloque comprimido no válido en el byte " + (start + position));
+                }
+                int expectedCrc = compressed.getInt(position + blockSize - TRAILER_SIZE);
+                int expectedLength = compressed.getInt(position + blockSize - Integer.BYTES);
+                if (expectedLength < 0 || expectedLength > BLOCK_SIZE) {
+                    throw new IOException("Bloque comprimido no válido en el byte " + (start + position));
+                }
+                if (length + expectedLength > text.length) {
+                    text = Arrays.copyOf(text, Math.max(length + expectedLength, text.length * 2));
+                }
+
+                inflater.reset();
+                inflater.setInput(compressed.array(), position + HEADER_SIZE, blockSize - HEADER_SIZE - TRAILER_SIZE);
+                int inflated = 0;
+                while (inflated < expectedLength && !inflater.finished()) {
+                    int n = inflater.inflate(text, length + inflated, expectedLength - inflated);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    inflated += n;
+                }
+                crc.reset();
+                crc.update(text, length, inflated);
+                if (inflated != expectedLength || (int) crc.getValue() != expectedCrc) {
+                    throw new IOException("Bloque comprimido dañado en el byte " + (start + position));
+                }
+                length += inflated;
+                position += blockSize;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloque comprimido dañado: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+        return Arrays.copyOf(text, length);
+    }
+
+    /**
+     * Comprime un archivo completo (por ejemplo el maestro, para archivarlo). El resultado se puede
+     * consultar con {@link ReservationRecordReader#open(File)} igual que el original.
+     *
+     * @param source archivo de texto de origen.
+     * @param target archivo comprimido de destino; se sobrescribe si existe.
+     * @return tamaño del archivo comprimido en bytes.
+     * @throws IOException si el origen no puede leerse o el destino no puede escribirse.
+     */
+    public static long compress(File source, File target) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(source), BLOCK_SIZE);
+             BlockCompressedOutputStream out = new BlockCompressedOutputStream(target, false)) {
+            in.transferTo(out);
+        }
+        return target.length();
+    }
+
+    /**
+     * Comprueba si un archivo comprimido admite descompresión por bloques, es decir, si todos sus
+     * miembros indican su tamaño.
+     *
+     * @param file archivo comprimido.
+     * @return {@code true} si pueden localizarse todos sus bloques.
+     * @throws IOException si el archivo no puede leerse o está truncado.
+     */
+    public static boolean hasBlocks(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return blockOffsets(channel) != null;
+        }
+    }
+
+    /**
+     * Lee el tamaño de un miembro a partir de su cabecera.
+     *
+     * @param buffer búfer en orden little endian con al menos {@link #HEADER_SIZE} bytes desde {@code offset}.
+     * @param offset inicio del miembro dentro del búfer.
+     * @return tamaño total del miembro o {@code -1} si la cabecera no es de este formato.
+     * @throws IOException si los bytes no son una cabecera GZIP.
+     */
+    private static int blockSize(ByteBuffer buffer, int offset) throws IOException {
+        if ((buffer.get(offset) & 0xFF) != GZIP_ID1 || (buffer.get(offset + 1) & 0xFF) != GZIP_ID2
+                || buffer.get(offset + 2) != 8) {
+            throw new IOException("El archivo no es un archivo GZIP válido.");
+        }
+        if ((buffer.get(offset + 3) & 0xFF) != FLAG_EXTRA || buffer.getShort(offset + 10) != 8
+                || buffer.get(offset + 12) != SUBFIELD_ID1 || buffer.get(offset + 13) != SUBFIELD_ID2
+                || buffer.getShort(offset + 14) != 4) {
+            return -1;
+        }
+        return buffer.getInt(offset + 16);
+    }
+}
@@ -0,0 +1,411 @@
+package Utils;
+
+import Reservation.SeatOccupancy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Motor de validación por bloques utilizado por
+ * {@link Utils#processReservationFileParallel(File, int, int)}. El archivo se reparte en rangos de
+ * bytes que siempre terminan justo después de un salto de línea, cada rango se valida en un hilo del
+ * {@link ForkJoinPool} y los resultados parciales se combinan en el mismo orden en que aparecen en el
+ * archivo. Los archivos comprimidos con {@link BlockCompression} se reparten por grupos de bloques y
+ * cada hilo descomprime los suyos. Los conflictos de asiento dependen de qué registro aparece antes,
+ * por lo que se resuelven después de combinar los bloques
+ * ({@link Result#resolveSeatConflicts(int)}).
+ */
+final class ChunkedReservationValidator {
+
+    /**
+     * Tamaño mínimo de cada bloque. Por debajo de este valor el coste de coordinar las tareas supera
+     * al de validar las líneas.
+     */
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+
+    /**
+     * Tamaño máximo de cada bloque, para que ningún hilo tenga que decodificar de una vez más texto
+     * del que cabe cómodamente en memoria.
+     */
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+
+    /**
+     * Número de bloques por hilo, para repartir mejor la carga cuando unas zonas del archivo tienen
+     * más errores que otras.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Relación aproximada entre el texto de un archivo de reservas y su tamaño comprimido, usada para
+     * acotar los grupos de bloques comprimidos.
+     */
+    private static final int COMPRESSION_RATIO = 8;
+
+    private ChunkedReservationValidator() {
+    }
+
+    /**
+     * Registro descartado junto con la descripción del error.
+     *
+     * @param lineNumber  número de línea del registro, relativo al inicio de la porción validada.
+     * @param row         registro que provocó la incidencia.
+     * @param description detalle del error encontrado.
+     */
+    record RowError(long lineNumber, String[] row, String description) {
+    }
+
+    /**
+     * Resultado de validar una porción del archivo (o el archivo completo).
+     */
+    static final class Result {
+        private final Map<String, List<String[]>> validByDestination = new LinkedHashMap<>();
+        private final Map<String, LineNumbers> validLines = new HashMap<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private long lineCount;
+
+        /**
+         * @return registros válidos agrupados por archivo de salida en orden de aparición.
+         */
+        Map<String, List<String[]>> validByDestination() {
+            return validByDestination;
+        }
+
+        /**
+         * @return registros inválidos en orden de aparición.
+         */
+        List<RowError> errors() {
+            return errors;
+        }
+
+        /**
+         * Añade a este resultado el de un bloque posterior, conservando el orden de aparición y
+         * desplazando sus números de línea.
+         *
+         * @param next resultado del bloque siguiente.
+         * @return este mismo resultado, ya combinado.
+         */
+        Result append(Result next) {
+            for (Map.Entry<String, List<String[]>> entry : next.validByDestination.entrySet()) {
+                validByDestination.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(entry.getValue());
+                validLines.computeIfAbsent(entry.getKey(), k -> new LineNumbers())
+                        .addAll(next.validLines.get(entry.getKey()), lineCount);
+            }
+            for (RowError error : next.errors) {
+                errors.add(new RowError(lineCount + error.lineNumber(), error.row(), error.description()));
+            }
+            lineCount += next.lineCount;
+            return this;
+        }
+
+        /**
+         * Retira de los registros válidos los que ocupan un asiento ya reservado en su destino por un
+         * registro anterior y los añade a los errores, que quedan ordenados por número de línea igual
+         * que en la validación secuencial. Debe llamarse sobre el resultado ya combinado.
+         *
+         * @param expectedFieldsCount número de columnas de los registros.
+         */
+        void resolveSeatConflicts(int expectedFieldsCount) {
+            SeatOccupancy occupancy = new SeatOccupancy();
+            boolean conflicts = false;
+            for (Map.Entry<String, List<String[]>> entry : validByDestination.entrySet()) {
+                List<String[]> rows = entry.getValue();
+                LineNumbers lines = validLines.get(entry.getKey());
+                int kept = 0;
+                for (int i = 0; i < rows.size(); i++) {
+                    String[] row = rows.get(i);
+                    String conflict = Utils.occupySeat(occupancy, row,
+                            Utils.destinationOf(row, expectedFieldsCount), expectedFieldsCount);
+                    if (conflict == null) {
+                        rows.set(kept++, row);
+                    } else {
+                        errors.add(new RowError(lines.get(i), row, conflict));
+                        conflicts = true;
+                    }
+                }
+                rows.subList(kept, rows.size()).clear();
+            }
+            validLines.clear();
+            if (conflicts) {
+                errors.sort(Comparator.comparingLong(RowError::lineNumber));
+            }
+        }
+    }
+
+    /**
+     * Números de línea de los registros válidos de un destino, sin cajas por cada valor.
+     */
+    private static final class LineNumbers {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long lineNumber) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = lineNumber;
+        }
+
+        void addAll(LineNumbers other, long offset) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            for (int i = 0; i < other.size; i++) {
+                values[size++] = other.values[i] + offset;
+            }
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+    }
+
+    /**
+     * Valida el archivo completo en paralelo.
+     *
+     * @param inputFile           archivo CSV que contiene las reservas a evaluar, sin comprimir o
+     *                            comprimido por bloques.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @param parallelism         número de hilos de validación.
+     * @return registros válidos por destino y errores, en el orden original del archivo. Los
+     *         conflictos de asiento se resuelven aparte con {@link Result#resolveSeatConflicts(int)}.
+     * @throws IOException si ocurre un problema al leer el archivo o, si está comprimido, sus bloques
+     *                     no pueden localizarse.
+     */
+    static Result validate(File inputFile, int expectedFieldsCount, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("El paralelismo debe ser al menos 1.");
+        }
+
+        boolean compressed = BlockCompression.isCompressed(inputFile);
+        try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            long[] boundaries = compressed
+                    ? computeBlockBoundaries(channel, parallelism)
+                    : computeBoundaries(channel, parallelism);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                return pool.invoke(new ChunkTask(channel, compressed, boundaries, 0, boundaries.length - 1,
+                        expectedFieldsCount));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Calcula los límites de los bloques. Cada límite intermedio se desplaza hasta el byte
+     * siguiente al primer {@code '\n'} encontrado, de modo que ninguna línea queda partida.
+     *
+     * @param channel     canal del archivo de entrada.
+     * @param parallelism número de hilos de validación.
+     * @return posiciones de inicio de cada bloque seguidas del tamaño del archivo.
+     * @throws IOException si ocurre un problema al leer el archivo.
+     */
+    private static long[] computeBoundaries(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long chunkSize = chunkSize(size, parallelism);
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long position = chunkSize;
+        while (position < size) {
+            long lineEnd = findNextLineStart(channel, position, probe);
+            if (lineEnd >= size) break;
+            boundaries.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        boundaries.add(size);
+
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Calcula los límites de los bloques de un archivo comprimido agrupando bloques comprimidos
+     * consecutivos; como cada bloque termina en un salto de línea, ninguna línea queda partida.
+     *
+     * @param channel     canal del archivo comprimido.
+     * @param parallelism número de hilos de validación.
+     * @return posiciones de inicio de cada grupo seguidas del tamaño del archivo.
+     * @throws IOException si el archivo no puede leerse o algún bloque no indica su tamaño.
+     */
+    private static long[] computeBlockBoundaries(FileChannel channel, int parallelism) throws IOException {
+        long[] offsets = BlockCompression.blockOffsets(channel);
+        if (offsets == null) {
+            throw new IOException("El archivo comprimido no está dividido en bloques.");
+        }
+        // Cada byte comprimido ocupa varios al descomprimirse: se limita el grupo para acotar la memoria de cada hilo
+        long chunkSize = Math.min(MAX_CHUNK_SIZE / COMPRESSION_RATIO, chunkSize(channel.size(), parallelism));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long groupStart = 0;
+        for (int i = 1; i < offsets.length - 1; i++) {
+            if (offsets[i] - groupStart >= chunkSize) {
+                boundaries.add(offsets[i]);
+                groupStart = offsets[i];
+            }
+        }
+        boundaries.add(offsets[offsets.length - 1]);
+
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long chunkSize(long size, int parallelism) {
+        return Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / ((long) parallelism * CHUNKS_PER_THREAD)));
+    }
+
+    /**
+     * Busca el primer {@code '\n'} a partir de la posición indicada.
+     *
+     * @param channel  canal del archivo de entrada.
+     * @param position posición desde la que se busca.
+     * @param probe    búfer reutilizable para la lectura.
+     * @return posición siguiente al salto de línea o el tamaño del archivo si no hay más líneas.
+     * @throws IOException si ocurre un problema al leer el archivo.
+     */
+    private static long findNextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        long size = channel.size();
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Valida el texto de un bloque. Los saltos de línea se interpretan igual que
+     * {@link java.io.BufferedReader#readLine()}: {@code "\n"}, {@code "\r"} o {@code "\r\n"}.
+     *
+     * @param text                contenido del bloque ya decodificado.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @return resultado parcial del bloque.
+     */
+    private static Result validateText(String text, int expectedFieldsCount) {
+        Result result = new Result();
+
+        int start = 0;
+        int length = text.length();
+        while (start < length) {
+            int end = start;
+            while (end < length && text.charAt(end) != '\n' && text.charAt(end) != '\r') end++;
+
+            validateLine(text.substring(start, end), expectedFieldsCount, result);
+
+            if (end < length && text.charAt(end) == '\r' && end + 1 < length && text.charAt(end + 1) == '\n') {
+                end++;
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Valida una línea y la añade al resultado parcial.
+     *
+     * @param line                línea sin terminador.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @param result              resultado parcial del bloque.
+     */
+    private static void validateLine(String line, int expectedFieldsCount, Result result) {
+        long lineNumber = ++result.lineCount;
+        String[] row = line.split(",");
+        String error = Utils.validateRow(row, expectedFieldsCount);
+        if (error != null) {
+            result.errors.add(new RowError(lineNumber, row, error));
+            return;
+        }
+        String outputFile = Utils.outputFileOf(Utils.destinationOf(row, expectedFieldsCount), expectedFieldsCount);
+        result.validByDestination.computeIfAbsent(outputFile, k -> new ArrayList<>()).add(row);
+        result.validLines.computeIfAbsent(outputFile, k -> new LineNumbers()).add(lineNumber);
+    }
+
+    /**
+     * Tarea que valida el rango de bloques {@code [from, to)} dividiéndolo por la mitad hasta llegar
+     * a un único bloque. Los resultados se combinan de izquierda a derecha para preservar el orden.
+     */
+    private static final class ChunkTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final boolean compressed;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+        private final int expectedFieldsCount;
+
+        ChunkTask(FileChannel channel, boolean compressed, long[] boundaries, int from, int to, int expectedFieldsCount) {
+            this.channel = channel;
+            this.compressed = compressed;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+            this.expectedFieldsCount = expectedFieldsCount;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= 1) {
+                return validateChunk(from);
+            }
+
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(channel, compressed, boundaries, from, middle, expectedFieldsCount);
+            ChunkTask right = new ChunkTask(channel, compressed, boundaries, middle, to, expectedFieldsCount);
+            right.fork();
+            Result leftResult = left.compute();
+            return leftResult.append(right.join());
+        }
+
+        /**
+         * Lee (y descomprime, si procede) y valida un bloque concreto.
+         *
+         * @param index índice del bloque dentro de {@code boundaries}.
+         * @return resultado parcial del bloque.
+         */
+        private Result validateChunk(int index) {
+            long start = boundaries[index];
+            long readStart = System.nanoTime();
+            ByteBuffer buffer;
+            try {
+                if (compressed) {
+                    buffer = ByteBuffer.wrap(BlockCompression.inflate(channel, start, boundaries[index + 1]));
+                } else {
+                    buffer = ByteBuffer.allocate(Math.toIntExact(boundaries[index + 1] - start));
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, start + buffer.position()) < 0) break;
+                    }
+                    buffer.flip();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ReservationMetrics.recordRead(buffer.remaining(), System.nanoTime() - readStart);
+            String text = Charset.defaultCharset().decode(buffer).toString();
+            return validateText(text, expectedFieldsCount);
+        }
+    }
+}
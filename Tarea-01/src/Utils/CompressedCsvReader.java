@@ -0,0 +1,169 @@
+package Utils;
+
+import Reservation.Destinations;
+import Reservation.ReservationClass;
+import Reservation.ReservationFields;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Lector de archivos CSV de reservas comprimidos con GZIP, incluidos los escritos con
+ * {@link BlockCompressedOutputStream}. El archivo se descomprime en memoria por ventanas que
+ * terminan en un salto de línea y cada ventana se recorre con {@link MappedCsvReader}, por lo que los
+ * registros son exactamente los mismos que se obtendrían del archivo sin comprimir. Nunca se
+ * escribe el texto descomprimido en disco.
+ */
+public final class CompressedCsvReader implements ReservationRecordReader {
+
+    private static final int WINDOW_SIZE = 1 << 20;
+
+    private final InputStream in;
+    private byte[] window = new byte[WINDOW_SIZE];
+    private int windowLength;
+    private int consumed;
+    private boolean endOfInput;
+
+    private MappedCsvReader current;
+    private long lineBase;
+
+    private CompressedCsvReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Abre un archivo comprimido para su lectura.
+     *
+     * @param file archivo CSV comprimido con GZIP.
+     * @return lector posicionado antes del primer registro.
+     * @throws FileNotFoundException si el archivo no existe o no es un fichero regular.
+     * @throws IOException           si el archivo no puede abrirse o no es un archivo GZIP.
+     */
+    public static CompressedCsvReader open(File file) throws IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        InputStream raw = new FileInputStream(file);
+        try {
+            return new CompressedCsvReader(new GZIPInputStream(new BufferedInputStream(raw, 1 << 16), 1 << 16));
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Avanza al siguiente registro, descomprimiendo la siguiente ventana cuando se agota la actual.
+     *
+     * @return {@code true} si hay un registro disponible o {@code false} al llegar al final.
+     * @throws IOException si el archivo no puede leerse o está dañado.
+     */
+    @Override
+    public boolean next() throws IOException {
+        while (current == null || !current.next()) {
+            if (current != null) {
+                lineBase += current.lineNumber();
+            }
+            if (!fill()) {
+                current = null;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int fieldCount() {
+        return current.fieldCount();
+    }
+
+    @Override
+    public String field(int index) {
+        return current.field(index);
+    }
+
+    @Override
+    public String[] fields() {
+        return current.fields();
+    }
+
+    @Override
+    public Destinations destination(int index) {
+        return current.destination(index);
+    }
+
+    @Override
+    public ReservationClass reservationClass(int index) {
+        return current.reservationClass(index);
+    }
+
+    @Override
+    public int validate(int index, ReservationFields reservationField) {
+        return current.validate(index, reservationField);
+    }
+
+    @Override
+    public ByteBuffer canonicalBytes(Destinations destination) {
+        return current.canonicalBytes(destination);
+    }
+
+    @Override
+    public long lineNumber() {
+        return lineBase + current.lineNumber();
+    }
+
+    /**
+     * Cierra el archivo comprimido.
+     *
+     * @throws IOException si el archivo no puede cerrarse.
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Prepara la siguiente ventana: conserva la línea incompleta de la anterior, descomprime hasta
+     * llenar el búfer y corta tras el último salto de línea.
+     *
+     * @return {@code false} si no queda texto por leer.
+     */
+    private boolean fill() throws IOException {
+        int carried = windowLength - consumed;
+        System.arraycopy(window, consumed, window, 0, carried);
+        windowLength = carried;
+        consumed = 0;
+
+        while (true) {
+            if (!endOfInput) {
+                long start = System.nanoTime();
+                int read = in.readNBytes(window, windowLength, window.length - windowLength);
+                ReservationMetrics.recordRead(read, System.nanoTime() - start);
+                windowLength += read;
+                endOfInput = windowLength < window.length;
+            }
+            if (windowLength == 0) {
+                return false;
+            }
+
+            int cut = windowLength;
+            if (!endOfInput) {
+                while (cut > 0 && window[cut - 1] != '\n') cut--;
+            }
+            if (cut > 0) {
+                consumed = cut;
+                current = MappedCsvReader.wrap(ByteBuffer.wrap(window, 0, cut));
+                return true;
+            }
+            // Una sola línea ocupa toda la ventana: se amplía y se sigue descomprimiendo.
+            window = Arrays.copyOf(window, window.length * 2);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package Utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Destino de los errores de validación que permanece abierto durante todo el procesamiento. Las
+ * entradas se acumulan en un búfer y se vuelcan al disco por lotes, y la marca temporal se formatea
+ * como mucho una vez por segundo.
+ *
+ * <p>El archivo solo se crea al registrar el primer error, de modo que su ausencia sigue indicando
+ * que no hubo incidencias. En modo estructurado cada entrada incluye el número de línea del archivo
+ * de origen en lugar del registro completo:</p>
+ * <pre>
+ * 2025-10-04 10:15:02, line=17, ❌ La clase debe ser ECONOMY, BUSINESS o FIRST.
+ * </pre>
+ */
+public class ErrorLogSink implements Closeable {
+
+    /**
+     * Número de entradas que se acumulan antes de volcar el búfer al disco.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File logFile;
+    private final boolean structured;
+    private final int batchSize;
+
+    private BufferedWriter writer;
+    private int pendingEntries;
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedTimestamp;
+
+    /**
+     * Crea un destino de errores en formato clásico (registro completo) con el tamaño de lote por
+     * defecto.
+     *
+     * @param logFile archivo donde se almacenarán los errores; se añade al final si ya existe.
+     */
+    public ErrorLogSink(File logFile) {
+        this(logFile, false, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Crea un destino de errores.
+     *
+     * @param logFile    archivo donde se almacenarán los errores; se añade al final si ya existe.
+     * @param structured {@code true} para escribir el número de línea en lugar del registro.
+     * @param batchSize  número de entradas que se acumulan antes de volcar al disco.
+     */
+    public ErrorLogSink(File logFile, boolean structured, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser al menos 1.");
+        }
+        this.logFile = logFile;
+        this.structured = structured;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Registra un error.
+     *
+     * @param lineNumber  número de línea (empezando en 1) del registro en el archivo de origen.
+     * @param row         registro que provocó la incidencia.
+     * @param description detalle del error encontrado.
+     * @throws IOException si no se puede escribir en el log.
+     */
+    public void log(long lineNumber, String[] row, String description) throws IOException {
+        if (writer == null) {
+            writer = new BufferedWriter(new FileWriter(logFile, true), BUFFER_SIZE);
+        }
+
+        writer.write(timestamp());
+        writer.write(", ");
+        if (structured) {
+            writer.write("line=");
+            writer.write(Long.toString(lineNumber));
+        } else {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) writer.write(',');
+                writer.write(row[i]);
+            }
+        }
+        writer.write(", ");
+        writer.write(description);
+        writer.write(System.lineSeparator());
+
+        if (++pendingEntries >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Vuelca al disco las entradas pendientes.
+     *
+     * @throws IOException si no se puede escribir en el log.
+     */
+    public void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        pendingEntries = 0;
+    }
+
+    /**
+     * Vuelca las entradas pendientes y cierra el archivo.
+     *
+     * @throws IOException si no se puede escribir en el log.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        pendingEntries = 0;
+    }
+
+    /**
+     * Devuelve la marca temporal actual en UTC, reutilizando el texto ya formateado mientras no
+     * cambie el segundo.
+     */
+    private String timestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).format(TIMESTAMP_FORMAT);
+        }
+        return cachedTimestamp;
+    }
+}
@@ -0,0 +1,180 @@
+package Utils;
+
+import Reservation.ReservationFields;
+
+/**
+ * Validadores de campos sin expresiones regulares ni reservas de memoria. Trabajan directamente
+ * sobre un {@link CharSequence} (o un rango del mismo) y devuelven un código de error primitivo; el
+ * mensaje descriptivo solo se construye con {@link #message(int, ReservationFields)} cuando hay que
+ * informar del fallo.
+ *
+ * <p>Las reglas son exactamente las de {@link Utils#validateField(String, ReservationFields)}, que
+ * delega en esta clase. Cada valor rechazado se cuenta en {@link ReservationMetrics} por campo y
+ * código; los valores válidos no tocan ningún contador.</p>
+ */
+public final class FieldValidator {
+
+    /** El valor es válido. */
+    public static final int OK = 0;
+    /** El valor está vacío o solo contiene espacios. */
+    public static final int EMPTY = 1;
+    /** El asiento no sigue el patrón {@code \d{1,3}[A-F]}. */
+    public static final int INVALID_SEAT = 2;
+    /** El nombre contiene caracteres distintos de letras y espacios. */
+    public static final int INVALID_NAME = 3;
+    /** La clase no es ECONOMY, BUSINESS ni FIRST. */
+    public static final int INVALID_CLASS = 4;
+    /** El destino tiene menos de tres caracteres. */
+    public static final int DESTINATION_TOO_SHORT = 5;
+
+    private FieldValidator() {
+    }
+
+    /**
+     * Valida un valor completo.
+     *
+     * @param value            valor a validar; {@code null} se considera vacío.
+     * @param reservationField tipo de campo que determina la validación.
+     * @return {@link #OK} o el código del error encontrado.
+     */
+    public static int validate(CharSequence value, ReservationFields reservationField) {
+        if (value == null) {
+            ReservationMetrics.recordRuleFailure(reservationField, EMPTY);
+            return EMPTY;
+        }
+        return validate(value, 0, value.length(), reservationField);
+    }
+
+    /**
+     * Valida el rango {@code [start, end)} de una secuencia de caracteres. Los espacios de los
+     * extremos se ignoran con el mismo criterio que {@link String#trim()}.
+     *
+     * @param value            secuencia que contiene el valor.
+     * @param start            posición inicial (incluida).
+     * @param end              posición final (excluida).
+     * @param reservationField tipo de campo que determina la validación.
+     * @return {@link #OK} o el código del error encontrado.
+     */
+    public static int validate(CharSequence value, int start, int end, ReservationFields reservationField) {
+        int code = check(value, start, end, reservationField);
+        if (code != OK) {
+            ReservationMetrics.recordRuleFailure(reservationField, code);
+        }
+        return code;
+    }
+
+    /**
+     * Valida un nombre que se escribirá tal cual en el maestro, como los de
+     * {@link Reservation.ReservationRecord}. Además de las reglas de
+     * {@link #validate(CharSequence, ReservationFields)} rechaza los caracteres de control, también en
+     * los extremos: un salto de línea partiría el registro en dos. Al leer un CSV no hace falta, porque
+     * cada línea llega ya sin separadores.
+     *
+     * @param value nombre a validar; {@code null} se considera vacío.
+     * @return {@link #OK} o el código del error encontrado.
+     */
+    public static int validateWritableName(CharSequence value) {
+        int code = validate(value, ReservationFields.PASSENGER_NAME);
+        if (code == OK) {
+            for (int i = 0; i < value.length(); i++) {
+                if (Character.isISOControl(value.charAt(i))) {
+                    ReservationMetrics.recordRuleFailure(ReservationFields.PASSENGER_NAME, INVALID_NAME);
+                    return INVALID_NAME;
+                }
+            }
+        }
+        return code;
+    }
+
+    private static int check(CharSequence value, int start, int end, ReservationFields reservationField) {
+        while (start < end && value.charAt(start) <= ' ') start++;
+        while (end > start && value.charAt(end - 1) <= ' ') end--;
+
+        if (start == end) {
+            return EMPTY;
+        }
+
+        return switch (reservationField) {
+            case SEAT_NUMBER -> isSeat(value, start, end) ? OK : INVALID_SEAT;
+            case PASSENGER_NAME -> isName(value, start, end) ? OK : INVALID_NAME;
+            case CLASS -> isReservationClass(value, start, end) ? OK : INVALID_CLASS;
+            case DESTINATION -> (end - start >= 3) ? OK : DESTINATION_TOO_SHORT;
+        };
+    }
+
+    /**
+     * Construye el mensaje asociado a un código de error.
+     *
+     * @param code             código devuelto por {@code validate}.
+     * @param reservationField campo validado.
+     * @return {@code null} si el código es {@link #OK} o el mensaje descriptivo del error.
+     */
+    public static String message(int code, ReservationFields reservationField) {
+        return switch (code) {
+            case OK -> null;
+            case EMPTY -> "⚠️ El campo " + reservationField.name() + " no puede estar vacío.";
+            case INVALID_SEAT -> "❌ El número de asiento debe ser de 1 a 3 dígitos seguidos de una letra A-F (ej: 12C).";
+            case INVALID_NAME -> "❌ El nombre solo puede contener letras y espacios.";
+            case INVALID_CLASS -> "❌ La clase debe ser ECONOMY, BUSINESS o FIRST.";
+            case DESTINATION_TOO_SHORT -> "❌ El destino debe tener al menos 3 caracteres.";
+            default -> throw new IllegalArgumentException("Código de validación desconocido: " + code);
+        };
+    }
+
+    /**
+     * Equivalente a {@code \d{1,3}[A-F]}.
+     */
+    private static boolean isSeat(CharSequence value, int start, int end) {
+        int digits = end - start - 1;
+        if (digits < 1 || digits > 3) {
+            return false;
+        }
+        for (int i = start; i < end - 1; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        char letter = value.charAt(end - 1);
+        return letter >= 'A' && letter <= 'F';
+    }
+
+    /**
+     * Equivalente a {@code [A-Za-zÁÉÍÓÚÑáéíóúñ\s]+}.
+     */
+    private static boolean isName(CharSequence value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            boolean allowed = (c >= 'A' && c <= 'Z')
+                    || (c >= 'a' && c <= 'z')
+                    || c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r'
+                    || c == 'Á' || c == 'É' || c == 'Í' || c == 'Ó' || c == 'Ú' || c == 'Ñ'
+                    || c == 'á' || c == 'é' || c == 'í' || c == 'ó' || c == 'ú' || c == 'ñ';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Equivalente a {@code ECONOMY|BUSINESS|FIRST}.
+     */
+    private static boolean isReservationClass(CharSequence value, int start, int end) {
+        return regionEquals(value, start, end, "ECONOMY")
+                || regionEquals(value, start, end, "BUSINESS")
+                || regionEquals(value, start, end, "FIRST");
+    }
+
+    private static boolean regionEquals(CharSequence value, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (value.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
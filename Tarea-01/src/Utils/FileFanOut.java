@@ -0,0 +1,178 @@
+package Utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generación de varios archivos de salida a la vez. Cada archivo se escribe en su propio hilo con
+ * {@link ReservationCsvWriter#openAtomic(File)}, de modo que un lector nunca ve un archivo a medio
+ * escribir, y como mucho {@code maxOpenFiles} archivos están abiertos al mismo tiempo. La espera de
+ * cada archivo (creación, escritura, cierre y renombrado) se solapa con la de los demás, lo que
+ * reduce el tiempo total en discos lentos o en red.
+ *
+ * <p>Un error al generar un archivo no detiene los demás: los que terminan bien sustituyen a su
+ * versión anterior, los que fallan la conservan, y {@link #await()} lanza el primer error con el
+ * resto añadidos como suprimidos. Con {@code maxOpenFiles = 1} los archivos se escriben uno tras
+ * otro en el hilo que llama, con las mismas garantías.</p>
+ *
+ * <pre>
+ * try (FileFanOut fanOut = new FileFanOut(FileFanOut.DEFAULT_MAX_OPEN_FILES)) {
+ *     for (Destinations destination : destinations) {
+ *         fanOut.submit(new File(destination.fileName()), writer -&gt; {
+ *             writer.writeHeader(4);
+ *             ...
+ *         });
+ *     }
+ *     fanOut.await();
+ * }
+ * </pre>
+ */
+public final class FileFanOut implements Closeable {
+
+    /**
+     * Número de archivos abiertos a la vez por defecto.
+     */
+    public static final int DEFAULT_MAX_OPEN_FILES = 8;
+
+    /**
+     * Contenido de un archivo de salida.
+     */
+    @FunctionalInterface
+    public interface Content {
+        /**
+         * Escribe el contenido completo del archivo, incluido el encabezado.
+         *
+         * @param writer escritor sobre el temporal del archivo.
+         * @throws IOException si el archivo no puede escribirse.
+         */
+        void writeTo(ReservationCsvWriter writer) throws IOException;
+    }
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final List<File> files = new ArrayList<>();
+    private final List<Future<?>> results = new ArrayList<>();
+    private final List<IOException> inlineErrors = new ArrayList<>();
+
+    /**
+     * Crea un generador de archivos.
+     *
+     * @param maxOpenFiles número máximo de archivos abiertos (y de hilos) a la vez.
+     */
+    public FileFanOut(int maxOpenFiles) {
+        if (maxOpenFiles < 1) {
+            throw new IllegalArgumentException("El número de archivos abiertos a la vez debe ser al menos 1.");
+        }
+        if (maxOpenFiles == 1) {
+            this.executor = null;
+            return;
+        }
+        int pool = POOL_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxOpenFiles, task -> {
+            Thread thread = new Thread(task, "reservation-fan-out-" + pool + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Encarga la generación de un archivo. Si todos los hilos están ocupados, el archivo espera a
+     * que termine otro.
+     *
+     * @param file    archivo de salida; se comprime si su nombre termina en {@link BlockCompression#FILE_SUFFIX}.
+     * @param content contenido del archivo.
+     */
+    public void submit(File file, Content content) {
+        files.add(file);
+        if (executor == null) {
+            try {
+                write(file, content);
+            } catch (IOException e) {
+                inlineErrors.add(e);
+            }
+            return;
+        }
+        results.add(executor.submit(() -> {
+            write(file, content);
+            return null;
+        }));
+    }
+
+    /**
+     * Espera a que terminen todos los archivos encargados.
+     *
+     * @return archivos generados, en el orden en que se encargaron.
+     * @throws IOException si algún archivo no pudo generarse (el primero, con el resto como
+     *                     suprimidos) o el hilo se interrumpe.
+     */
+    public List<File> await() throws IOException {
+        IOException failure = null;
+        for (IOException error : inlineErrors) {
+            failure = aggregate(failure, error);
+        }
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failure = aggregate(failure, cause instanceof IOException io
+                        ? io
+                        : new IOException("No se pudo generar " + files.get(i).getName() + ".", cause));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<?> result : results) {
+                    result.cancel(true);
+                }
+                throw new InterruptedIOException("Interrumpido esperando la generación de archivos.");
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return List.copyOf(files);
+    }
+
+    /**
+     * Detiene los hilos y espera a que terminen. Los archivos aún en curso se interrumpen y
+     * conservan su versión anterior.
+     */
+    @Override
+    public void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void write(File file, Content content) throws IOException {
+        try (ReservationCsvWriter writer = ReservationCsvWriter.openAtomic(file)) {
+            content.writeTo(writer);
+            writer.commit();
+        }
+    }
+
+    private static IOException aggregate(IOException failure, IOException error) {
+        if (failure == null) {
+            return error;
+        }
+        failure.addSuppressed(error);
+        return failure;
+    }
+}
@@ -0,0 +1,116 @@
+package Utils;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con intervalos de potencias de dos: el intervalo {@code i} cuenta las
+ * duraciones de {@code [2^(i-1), 2^i)} nanosegundos. Registrar una duración solo incrementa un
+ * {@link LongAdder}, por lo que varios hilos pueden hacerlo a la vez sin bloquearse; a cambio, los
+ * percentiles se aproximan por el límite superior de su intervalo (con un error de hasta el doble).
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Crea un histograma vacío.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registra una duración.
+     *
+     * @param nanos duración en nanosegundos; los valores negativos cuentan como {@code 0}.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        buckets[BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * @return número de duraciones registradas.
+     */
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return suma de las duraciones registradas, en nanosegundos.
+     */
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @return duración máxima registrada, en nanosegundos.
+     */
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @return duración media, en nanosegundos ({@code 0} si no hay registros).
+     */
+    public double meanNanos() {
+        long count = count();
+        return count == 0 ? 0 : (double) totalNanos() / count;
+    }
+
+    /**
+     * Aproxima un percentil por el límite superior del intervalo que lo contiene, sin superar la
+     * duración máxima registrada.
+     *
+     * @param percentile percentil entre {@code 0} y {@code 100}.
+     * @return duración en nanosegundos ({@code 0} si no hay registros).
+     */
+    public long percentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100.");
+        }
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min((1L << i) - 1, maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    /**
+     * Vacía el histograma. Las duraciones registradas mientras se vacía pueden conservarse o no.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,486 @@
+package Utils;
+
+import Reservation.Destinations;
+import Reservation.ReservationClass;
+import Reservation.ReservationFields;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lector de archivos CSV de reservas basado en memoria mapeada. El archivo se proyecta en memoria
+ * mediante {@link FileChannel#map} y se recorre byte a byte buscando comas y saltos de línea sin
+ * copiar los datos: cada registro se expone como un conjunto de desplazamientos sobre el búfer y
+ * solo se convierte en {@link String} cuando se solicita un campo o la fila completa.
+ *
+ * <p>La separación de líneas sigue el mismo criterio que {@link java.io.BufferedReader#readLine()}
+ * y la de campos el de {@code line.split(",")}, incluido el descarte de campos vacíos al final, de
+ * forma que los métodos que antes usaban esas llamadas obtienen exactamente los mismos registros.
+ * Los textos se decodifican con el juego de caracteres por defecto, igual que {@link java.io.FileReader}.</p>
+ *
+ * <pre>
+ * try (MappedCsvReader reader = MappedCsvReader.open(file)) {
+ *     while (reader.next()) {
+ *         String destino = reader.field(3);
+ *     }
+ * }
+ * </pre>
+ */
+public final class MappedCsvReader implements ReservationRecordReader {
+
+    /**
+     * Tamaño máximo de cada ventana mapeada. Los archivos más grandes se recorren desplazando la
+     * ventana; un registro nunca queda partido entre dos ventanas.
+     */
+    private static final long WINDOW_SIZE = 256L << 20;
+
+    private static final ReservationClass[] CLASSES = ReservationClass.values();
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final Charset charset = Charset.defaultCharset();
+
+    private ByteBuffer buffer;
+    private long windowStart;
+    private int position;
+
+    private int recordStart;
+    private int recordEnd;
+    private long recordOffset = -1;
+    private long lineNumber;
+    private int fieldCount;
+    private int[] fieldStarts = new int[8];
+    private int[] fieldEnds = new int[8];
+    private byte[] scratch = new byte[256];
+    private final AsciiView asciiView = new AsciiView();
+
+    private MappedCsvReader(FileChannel channel, long start) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        mapWindow(Math.min(start, fileSize));
+    }
+
+    private MappedCsvReader(ByteBuffer buffer) {
+        this.channel = null;
+        this.fileSize = buffer.limit();
+        this.buffer = buffer;
+    }
+
+    /**
+     * Recorre un texto que ya está en memoria (por ejemplo un bloque descomprimido) con las mismas
+     * reglas que un archivo. El búfer se lee desde la posición {@code 0} hasta su límite.
+     *
+     * @param buffer texto CSV.
+     * @return lector posicionado antes del primer registro.
+     */
+    static MappedCsvReader wrap(ByteBuffer buffer) {
+        return new MappedCsvReader(buffer);
+    }
+
+    /**
+     * Abre un archivo para su lectura.
+     *
+     * @param file archivo CSV.
+     * @return lector posicionado antes del primer registro.
+     * @throws FileNotFoundException si el archivo no existe o no es un fichero regular.
+     * @throws IOException           si el archivo no puede abrirse o mapearse.
+     */
+    public static MappedCsvReader open(File file) throws IOException {
+        return open(file, 0);
+    }
+
+    /**
+     * Abre un archivo para leerlo a partir de una posición, que debe coincidir con el inicio de una
+     * línea. Los números de línea se cuentan desde esa posición.
+     *
+     * @param file  archivo CSV.
+     * @param start desplazamiento en bytes del primer registro a leer.
+     * @return lector posicionado antes del registro que empieza en {@code start}.
+     * @throws FileNotFoundException si el archivo no existe o no es un fichero regular.
+     * @throws IOException           si el archivo no puede abrirse o mapearse.
+     */
+    public static MappedCsvReader open(File file, long start) throws IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        if (start < 0) {
+            throw new IllegalArgumentException("La posición inicial no puede ser negativa.");
+        }
+        return new MappedCsvReader(FileChannel.open(file.toPath(), StandardOpenOption.READ), start);
+    }
+
+    /**
+     * Avanza al siguiente registro.
+     *
+     * @return {@code true} si hay un registro disponible o {@code false} al llegar al final.
+     * @throws IOException si no se puede mapear la siguiente porción del archivo.
+     */
+    @Override
+    public boolean next() throws IOException {
+        if (windowStart + position >= fileSize) {
+            return false;
+        }
+
+        int end = scanLine(position);
+        if (end < 0) {
+            // La línea continúa fuera de la ventana actual: se vuelve a mapear desde su inicio.
+            mapWindow(windowStart + position);
+            end = scanLine(0);
+            if (end < 0) {
+                throw new IOException("Registro demasiado largo en el desplazamiento " + windowStart);
+            }
+        }
+
+        recordStart = position;
+        recordEnd = end;
+        recordOffset = windowStart + position;
+        lineNumber++;
+        splitFields();
+
+        position = skipLineTerminator(end);
+        return true;
+    }
+
+    /**
+     * @return número de campos del registro actual, con la misma semántica que {@code split(",")}.
+     */
+    @Override
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Devuelve un campo del registro actual sin recortar espacios.
+     *
+     * @param index posición del campo.
+     * @return el campo decodificado.
+     */
+    @Override
+    public String field(int index) {
+        checkField(index);
+        return decode(fieldStarts[index], fieldEnds[index]);
+    }
+
+    /**
+     * Indica si un campo está vacío o solo contiene espacios, sin convertirlo en {@link String}.
+     *
+     * @param index posición del campo.
+     * @return {@code true} si el campo no tiene contenido.
+     */
+    public boolean isBlank(int index) {
+        checkField(index);
+        for (int i = fieldStarts[index]; i < fieldEnds[index]; i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compara un campo, sin espacios en los extremos y sin distinguir mayúsculas, con un texto ASCII.
+     * No reserva memoria.
+     *
+     * @param index    posición del campo.
+     * @param expected texto ASCII a comparar.
+     * @return {@code true} si coinciden.
+     */
+    public boolean fieldEqualsIgnoreCase(int index, String expected) {
+        checkField(index);
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') start++;
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') end--;
+
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            int b = buffer.get(start + i) & 0xFF;
+            if (Character.toUpperCase((char) b) != Character.toUpperCase(expected.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Interpreta un campo como destino directamente sobre los bytes del archivo, sin decodificarlo.
+     *
+     * @param index posición del campo.
+     * @return el destino o {@code null} si el campo no pertenece al catálogo.
+     */
+    @Override
+    public Destinations destination(int index) {
+        checkField(index);
+        return Destinations.fromBytes(buffer, fieldStarts[index], fieldEnds[index]);
+    }
+
+    /**
+     * Interpreta un campo como clase de reserva comparando los bytes del archivo, sin decodificarlo.
+     *
+     * @param index posición del campo.
+     * @return la clase o {@code null} si el campo no corresponde a ninguna.
+     */
+    @Override
+    public ReservationClass reservationClass(int index) {
+        for (ReservationClass reservationClass : CLASSES) {
+            if (fieldEqualsIgnoreCase(index, reservationClass.name())) {
+                return reservationClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Valida un campo directamente sobre los bytes del archivo. Solo los campos con caracteres no
+     * ASCII se decodifican antes de validarlos.
+     *
+     * @param index            posición del campo.
+     * @param reservationField tipo de campo que determina la validación.
+     * @return {@link FieldValidator#OK} o el código del error encontrado.
+     */
+    @Override
+    public int validate(int index, ReservationFields reservationField) {
+        checkField(index);
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) < 0) {
+                return FieldValidator.validate(decode(start, end), reservationField);
+            }
+        }
+        return FieldValidator.validate(asciiView, start, end, reservationField);
+    }
+
+    /**
+     * Comprueba si el registro actual ya está en el dialecto de {@link ReservationCsvWriter}: campos
+     * sin espacios en los extremos, separados por {@code ", "}, sin comas finales, asiento sin ceros a
+     * la izquierda y, si se indica destino, con su nombre exacto en la columna de destino.
+     *
+     * @param destination destino del registro, o {@code null} si no tiene o no pertenece al catálogo.
+     * @return vista de solo lectura del registro sobre el búfer, o {@code null} si hay que formatearlo.
+     */
+    @Override
+    public ByteBuffer canonicalBytes(Destinations destination) {
+        if (fieldCount == 0 || fieldEnds[fieldCount - 1] != recordEnd) {
+            return null;
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            int start = fieldStarts[i];
+            int end = fieldEnds[i];
+            if (i > 0 && buffer.get(start++) != ' ') {
+                return null;
+            }
+            if (start >= end || (buffer.get(start) & 0xFF) <= ' ' || (buffer.get(end - 1) & 0xFF) <= ' ') {
+                return null;
+            }
+        }
+        if (fieldEnds[0] - fieldStarts[0] > 2 && buffer.get(fieldStarts[0]) == '0') {
+            return null; // asiento con ceros a la izquierda
+        }
+
+        int destinationField = ReservationFields.DESTINATION.ordinal();
+        if (destination != null && fieldCount > destinationField) {
+            String name = destination.name();
+            int start = fieldStarts[destinationField] + 1;
+            if (fieldEnds[destinationField] - start != name.length()) {
+                return null;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (buffer.get(start + i) != name.charAt(i)) {
+                    return null;
+                }
+            }
+        }
+        return buffer.slice(recordStart, recordEnd - recordStart).asReadOnlyBuffer();
+    }
+
+    /**
+     * Materializa el registro actual como un arreglo, igual que {@code line.split(",")}.
+     *
+     * @return los campos del registro.
+     */
+    @Override
+    public String[] fields() {
+        String[] parts = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            parts[i] = decode(fieldStarts[i], fieldEnds[i]);
+        }
+        return parts;
+    }
+
+    /**
+     * @return la línea completa del registro actual, sin terminador.
+     */
+    public String line() {
+        return decode(recordStart, recordEnd);
+    }
+
+    /**
+     * @return número de línea (empezando en 1) del registro actual.
+     */
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return desplazamiento en bytes del inicio del registro actual dentro del archivo.
+     */
+    public long recordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * @return número de bytes del archivo recorridos hasta el momento.
+     */
+    public long bytesRead() {
+        return windowStart + position;
+    }
+
+    /**
+     * @return tamaño total del archivo en bytes.
+     */
+    public long size() {
+        return fileSize;
+    }
+
+    /**
+     * Libera el canal del archivo, si el lector no trabaja sobre memoria.
+     *
+     * @throws IOException si el canal no puede cerrarse.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Proyecta en memoria la ventana que empieza en {@code start}.
+     */
+    private void mapWindow(long start) throws IOException {
+        windowStart = start;
+        position = 0;
+        long begin = System.nanoTime();
+        long length = Math.min(WINDOW_SIZE, fileSize - start);
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        if (ReservationMetrics.isEnabled()) {
+            // Las páginas se cargan antes de recorrer la ventana para separar la E/S del análisis
+            window.load();
+            ReservationMetrics.recordRead(length, System.nanoTime() - begin);
+        }
+        buffer = window;
+    }
+
+    /**
+     * Busca el final de la línea que empieza en {@code from}.
+     *
+     * @return posición del terminador (o del final del archivo) o {@code -1} si la línea sigue más
+     * allá de la ventana actual.
+     */
+    private int scanLine(int from) {
+        int limit = buffer.limit();
+        boolean lastWindow = windowStart + limit >= fileSize;
+        for (int i = from; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                return i;
+            }
+            if (b == '\r') {
+                // Un '\r' al final de la ventana puede ir seguido de un '\n' que aún no está mapeado.
+                return (i + 1 < limit || lastWindow) ? i : -1;
+            }
+        }
+        return lastWindow ? limit : -1;
+    }
+
+    /**
+     * Salta el terminador de línea en {@code end}, tratando {@code "\r\n"} como uno solo.
+     */
+    private int skipLineTerminator(int end) {
+        if (end >= buffer.limit()) {
+            return end;
+        }
+        if (buffer.get(end) == '\r' && end + 1 < buffer.limit() && buffer.get(end + 1) == '\n') {
+            return end + 2;
+        }
+        return end + 1;
+    }
+
+    /**
+     * Calcula los desplazamientos de los campos del registro actual.
+     */
+    private void splitFields() {
+        int count = 0;
+        int start = recordStart;
+        for (int i = recordStart; i <= recordEnd; i++) {
+            if (i == recordEnd || buffer.get(i) == ',') {
+                if (count == fieldStarts.length) {
+                    fieldStarts = Arrays.copyOf(fieldStarts, count * 2);
+                    fieldEnds = Arrays.copyOf(fieldEnds, count * 2);
+                }
+                fieldStarts[count] = start;
+                fieldEnds[count] = i;
+                count++;
+                start = i + 1;
+            }
+        }
+
+        // String.split descarta los campos vacíos finales, salvo en una línea vacía.
+        if (recordEnd > recordStart) {
+            while (count > 0 && fieldStarts[count - 1] == fieldEnds[count - 1]) count--;
+        }
+        fieldCount = count;
+    }
+
+    private void checkField(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Campo " + index + " fuera de rango (" + fieldCount + " campos)");
+        }
+    }
+
+    /**
+     * Vista de los bytes ASCII del búfer como caracteres, con las mismas posiciones, para validar
+     * campos sin decodificarlos.
+     */
+    private final class AsciiView implements CharSequence {
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return decode(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return decode(0, buffer.limit());
+        }
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, charset);
+    }
+}
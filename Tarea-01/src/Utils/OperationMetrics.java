@@ -0,0 +1,143 @@
+package Utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas acumuladas de una {@link ReservationMetrics.Operation}: llamadas, registros, bytes de
+ * entrada, tiempo de E/S y latencia de cada llamada. Se actualizan una vez por llamada al cerrar su
+ * {@link ReservationMetrics.Timer}.
+ *
+ * <p>El tiempo de E/S es el que registraron los lectores y escritores de archivos mientras la
+ * llamada estaba en curso, sumado entre todos sus hilos; si varias operaciones se solapan, cada una
+ * se atribuye también la E/S de las demás.</p>
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+
+    private final ReservationMetrics.Operation operation;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder ioNanos = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(ReservationMetrics.Operation operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Suma una llamada terminada.
+     *
+     * @param elapsedNanos duración de la llamada.
+     * @param rows         registros procesados.
+     * @param bytesRead    bytes de los archivos de entrada.
+     * @param ioNanos      tiempo de E/S registrado durante la llamada.
+     * @param succeeded    {@code false} si la llamada terminó con una excepción.
+     */
+    void record(long elapsedNanos, long rows, long bytesRead, long ioNanos, boolean succeeded) {
+        calls.increment();
+        if (!succeeded) {
+            failures.increment();
+        }
+        this.rows.add(rows);
+        this.bytesRead.add(bytesRead);
+        this.ioNanos.add(ioNanos);
+        latency.record(elapsedNanos);
+    }
+
+    void reset() {
+        calls.reset();
+        failures.reset();
+        rows.reset();
+        bytesRead.reset();
+        ioNanos.reset();
+        latency.reset();
+    }
+
+    /**
+     * @return histograma de la duración de las llamadas.
+     */
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation.methodName();
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        long total = latency.totalNanos();
+        return total == 0 ? 0 : getRows() * 1e9 / total;
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return latency.totalNanos() / 1e6;
+    }
+
+    @Override
+    public double getIoMillis() {
+        return ioNanos.sum() / 1e6;
+    }
+
+    @Override
+    public double getProcessingMillis() {
+        return Math.max(0, latency.totalNanos() - ioNanos.sum()) / 1e6;
+    }
+
+    @Override
+    public double getMeanLatencyMillis() {
+        return latency.meanNanos() / 1e6;
+    }
+
+    @Override
+    public double getP50LatencyMillis() {
+        return latency.percentileNanos(50) / 1e6;
+    }
+
+    @Override
+    public double getP90LatencyMillis() {
+        return latency.percentileNanos(90) / 1e6;
+    }
+
+    @Override
+    public double getP99LatencyMillis() {
+        return latency.percentileNanos(99) / 1e6;
+    }
+
+    @Override
+    public double getMaxLatencyMillis() {
+        return latency.maxNanos() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-31s %,6d llamada(s) (%d fallida(s)) %,12d reg. %,12.0f reg/s %,10.1f MB  total %8.3f s"
+                        + "  E/S %8.3f s  resto %8.3f s  latencia media/p50/p90/p99/máx %.1f/%.1f/%.1f/%.1f/%.1f ms",
+                getOperation(), getCalls(), getFailures(), getRows(), getRowsPerSecond(), getBytesRead() / 1e6,
+                getTotalMillis() / 1e3, getIoMillis() / 1e3, getProcessingMillis() / 1e3, getMeanLatencyMillis(),
+                getP50LatencyMillis(), getP90LatencyMillis(), getP99LatencyMillis(), getMaxLatencyMillis());
+    }
+}
@@ -0,0 +1,78 @@
+package Utils;
+
+/**
+ * Vista JMX de las métricas de una operación ({@link OperationMetrics}), registrada como
+ * {@code Reservation:type=Operation,name=<método>} por {@link ReservationMetrics#registerMBeans()}.
+ */
+public interface OperationMetricsMXBean {
+
+    /**
+     * @return nombre del método medido.
+     */
+    String getOperation();
+
+    /**
+     * @return número de llamadas terminadas.
+     */
+    long getCalls();
+
+    /**
+     * @return número de llamadas terminadas con una excepción.
+     */
+    long getFailures();
+
+    /**
+     * @return registros procesados entre todas las llamadas.
+     */
+    long getRows();
+
+    /**
+     * @return bytes de los archivos de entrada entre todas las llamadas.
+     */
+    long getBytesRead();
+
+    /**
+     * @return registros por segundo sobre el tiempo total de las llamadas.
+     */
+    double getRowsPerSecond();
+
+    /**
+     * @return tiempo total de las llamadas, en milisegundos.
+     */
+    double getTotalMillis();
+
+    /**
+     * @return tiempo de E/S durante las llamadas, en milisegundos.
+     */
+    double getIoMillis();
+
+    /**
+     * @return tiempo de las llamadas fuera de la E/S (análisis, validación y cálculo), en milisegundos.
+     */
+    double getProcessingMillis();
+
+    /**
+     * @return latencia media de una llamada, en milisegundos.
+     */
+    double getMeanLatencyMillis();
+
+    /**
+     * @return mediana aproximada de la latencia, en milisegundos.
+     */
+    double getP50LatencyMillis();
+
+    /**
+     * @return percentil 90 aproximado de la latencia, en milisegundos.
+     */
+    double getP90LatencyMillis();
+
+    /**
+     * @return percentil 99 aproximado de la latencia, en milisegundos.
+     */
+    double getP99LatencyMillis();
+
+    /**
+     * @return latencia máxima, en milisegundos.
+     */
+    double getMaxLatencyMillis();
+}
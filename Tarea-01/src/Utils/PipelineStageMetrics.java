@@ -0,0 +1,131 @@
+package Utils;
+
+/**
+ * Métricas de una etapa de {@link Utils#processReservationFilePipelined(java.io.File, int, ProcessingOptions)}.
+ * Los tiempos se suman entre todos los hilos de la etapa; la profundidad de la cola de entrada se
+ * muestrea cada vez que la etapa anterior deja un lote en ella.
+ */
+public final class PipelineStageMetrics {
+
+    private final String stage;
+    private final int queueCapacity;
+    private int threads;
+    private long records;
+    private long activeNanos;
+    private long inputWaitNanos;
+    private long outputBlockedNanos;
+    private long depthSamples;
+    private long depthTotal;
+    private int maxDepth;
+
+    PipelineStageMetrics(String stage, int queueCapacity) {
+        this.stage = stage;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Suma el trabajo de un hilo de la etapa al terminar.
+     *
+     * @param records            registros procesados por el hilo.
+     * @param elapsedNanos       tiempo total del hilo.
+     * @param inputWaitNanos     tiempo esperando datos de la etapa anterior.
+     * @param outputBlockedNanos tiempo bloqueado porque la etapa siguiente no admitía más datos.
+     */
+    synchronized void addThread(long records, long elapsedNanos, long inputWaitNanos, long outputBlockedNanos) {
+        this.threads++;
+        this.records += records;
+        this.activeNanos += Math.max(0, elapsedNanos - inputWaitNanos - outputBlockedNanos);
+        this.inputWaitNanos += inputWaitNanos;
+        this.outputBlockedNanos += outputBlockedNanos;
+    }
+
+    /**
+     * Registra la profundidad de la cola de entrada de la etapa.
+     *
+     * @param depth lotes pendientes en la cola.
+     */
+    synchronized void sampleDepth(int depth) {
+        depthSamples++;
+        depthTotal += depth;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * @return nombre de la etapa.
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * @return número de hilos de la etapa.
+     */
+    public synchronized int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return registros procesados por la etapa.
+     */
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return tiempo de trabajo efectivo, sin esperas, sumado entre los hilos de la etapa.
+     */
+    public synchronized long getActiveNanos() {
+        return activeNanos;
+    }
+
+    /**
+     * @return tiempo esperando datos de la etapa anterior, sumado entre los hilos de la etapa.
+     */
+    public synchronized long getInputWaitNanos() {
+        return inputWaitNanos;
+    }
+
+    /**
+     * @return tiempo bloqueado por contrapresión de la etapa siguiente, sumado entre los hilos.
+     */
+    public synchronized long getOutputBlockedNanos() {
+        return outputBlockedNanos;
+    }
+
+    /**
+     * @return registros por segundo de trabajo efectivo de cada hilo; la etapa con el valor más bajo
+     *         multiplicado por su número de hilos es la que limita el pipeline.
+     */
+    public synchronized double getThroughput() {
+        return activeNanos == 0 ? 0 : records * 1e9 * threads / activeNanos;
+    }
+
+    /**
+     * @return capacidad, en lotes, de la cola de entrada de cada hilo de la etapa ({@code 0} si la
+     *         etapa no tiene cola de entrada).
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return profundidad media de la cola de entrada en los muestreos.
+     */
+    public synchronized double getAverageQueueDepth() {
+        return depthSamples == 0 ? 0 : (double) depthTotal / depthSamples;
+    }
+
+    /**
+     * @return profundidad máxima observada de la cola de entrada.
+     */
+    public synchronized int getMaxQueueDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%-11s %2d hilo(s) %,12d reg. %,14.0f reg/s  activo %7.2f s  espera %7.2f s  bloqueo %7.2f s  cola %.1f/%d/%d",
+                stage, threads, records, getThroughput(), activeNanos / 1e9, inputWaitNanos / 1e9,
+                outputBlockedNanos / 1e9, getAverageQueueDepth(), maxDepth, queueCapacity);
+    }
+}
@@ -0,0 +1,566 @@
+package Utils;
+
+import Reservation.Destinations;
+import Reservation.SeatOccupancy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Motor de validación por etapas utilizado por
+ * {@link Utils#processReservationFilePipelined(File, int, ProcessingOptions)}. Cada etapa corre
+ * en sus propios hilos y se comunica con la siguiente mediante colas acotadas de lotes de
+ * {@link #BATCH_SIZE} registros:
+ *
+ * <ol>
+ *     <li><b>lectura</b>: un hilo recorre el archivo con {@link ReservationRecordReader} y numera los lotes;</li>
+ *     <li><b>validación</b>: varios hilos validan los lotes ({@link Utils#validateRow}) y resuelven su destino;</li>
+ *     <li><b>enrutado</b>: el hilo que llama recoloca los lotes en el orden del archivo, comprueba los
+ *     conflictos de asiento y reparte cada registro entre el log de errores y su archivo de salida;</li>
+ *     <li><b>escritura</b>: un hilo por archivo de salida escribe sus registros con
+ *     {@link ReservationCsvWriter#openAtomic(File)}, que sustituye al archivo anterior solo al recibir
+ *     todos sus registros, y otro escribe el log con {@link ErrorLogSink}.</li>
+ * </ol>
+ *
+ * <p>Si una etapa no da abasto, la anterior se bloquea al encolar (contrapresión): el lector no puede
+ * adelantarse más de {@code maxInFlight} lotes al enrutado, y cada escritor (incluido el del log)
+ * admite como mucho {@link #WRITER_QUEUE_CAPACITY} lotes pendientes. La memoria queda así acotada con
+ * independencia del tamaño del archivo, y el tiempo total tiende al de la etapa más lenta en lugar
+ * de a la suma de todas. Como el enrutado procesa los lotes en orden, los archivos de salida y el log coinciden con
+ * los de la ejecución secuencial.</p>
+ *
+ * <p>Si una etapa falla, se interrumpen las demás y el error se propaga al hilo que llama.</p>
+ */
+final class PipelinedReservationValidator {
+
+    /** Registros por lote entre etapas. */
+    static final int BATCH_SIZE = 1024;
+
+    /** Lotes pendientes de validar por cada hilo de validación. */
+    private static final int VALIDATION_QUEUE_PER_THREAD = 2;
+
+    /** Lotes pendientes de escribir por cada archivo de salida. */
+    private static final int WRITER_QUEUE_CAPACITY = 4;
+
+    private final int expectedFieldsCount;
+    private final int validators;
+    private final boolean compressedOutput;
+
+    private final Semaphore inFlight;
+    private final BlockingQueue<Batch> validationQueue;
+    private final BlockingQueue<Batch> routingQueue;
+    private final Map<String, DestinationWriter> writers = new LinkedHashMap<>();
+
+    private final PipelineStageMetrics readMetrics = new PipelineStageMetrics("lectura", 0);
+    private final PipelineStageMetrics validateMetrics;
+    private final PipelineStageMetrics routeMetrics;
+    private final PipelineStageMetrics writeMetrics = new PipelineStageMetrics("escritura", WRITER_QUEUE_CAPACITY);
+    private final PipelineStageMetrics errorMetrics = new PipelineStageMetrics("errores", WRITER_QUEUE_CAPACITY);
+
+    private final Thread caller = Thread.currentThread();
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * Resultado del procesamiento.
+     *
+     * @param validCounts registros válidos escritos en cada archivo de salida, en orden de aparición.
+     * @param metrics     métricas de cada etapa, en el orden del pipeline.
+     */
+    record Result(Map<String, Long> validCounts, List<PipelineStageMetrics> metrics) {
+    }
+
+    private PipelinedReservationValidator(int expectedFieldsCount, int validators, boolean compressedOutput) {
+        this.expectedFieldsCount = expectedFieldsCount;
+        this.validators = validators;
+        this.compressedOutput = compressedOutput;
+
+        int validationCapacity = validators * VALIDATION_QUEUE_PER_THREAD;
+        int maxInFlight = validationCapacity + 2 * validators;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.validationQueue = new ArrayBlockingQueue<>(validationCapacity);
+        // El semáforo ya limita los lotes en curso: esta cola nunca llega a bloquear
+        this.routingQueue = new ArrayBlockingQueue<>(maxInFlight);
+        this.validateMetrics = new PipelineStageMetrics("validación", validationCapacity);
+        this.routeMetrics = new PipelineStageMetrics("enrutado", maxInFlight);
+    }
+
+    /**
+     * Procesa un archivo de reservas completo.
+     *
+     * @param inputFile           archivo de reservas en cualquier formato admitido por
+     *                            {@link ReservationRecordReader#open(File)}.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @param validators          número de hilos de validación.
+     * @param errorLog            log de errores; se elimina antes de empezar.
+     * @param structuredErrors    {@code true} para registrar el número de línea de cada error en
+     *                            lugar del registro completo.
+     * @param compressedOutput    {@code true} para comprimir los archivos por destino.
+     * @return registros válidos por archivo de salida y métricas de cada etapa.
+     * @throws IOException si ocurre un problema en cualquiera de las etapas o el hilo se interrumpe.
+     */
+    static Result process(File inputFile, int expectedFieldsCount, int validators, File errorLog,
+                          boolean structuredErrors, boolean compressedOutput) throws IOException {
+        if (validators < 1) {
+            throw new IllegalArgumentException("El número de hilos de validación debe ser al menos 1.");
+        }
+
+        ReservationRecordReader reader = ReservationRecordReader.open(inputFile);
+        if (errorLog.exists()) errorLog.delete(); // limpiar logs previos
+
+        PipelinedReservationValidator pipeline =
+                new PipelinedReservationValidator(expectedFieldsCount, validators, compressedOutput);
+        try (ErrorLogSink errorSink = new ErrorLogSink(errorLog, structuredErrors, ErrorLogSink.DEFAULT_BATCH_SIZE)) {
+            pipeline.run(reader, errorSink);
+        }
+
+        Map<String, Long> validCounts = new LinkedHashMap<>();
+        for (DestinationWriter writer : pipeline.writers.values()) {
+            validCounts.put(writer.fileName, writer.count);
+        }
+        return new Result(validCounts, List.of(pipeline.readMetrics, pipeline.validateMetrics,
+                pipeline.routeMetrics, pipeline.writeMetrics, pipeline.errorMetrics));
+    }
+
+    /**
+     * Arranca las etapas, enruta en el hilo actual y espera a que terminen todas.
+     */
+    private void run(ReservationRecordReader reader, ErrorLogSink errorSink) throws IOException {
+        boolean interrupted = false;
+        try {
+            start("reservation-pipeline-reader", () -> read(reader));
+            for (int i = 0; i < validators; i++) {
+                start("reservation-pipeline-validator-" + i, this::validate);
+            }
+            ErrorWriter errorWriter = new ErrorWriter(errorSink);
+            start("reservation-pipeline-errors", errorWriter::drain);
+            route(errorWriter);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            interrupted = failure.get() == null;
+        } catch (RuntimeException | Error e) {
+            fail(e);
+        } finally {
+            if (failure.get() != null || interrupted) {
+                stopAll();
+            }
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            Thread.interrupted(); // la interrupción solo servía para despertar al hilo que llama
+            if (error instanceof IOException ioException) throw ioException;
+            if (error instanceof UncheckedIOException unchecked) throw unchecked.getCause();
+            if (error instanceof RuntimeException runtimeException) throw runtimeException;
+            if (error instanceof Error fatal) throw fatal;
+            throw new IOException(error);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido durante el procesamiento por etapas.");
+        }
+    }
+
+    /**
+     * Etapa de lectura: agrupa los registros en lotes numerados y los entrega a la validación.
+     */
+    private void read(ReservationRecordReader reader) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        long blocked = 0;
+        long records = 0;
+        long sequence = 0;
+        try (reader) {
+            Batch batch = new Batch(sequence++);
+            while (reader.next()) {
+                batch.add(reader.lineNumber(), reader.fields());
+                records++;
+                if (batch.size == BATCH_SIZE) {
+                    blocked += submit(batch);
+                    batch = new Batch(sequence++);
+                }
+            }
+            if (batch.size > 0) {
+                blocked += submit(batch);
+            }
+        }
+        for (int i = 0; i < validators; i++) {
+            validationQueue.put(Batch.END);
+        }
+        readMetrics.addThread(records, System.nanoTime() - start, 0, blocked);
+    }
+
+    /**
+     * Entrega un lote a la validación, esperando si hay demasiados lotes en curso.
+     *
+     * @return tiempo bloqueado en nanosegundos.
+     */
+    private long submit(Batch batch) throws InterruptedException {
+        long start = System.nanoTime();
+        inFlight.acquire();
+        validateMetrics.sampleDepth(validationQueue.size());
+        validationQueue.put(batch);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Etapa de validación: valida cada lote y lo entrega al enrutado, en cualquier orden.
+     */
+    private void validate() throws InterruptedException {
+        long start = System.nanoTime();
+        long waiting = 0;
+        long blocked = 0;
+        long records = 0;
+        while (true) {
+            long takeStart = System.nanoTime();
+            Batch batch = validationQueue.take();
+            long putStart = System.nanoTime();
+            waiting += putStart - takeStart;
+            if (batch == Batch.END) {
+                routingQueue.put(Batch.END);
+                break;
+            }
+
+            batch.validate(expectedFieldsCount);
+            records += batch.size;
+
+            putStart = System.nanoTime();
+            routeMetrics.sampleDepth(routingQueue.size());
+            routingQueue.put(batch);
+            blocked += System.nanoTime() - putStart;
+        }
+        validateMetrics.addThread(records, System.nanoTime() - start, waiting, blocked);
+    }
+
+    /**
+     * Etapa de enrutado: procesa los lotes en el orden del archivo, de modo que los conflictos de
+     * asiento y el log de errores coinciden con los de la ejecución secuencial.
+     */
+    private void route(ErrorWriter errorWriter) throws InterruptedException {
+        long start = System.nanoTime();
+        long waiting = 0;
+        long blocked = 0;
+        long records = 0;
+
+        SeatOccupancy occupancy = new SeatOccupancy();
+        Map<Long, Batch> pending = new HashMap<>();
+        long nextSequence = 0;
+        int finishedValidators = 0;
+        while (finishedValidators < validators) {
+            long takeStart = System.nanoTime();
+            Batch batch = routingQueue.take();
+            waiting += System.nanoTime() - takeStart;
+            if (batch == Batch.END) {
+                finishedValidators++;
+                continue;
+            }
+
+            pending.put(batch.sequence, batch);
+            while ((batch = pending.remove(nextSequence)) != null) {
+                blocked += routeBatch(batch, occupancy, errorWriter);
+                records += batch.size;
+                nextSequence++;
+                inFlight.release();
+            }
+        }
+
+        for (DestinationWriter writer : writers.values()) {
+            blocked += writer.finish();
+        }
+        blocked += errorWriter.finish();
+        routeMetrics.addThread(records, System.nanoTime() - start, waiting, blocked);
+    }
+
+    /**
+     * Reparte los registros de un lote entre el log de errores y los escritores de cada destino.
+     *
+     * @return tiempo bloqueado esperando a los escritores, en nanosegundos.
+     */
+    private long routeBatch(Batch batch, SeatOccupancy occupancy, ErrorWriter errorWriter)
+            throws InterruptedException {
+        long blocked = 0;
+        for (int i = 0; i < batch.size; i++) {
+            String[] row = batch.rows[i];
+            Destinations destination = batch.destinations[i];
+            String error = batch.errors[i];
+            if (error == null) {
+                error = Utils.occupySeat(occupancy, row, destination, expectedFieldsCount);
+            }
+            if (error != null) {
+                blocked += errorWriter.add(new ChunkedReservationValidator.RowError(batch.lineNumbers[i], row, error));
+                continue;
+            }
+
+            String outputFile = Utils.outputFileOf(destination, expectedFieldsCount);
+            DestinationWriter writer = writers.get(outputFile);
+            if (writer == null) {
+                writer = new DestinationWriter(outputFile, destination);
+                writers.put(outputFile, writer);
+                start("reservation-pipeline-writer-" + outputFile, writer::drain);
+            }
+            blocked += writer.add(row);
+        }
+        return blocked;
+    }
+
+    /**
+     * Cuerpo de un hilo de etapa.
+     */
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws IOException, InterruptedException;
+    }
+
+    private void start(String name, Stage stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                // Otra etapa falló y el pipeline se está deteniendo
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Guarda el primer error y despierta a todos los hilos para que terminen.
+     */
+    private void fail(Throwable error) {
+        if (failure.compareAndSet(null, error)) {
+            for (Thread thread : threads) {
+                if (thread != Thread.currentThread()) thread.interrupt();
+            }
+            if (caller != Thread.currentThread()) {
+                caller.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Interrumpe todas las etapas y espera a que terminen, para que ningún hilo siga escribiendo
+     * después de devolver el control.
+     */
+    private void stopAll() {
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    // se sigue esperando: el hilo ya está interrumpido
+                }
+            }
+        }
+    }
+
+    /**
+     * Lote de registros con su número de secuencia y, tras la validación, su resultado.
+     */
+    private static final class Batch {
+        static final Batch END = new Batch(-1);
+
+        final long sequence;
+        final long[] lineNumbers = new long[BATCH_SIZE];
+        final String[][] rows = new String[BATCH_SIZE][];
+        String[] errors;
+        Destinations[] destinations;
+        int size;
+
+        Batch(long sequence) {
+            this.sequence = sequence;
+        }
+
+        void add(long lineNumber, String[] row) {
+            lineNumbers[size] = lineNumber;
+            rows[size] = row;
+            size++;
+        }
+
+        void validate(int expectedFieldsCount) {
+            errors = new String[size];
+            destinations = new Destinations[size];
+            for (int i = 0; i < size; i++) {
+                errors[i] = Utils.validateRow(rows[i], expectedFieldsCount);
+                if (errors[i] == null) {
+                    destinations[i] = Utils.destinationOf(rows[i], expectedFieldsCount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Etapa final con su propia cola y su propio hilo: recibe elementos del enrutado en lotes y los
+     * escribe en un único archivo.
+     *
+     * @param <T> tipo de los elementos escritos.
+     */
+    private abstract class OutputWriter<T> {
+        final BlockingQueue<List<T>> queue = new ArrayBlockingQueue<>(WRITER_QUEUE_CAPACITY);
+        final PipelineStageMetrics metrics;
+        List<T> items = new ArrayList<>(BATCH_SIZE);
+        long count;
+
+        OutputWriter(PipelineStageMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        /**
+         * Añade un elemento desde el enrutado, entregando el lote al escritor cuando se completa.
+         *
+         * @return tiempo bloqueado en nanosegundos.
+         */
+        long add(T item) throws InterruptedException {
+            items.add(item);
+            count++;
+            return items.size() == BATCH_SIZE ? flush() : 0;
+        }
+
+        /**
+         * Entrega los elementos pendientes y un lote vacío como marca de fin.
+         *
+         * @return tiempo bloqueado en nanosegundos.
+         */
+        long finish() throws InterruptedException {
+            long blocked = flush();
+            long start = System.nanoTime();
+            queue.put(List.of());
+            return blocked + System.nanoTime() - start;
+        }
+
+        private long flush() throws InterruptedException {
+            if (items.isEmpty()) {
+                return 0;
+            }
+            long start = System.nanoTime();
+            metrics.sampleDepth(queue.size());
+            queue.put(items);
+            items = new ArrayList<>(BATCH_SIZE);
+            return System.nanoTime() - start;
+        }
+
+        /**
+         * Cuerpo del hilo: escribe los lotes recibidos hasta la marca de fin.
+         */
+        void drain() throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            long waiting = 0;
+            long written = 0;
+            open();
+            try {
+                while (true) {
+                    long takeStart = System.nanoTime();
+                    List<T> batch = queue.take();
+                    waiting += System.nanoTime() - takeStart;
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    for (T item : batch) {
+                        write(item);
+                    }
+                    written += batch.size();
+                }
+                commit();
+            } finally {
+                close();
+            }
+            metrics.addThread(written, System.nanoTime() - start, waiting, 0);
+        }
+
+        abstract void open() throws IOException;
+
+        abstract void write(T item) throws IOException;
+
+        /**
+         * Confirma el archivo tras recibir la marca de fin; si no se llama, {@link #close()} lo descarta.
+         */
+        abstract void commit() throws IOException;
+
+        abstract void close() throws IOException;
+    }
+
+    /**
+     * Escritor de un archivo de salida. Todos sus registros comparten destino (o ninguno, en la
+     * cuarentena).
+     */
+    private final class DestinationWriter extends OutputWriter<String[]> {
+        final String fileName;
+        final Destinations destination;
+        private ReservationCsvWriter writer;
+
+        DestinationWriter(String fileName, Destinations destination) {
+            super(writeMetrics);
+            this.fileName = fileName;
+            this.destination = destination;
+        }
+
+        @Override
+        void open() throws IOException {
+            writer = ReservationCsvWriter.openAtomic(
+                    new File(compressedOutput ? BlockCompression.compressedName(fileName) : fileName));
+            writer.writeHeader(expectedFieldsCount);
+        }
+
+        @Override
+        void write(String[] row) throws IOException {
+            writer.write(row, destination);
+        }
+
+        @Override
+        void commit() throws IOException {
+            writer.commit();
+        }
+
+        @Override
+        void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Escritor del log de errores, que se cierra al terminar el procesamiento.
+     */
+    private final class ErrorWriter extends OutputWriter<ChunkedReservationValidator.RowError> {
+        private final ErrorLogSink errorSink;
+
+        ErrorWriter(ErrorLogSink errorSink) {
+            super(errorMetrics);
+            this.errorSink = errorSink;
+        }
+
+        @Override
+        void open() {
+        }
+
+        @Override
+        void commit() {
+        }
+
+        @Override
+        void write(ChunkedReservationValidator.RowError error) throws IOException {
+            errorSink.log(error.lineNumber(), error.row(), error.description());
+        }
+
+        @Override
+        void close() {
+        }
+    }
+}
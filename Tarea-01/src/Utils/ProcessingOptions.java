@@ -0,0 +1,97 @@
+package Utils;
+
+/**
+ * Opciones del procesamiento de un archivo de reservas, para las variantes de
+ * {@link Utils#processReservationFile(java.io.File, int)} y de
+ * {@link Reservation.ReservationAll#createandFillFileByDestination(Reservation.ReservationFields)}.
+ * Se parte de {@link #defaults()} y se cambia solo lo necesario; cada método devuelve una copia:
+ *
+ * <pre>{@code
+ * Utils.processReservationFileParallel(archivo, 4,
+ *         ProcessingOptions.defaults().compressed(true).concurrentFiles(4));
+ * }</pre>
+ *
+ * @param structuredErrors {@code true} para registrar el número de línea de cada error en lugar del
+ *                         registro completo.
+ * @param compressed       {@code true} para comprimir los archivos por destino
+ *                         ({@code reservas_<destino>.txt.gz}, formato de {@link BlockCompression}).
+ * @param concurrentFiles  número de archivos por destino que se escriben a la vez ({@code 1} para
+ *                         escribirlos uno tras otro en el hilo que llama).
+ * @param parallelism      número de hilos de validación de las variantes paralela y por etapas.
+ * @param fullChecksum     {@code true} para que el particionado incremental compruebe el CRC32 de
+ *                         todo lo ya repartido del maestro, de modo que detecte cualquier edición
+ *                         aunque el maestro haya crecido después; {@code false} para comprobar solo el
+ *                         inicio y el final, más rápido con maestros grandes pero sin detectar una
+ *                         edición en mitad del maestro acompañada de nuevas reservas.
+ */
+public record ProcessingOptions(boolean structuredErrors,
+                                boolean compressed,
+                                int concurrentFiles,
+                                int parallelism,
+                                boolean fullChecksum) {
+
+    /**
+     * @throws IllegalArgumentException si {@code concurrentFiles} o {@code parallelism} son menores
+     *                                  que {@code 1}.
+     */
+    public ProcessingOptions {
+        if (concurrentFiles < 1) {
+            throw new IllegalArgumentException("El número de archivos simultáneos debe ser al menos 1.");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("El número de hilos de validación debe ser al menos 1.");
+        }
+    }
+
+    /**
+     * Devuelve las opciones por defecto: errores con el registro completo, salida sin comprimir, un
+     * archivo por destino cada vez, tantos hilos de validación como procesadores disponibles y CRC32
+     * de todo lo ya repartido del maestro.
+     *
+     * @return opciones por defecto.
+     */
+    public static ProcessingOptions defaults() {
+        return new ProcessingOptions(false, false, 1, Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * @param structuredErrors {@code true} para registrar el número de línea de cada error.
+     * @return copia de estas opciones con el valor indicado.
+     */
+    public ProcessingOptions structuredErrors(boolean structuredErrors) {
+        return new ProcessingOptions(structuredErrors, compressed, concurrentFiles, parallelism, fullChecksum);
+    }
+
+    /**
+     * @param compressed {@code true} para comprimir los archivos por destino.
+     * @return copia de estas opciones con el valor indicado.
+     */
+    public ProcessingOptions compressed(boolean compressed) {
+        return new ProcessingOptions(structuredErrors, compressed, concurrentFiles, parallelism, fullChecksum);
+    }
+
+    /**
+     * @param concurrentFiles número de archivos por destino que se escriben a la vez.
+     * @return copia de estas opciones con el valor indicado.
+     */
+    public ProcessingOptions concurrentFiles(int concurrentFiles) {
+        return new ProcessingOptions(structuredErrors, compressed, concurrentFiles, parallelism, fullChecksum);
+    }
+
+    /**
+     * @param parallelism número de hilos de validación.
+     * @return copia de estas opciones con el valor indicado.
+     */
+    public ProcessingOptions parallelism(int parallelism) {
+        return new ProcessingOptions(structuredErrors, compressed, concurrentFiles, parallelism, fullChecksum);
+    }
+
+    /**
+     * @param fullChecksum {@code true} para comprobar el CRC32 de todo lo ya repartido del maestro, o
+     *                     {@code false} para comprobar solo su inicio y su final.
+     * @return copia de estas opciones con el valor indicado.
+     */
+    public ProcessingOptions fullChecksum(boolean fullChecksum) {
+        return new ProcessingOptions(structuredErrors, compressed, concurrentFiles, parallelism, fullChecksum);
+    }
+}
@@ -0,0 +1,368 @@
+package Utils;
+
+import Reservation.Destinations;
+import Reservation.ReservationClass;
+import Reservation.ReservationFields;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Escritor de los archivos de reservas generados (por destino, cuarentena y resultados de
+ * validación). Todos usan el mismo dialecto CSV:
+ *
+ * <ul>
+ *     <li>encabezado con los nombres de {@link ReservationFields} ({@link #header(int)});</li>
+ *     <li>campos sin espacios en los extremos separados por {@value #SEPARATOR};</li>
+ *     <li>número de asiento sin ceros a la izquierda ({@code 12C}, no {@code 012C});</li>
+ *     <li>destino con el nombre de {@link Destinations} cuando pertenece al catálogo, o tal como
+ *     aparece en el origen en caso contrario;</li>
+ *     <li>{@link System#lineSeparator()} al final de cada línea.</li>
+ * </ul>
+ *
+ * <p>Las líneas se acumulan en un {@link ByteBuffer} directo que se vuelca al canal del archivo. Si
+ * el registro leído ya está en este dialecto ({@link ReservationRecordReader#canonicalBytes}), sus
+ * bytes se copian desde el búfer de entrada sin crear ningún {@link String}; en otro caso los campos
+ * se codifican directamente en el búfer de salida. Las instancias no son seguras entre hilos.</p>
+ *
+ * <p>Con {@link #openAtomic(File)} el contenido se escribe en un archivo temporal junto al de destino
+ * y solo sustituye a este al llamar a {@link #commit()}, de modo que quien lea el archivo ve siempre
+ * la versión anterior completa o la nueva completa:</p>
+ * <pre>
+ * try (ReservationCsvWriter writer = ReservationCsvWriter.openAtomic(file)) {
+ *     writer.writeHeader(4);
+ *     writer.write(fields);
+ *     writer.commit();
+ * } // sin commit(), el temporal se descarta y el archivo queda como estaba
+ * </pre>
+ */
+public final class ReservationCsvWriter implements Closeable {
+
+    /** Separador de campos del dialecto. */
+    public static final String SEPARATOR = ", ";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SEAT_FIELD = ReservationFields.SEAT_NUMBER.ordinal();
+    private static final int DESTINATION_FIELD = ReservationFields.DESTINATION.ordinal();
+
+    private final WritableByteChannel channel;
+    private final File target;
+    private final File temporary;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Charset charset = Charset.defaultCharset();
+    private final byte[] lineSeparator = System.lineSeparator().getBytes(charset);
+    private long recordCount;
+    private long copiedCount;
+    private boolean finished;
+
+    private ReservationCsvWriter(OutputStream out, File target, File temporary) {
+        this.channel = out instanceof FileOutputStream fileOut ? fileOut.getChannel() : Channels.newChannel(out);
+        this.target = target;
+        this.temporary = temporary;
+    }
+
+    /**
+     * Abre un archivo de salida, comprimido si su nombre termina en {@link BlockCompression#FILE_SUFFIX}
+     * (véase {@link BlockCompression#newOutputStream(File, boolean)}).
+     *
+     * @param file   archivo de salida.
+     * @param append {@code true} para añadir al final del archivo existente.
+     * @return escritor posicionado al final del archivo.
+     * @throws IOException si el archivo no puede abrirse.
+     */
+    public static ReservationCsvWriter open(File file, boolean append) throws IOException {
+        return new ReservationCsvWriter(BlockCompression.newOutputStream(file, append), null, null);
+    }
+
+    /**
+     * Abre un archivo de salida que se sustituye de forma atómica al llamar a {@link #commit()}. Se
+     * escribe en un temporal oculto del mismo directorio ({@code .tmp-<pid>-<hilo>-<nombre>}), con la
+     * misma extensión para que se comprima igual que el archivo final.
+     *
+     * @param file archivo de salida; se comprime si su nombre termina en {@link BlockCompression#FILE_SUFFIX}.
+     * @return escritor sobre el temporal.
+     * @throws IOException si el temporal no puede crearse.
+     */
+    public static ReservationCsvWriter openAtomic(File file) throws IOException {
+        File target = file.getAbsoluteFile();
+        File temporary = new File(target.getParentFile(), ".tmp-" + ProcessHandle.current().pid() + "-"
+                + Thread.currentThread().getId() + "-" + target.getName());
+        return new ReservationCsvWriter(BlockCompression.newOutputStream(temporary, false), target, temporary);
+    }
+
+    /**
+     * Construye el encabezado del dialecto.
+     *
+     * @param fieldCount número de columnas (3 sin destino, 4 con destino).
+     * @return nombres de las columnas separados por {@value #SEPARATOR}.
+     */
+    public static String header(int fieldCount) {
+        ReservationFields[] fields = ReservationFields.values();
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < fieldCount; i++) {
+            if (i > 0) header.append(SEPARATOR);
+            header.append(fields[i].name());
+        }
+        return header.toString();
+    }
+
+    /**
+     * Escribe el encabezado.
+     *
+     * @param fieldCount número de columnas (3 sin destino, 4 con destino).
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public void writeHeader(int fieldCount) throws IOException {
+        putText(header(fieldCount));
+        put(lineSeparator);
+    }
+
+    /**
+     * Escribe el registro actual de un lector. Si ya está en el dialecto se copian sus bytes; si no,
+     * se formatean sus campos.
+     *
+     * @param reader      lector posicionado en un registro válido.
+     * @param destination destino del registro, o {@code null} si no tiene o no pertenece al catálogo.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public void write(ReservationRecordReader reader, Destinations destination) throws IOException {
+        ByteBuffer record = reader.canonicalBytes(destination);
+        if (record == null) {
+            write(reader.fields(), destination);
+            return;
+        }
+        put(record);
+        put(lineSeparator);
+        recordCount++;
+        copiedCount++;
+    }
+
+    /**
+     * Escribe un registro a partir de sus campos, resolviendo el destino con
+     * {@link Destinations#fromText(CharSequence)}.
+     *
+     * @param fields campos del registro, con o sin espacios en los extremos.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public void write(String[] fields) throws IOException {
+        write(fields, fields.length > DESTINATION_FIELD ? Destinations.fromText(fields[DESTINATION_FIELD]) : null);
+    }
+
+    /**
+     * Escribe un registro a partir de sus campos.
+     *
+     * @param fields      campos del registro, con o sin espacios en los extremos.
+     * @param destination destino ya resuelto del registro, o {@code null} si no tiene o no pertenece
+     *                    al catálogo; en ese caso la columna de destino se escribe tal como llega.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public void write(String[] fields, Destinations destination) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) putText(SEPARATOR);
+            if (i == DESTINATION_FIELD && destination != null) {
+                putText(destination.name());
+            } else if (i == SEAT_FIELD) {
+                putSeat(fields[i]);
+            } else {
+                putTrimmed(fields[i]);
+            }
+        }
+        put(lineSeparator);
+        recordCount++;
+    }
+
+    /**
+     * Escribe un registro a partir de sus valores tipados, como los guarda
+     * {@link Reservation.ReservationStore}.
+     *
+     * @param seatNumber       número de fila del asiento.
+     * @param seatRow          letra del asiento.
+     * @param passengerName    nombre del pasajero.
+     * @param reservationClass clase de la reserva.
+     * @param destination      destino, o {@code null} para un registro sin destino.
+     * @throws IOException si el archivo no puede escribirse.
+     */
+    public void write(int seatNumber, char seatRow, CharSequence passengerName, ReservationClass reservationClass,
+                      Destinations destination) throws IOException {
+        ensureRemaining(16);
+        putDigits(seatNumber);
+        buffer.put((byte) seatRow);
+        putText(SEPARATOR);
+        putTrimmed(passengerName);
+        putText(SEPARATOR);
+        putText(reservationClass.name());
+        if (destination != null) {
+            putText(SEPARATOR);
+            putText(destination.name());
+        }
+        put(lineSeparator);
+        recordCount++;
+    }
+
+    /**
+     * @return número de registros escritos, sin contar el encabezado.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return número de registros que se copiaron desde el búfer de entrada sin volver a formatearlos.
+     */
+    public long getCopiedCount() {
+        return copiedCount;
+    }
+
+    /**
+     * Vuelca lo pendiente y cierra el archivo. Si se abrió con {@link #openAtomic(File)}, el temporal
+     * sustituye al archivo de destino y se elimina la otra variante de este (comprimida o sin
+     * comprimir). Después no se puede seguir escribiendo.
+     *
+     * @throws IOException si el archivo no puede escribirse, cerrarse o sustituirse.
+     */
+    public void commit() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+            if (temporary != null) {
+                Files.move(temporary.toPath(), target.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                BlockCompression.deleteOtherVariant(target);
+            }
+        } finally {
+            if (temporary != null) {
+                Files.deleteIfExists(temporary.toPath());
+            }
+        }
+    }
+
+    /**
+     * Cierra el archivo. Un escritor abierto con {@link #open(File, boolean)} vuelca antes lo
+     * pendiente; uno abierto con {@link #openAtomic(File)} que no se ha confirmado descarta el
+     * temporal y deja el archivo de destino como estaba.
+     *
+     * @throws IOException si el archivo no puede escribirse o cerrarse.
+     */
+    @Override
+    public void close() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (temporary == null) {
+            commit();
+            return;
+        }
+        finished = true;
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    private void put(ByteBuffer source) throws IOException {
+        if (source.remaining() > buffer.remaining()) {
+            drain();
+            if (source.remaining() > buffer.capacity()) {
+                writeFully(source);
+                return;
+            }
+        }
+        buffer.put(source);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Escribe un número de asiento sin los ceros a la izquierda de la fila, dejando al menos un dígito.
+     */
+    private void putSeat(CharSequence seat) throws IOException {
+        int start = 0;
+        int end = seat.length();
+        while (start < end && seat.charAt(start) <= ' ') start++;
+        while (end > start && seat.charAt(end - 1) <= ' ') end--;
+        while (end - start > 2 && seat.charAt(start) == '0' && Character.isDigit(seat.charAt(start + 1))) start++;
+        putText(seat, start, end);
+    }
+
+    private void putTrimmed(CharSequence text) throws IOException {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        putText(text, start, end);
+    }
+
+    private void putText(CharSequence text) throws IOException {
+        putText(text, 0, text.length());
+    }
+
+    /**
+     * Copia un texto ASCII byte a byte; cualquier otro se codifica con el juego de caracteres por
+     * defecto, igual que {@link java.io.FileWriter}.
+     */
+    private void putText(CharSequence text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) >= 0x80) {
+                put(charset.encode(CharBuffer.wrap(text, start, end)));
+                return;
+            }
+        }
+        ensureRemaining(end - start);
+        if (end - start > buffer.remaining()) {
+            put(charset.encode(CharBuffer.wrap(text, start, end)));
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private void putDigits(int value) {
+        if (value >= 10) {
+            putDigits(value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    private void ensureRemaining(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        long start = System.nanoTime();
+        int bytes = source.remaining();
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+        ReservationMetrics.recordWrite(bytes, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,479 @@
+package Utils;
+
+import Reservation.ReservationFields;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de las operaciones sobre archivos de reservas. Todos los contadores son {@link LongAdder},
+ * así que varios hilos los actualizan sin bloquearse, y ninguno se toca por cada registro válido:
+ *
+ * <ul>
+ *     <li>cada {@link Operation} se mide con un {@link Timer} por llamada ({@link OperationMetrics});</li>
+ *     <li>los lectores y escritores suman los bytes y el tiempo de E/S por ventana o por búfer
+ *     ({@link #recordRead(long, long)}, {@link #recordWrite(long, long)});</li>
+ *     <li>los fallos de validación se cuentan por regla de {@link ReservationFields} solo cuando
+ *     {@link FieldValidator} rechaza un valor.</li>
+ * </ul>
+ *
+ * <p>Las métricas pueden consultarse con {@link #report()}, volcarse periódicamente con
+ * {@link #startPeriodicDump(PrintStream, long, TimeUnit)} o publicarse por JMX con
+ * {@link #registerMBeans()}:</p>
+ * <pre>
+ * try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.PROCESS)) {
+ *     timer.addBytesRead(inputFile.length());
+ *     ... // procesar
+ *     timer.addRows(rows);
+ *     timer.success();
+ * }
+ * </pre>
+ */
+public final class ReservationMetrics {
+
+    /**
+     * Operaciones medidas, identificadas por el método público que las inicia.
+     */
+    public enum Operation {
+        /** {@code ReservationAll.createandFillFileByDestination} y su variante en streaming. */
+        PARTITION("createandFillFileByDestination"),
+        /** {@link Utils#processReservationFile(java.io.File, int)}. */
+        PROCESS("processReservationFile"),
+        /** {@link Utils#processReservationFileParallel(java.io.File, int)}. */
+        PROCESS_PARALLEL("processReservationFileParallel"),
+        /** {@link Utils#processReservationFilePipelined(java.io.File, int)}. */
+        PROCESS_PIPELINED("processReservationFilePipelined"),
+        /** {@code ReservationAll.logguer} y {@code ReservationAll.report}. */
+        REPORT("logguer"),
+        /** {@code ReservationAll.writeReservation}, sin contar la captura de datos. */
+        WRITE_RESERVATION("writeReservation"),
+        /** {@code ReservationQuery.count}, {@code countBy} y {@code list}. */
+        QUERY("ReservationQuery");
+
+        private final String methodName;
+
+        Operation(String methodName) {
+            this.methodName = methodName;
+        }
+
+        /**
+         * @return nombre del método medido.
+         */
+        public String methodName() {
+            return methodName;
+        }
+    }
+
+    /**
+     * Dominio de los nombres JMX.
+     */
+    public static final String JMX_DOMAIN = "Reservation";
+
+    private static final ReservationFields[] FIELDS = ReservationFields.values();
+    private static final OperationMetrics[] OPERATIONS = new OperationMetrics[Operation.values().length];
+    /** Por cada campo: valor vacío y formato no válido, en ese orden. */
+    private static final LongAdder[] RULE_FAILURES = new LongAdder[FIELDS.length * 2];
+    private static final LongAdder FIELD_COUNT_FAILURES = new LongAdder();
+    private static final LongAdder SEAT_CONFLICTS = new LongAdder();
+    private static final LongAdder BYTES_READ = new LongAdder();
+    private static final LongAdder READ_NANOS = new LongAdder();
+    private static final LongAdder BYTES_WRITTEN = new LongAdder();
+    private static final LongAdder WRITE_NANOS = new LongAdder();
+    private static final Timer DISABLED = new Timer(null);
+
+    private static volatile boolean enabled = true;
+    private static boolean registered;
+
+    static {
+        for (Operation operation : Operation.values()) {
+            OPERATIONS[operation.ordinal()] = new OperationMetrics(operation);
+        }
+        for (int i = 0; i < RULE_FAILURES.length; i++) {
+            RULE_FAILURES[i] = new LongAdder();
+        }
+    }
+
+    private ReservationMetrics() {
+    }
+
+    /**
+     * @return {@code true} si las métricas se están registrando (por defecto).
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Activa o desactiva el registro de métricas. Desactivadas, los temporizadores y contadores no
+     * hacen nada; las métricas acumuladas se conservan.
+     *
+     * @param enabled {@code false} para dejar de registrar.
+     */
+    public static void setEnabled(boolean enabled) {
+        ReservationMetrics.enabled = enabled;
+    }
+
+    /**
+     * Empieza a medir una llamada. El temporizador debe cerrarse al terminar la llamada; si antes no
+     * se invoca {@link Timer#success()}, la llamada cuenta como fallida.
+     *
+     * @param operation operación medida.
+     * @return temporizador de la llamada.
+     */
+    public static Timer start(Operation operation) {
+        return enabled ? new Timer(OPERATIONS[operation.ordinal()]) : DISABLED;
+    }
+
+    /**
+     * Registra una lectura de un archivo de reservas.
+     *
+     * @param bytes bytes de texto obtenidos.
+     * @param nanos tiempo empleado, incluida la descompresión si el archivo está comprimido.
+     */
+    public static void recordRead(long bytes, long nanos) {
+        if (enabled) {
+            BYTES_READ.add(bytes);
+            READ_NANOS.add(nanos);
+        }
+    }
+
+    /**
+     * Registra una escritura en un archivo de reservas.
+     *
+     * @param bytes bytes de texto escritos.
+     * @param nanos tiempo empleado, incluida la compresión si el archivo se comprime.
+     */
+    public static void recordWrite(long bytes, long nanos) {
+        if (enabled) {
+            BYTES_WRITTEN.add(bytes);
+            WRITE_NANOS.add(nanos);
+        }
+    }
+
+    /**
+     * Cuenta un valor rechazado por {@link FieldValidator}.
+     *
+     * @param field campo validado.
+     * @param code  código de error distinto de {@link FieldValidator#OK}.
+     */
+    static void recordRuleFailure(ReservationFields field, int code) {
+        if (enabled) {
+            RULE_FAILURES[field.ordinal() * 2 + (code == FieldValidator.EMPTY ? 0 : 1)].increment();
+        }
+    }
+
+    /**
+     * Cuenta un registro rechazado por tener un número de campos distinto del esperado.
+     */
+    public static void recordFieldCountFailure() {
+        if (enabled) {
+            FIELD_COUNT_FAILURES.increment();
+        }
+    }
+
+    /**
+     * Cuenta un registro rechazado porque su asiento ya estaba ocupado.
+     */
+    public static void recordSeatConflict() {
+        if (enabled) {
+            SEAT_CONFLICTS.increment();
+        }
+    }
+
+    /**
+     * @param operation operación medida.
+     * @return métricas acumuladas de la operación.
+     */
+    public static OperationMetrics operation(Operation operation) {
+        return OPERATIONS[operation.ordinal()];
+    }
+
+    /**
+     * @return fallos de validación por regla, con la forma {@code CAMPO.CÓDIGO} (por ejemplo
+     *         {@code SEAT_NUMBER.INVALID_SEAT}), en el orden de {@link ReservationFields}.
+     */
+    public static Map<String, Long> ruleFailures() {
+        Map<String, Long> failures = new LinkedHashMap<>();
+        for (ReservationFields field : FIELDS) {
+            failures.put(field.name() + ".EMPTY", RULE_FAILURES[field.ordinal() * 2].sum());
+            failures.put(field.name() + "." + ruleName(field), RULE_FAILURES[field.ordinal() * 2 + 1].sum());
+        }
+        return failures;
+    }
+
+    /**
+     * @return registros rechazados por tener un número de campos distinto del esperado.
+     */
+    public static long fieldCountFailures() {
+        return FIELD_COUNT_FAILURES.sum();
+    }
+
+    /**
+     * @return registros rechazados por ocupar un asiento ya reservado.
+     */
+    public static long seatConflicts() {
+        return SEAT_CONFLICTS.sum();
+    }
+
+    /**
+     * @return bytes de texto leídos de los archivos de reservas.
+     */
+    public static long bytesRead() {
+        return BYTES_READ.sum();
+    }
+
+    /**
+     * @return tiempo de lectura en nanosegundos, sumado entre hilos.
+     */
+    public static long readNanos() {
+        return READ_NANOS.sum();
+    }
+
+    /**
+     * @return bytes escritos en los archivos de reservas.
+     */
+    public static long bytesWritten() {
+        return BYTES_WRITTEN.sum();
+    }
+
+    /**
+     * @return tiempo de escritura en nanosegundos, sumado entre hilos.
+     */
+    public static long writeNanos() {
+        return WRITE_NANOS.sum();
+    }
+
+    /**
+     * Pone a cero todas las métricas.
+     */
+    public static void reset() {
+        for (OperationMetrics metrics : OPERATIONS) {
+            metrics.reset();
+        }
+        for (LongAdder failures : RULE_FAILURES) {
+            failures.reset();
+        }
+        FIELD_COUNT_FAILURES.reset();
+        SEAT_CONFLICTS.reset();
+        BYTES_READ.reset();
+        READ_NANOS.reset();
+        BYTES_WRITTEN.reset();
+        WRITE_NANOS.reset();
+    }
+
+    /**
+     * Construye un informe de texto con las operaciones llamadas al menos una vez, la E/S y los
+     * fallos de validación por regla.
+     *
+     * @return el informe, terminado en salto de línea.
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder("📈 Métricas de reservas:").append(System.lineSeparator());
+        for (OperationMetrics metrics : OPERATIONS) {
+            if (metrics.getCalls() > 0) {
+                report.append(" - ").append(metrics).append(System.lineSeparator());
+            }
+        }
+        report.append(String.format(" - E/S: leídos %,.1f MB en %.3f s, escritos %,.1f MB en %.3f s%n",
+                bytesRead() / 1e6, readNanos() / 1e9, bytesWritten() / 1e6, writeNanos() / 1e9));
+        report.append(" - Fallos de validación por regla:").append(System.lineSeparator());
+        for (Map.Entry<String, Long> entry : ruleFailures().entrySet()) {
+            report.append(String.format("     %-34s %,12d%n", entry.getKey(), entry.getValue()));
+        }
+        report.append(String.format("     %-34s %,12d%n", "número de campos", fieldCountFailures()));
+        report.append(String.format("     %-34s %,12d%n", "asiento ocupado", seatConflicts()));
+        return report.toString();
+    }
+
+    /**
+     * Escribe {@link #report()} en la salida indicada.
+     *
+     * @param out salida del informe.
+     */
+    public static void dump(PrintStream out) {
+        out.print(report());
+        out.flush();
+    }
+
+    /**
+     * Escribe {@link #report()} periódicamente desde un hilo en segundo plano, que no impide que la
+     * aplicación termine.
+     *
+     * @param out    salida del informe.
+     * @param period intervalo entre informes.
+     * @param unit   unidad de {@code period}.
+     * @return manejador que detiene los informes al cerrarse.
+     */
+    public static Closeable startPeriodicDump(PrintStream out, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("El intervalo entre informes debe ser positivo.");
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "reservation-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> dump(out), period, period, unit);
+        return scheduler::shutdownNow;
+    }
+
+    /**
+     * Publica las métricas en el servidor JMX de la plataforma: {@code Reservation:type=Metrics}
+     * ({@link ReservationMetricsMXBean}) y {@code Reservation:type=Operation,name=<método>} para cada
+     * operación ({@link OperationMetricsMXBean}). Las llamadas posteriores no hacen nada.
+     *
+     * @throws IllegalStateException si los MBeans no pueden registrarse.
+     */
+    public static synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new Bean(), new ObjectName(JMX_DOMAIN + ":type=Metrics"));
+            for (OperationMetrics metrics : OPERATIONS) {
+                server.registerMBean(metrics, new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + metrics.getOperation()));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudieron registrar las métricas en JMX.", e);
+        }
+        registered = true;
+    }
+
+    private static String ruleName(ReservationFields field) {
+        return switch (field) {
+            case SEAT_NUMBER -> "INVALID_SEAT";
+            case PASSENGER_NAME -> "INVALID_NAME";
+            case CLASS -> "INVALID_CLASS";
+            case DESTINATION -> "DESTINATION_TOO_SHORT";
+        };
+    }
+
+    /**
+     * Medición de una llamada a una {@link Operation}. No es seguro entre hilos: lo usa el hilo que
+     * inicia la llamada.
+     */
+    public static final class Timer implements AutoCloseable {
+
+        private final OperationMetrics metrics;
+        private final long startNanos;
+        private final long startIoNanos;
+        private long rows;
+        private long bytesRead;
+        private boolean succeeded;
+
+        private Timer(OperationMetrics metrics) {
+            this.metrics = metrics;
+            this.startNanos = metrics == null ? 0 : System.nanoTime();
+            this.startIoNanos = metrics == null ? 0 : READ_NANOS.sum() + WRITE_NANOS.sum();
+        }
+
+        /**
+         * Suma registros procesados por la llamada.
+         *
+         * @param rows número de registros.
+         */
+        public void addRows(long rows) {
+            this.rows += rows;
+        }
+
+        /**
+         * Suma bytes de los archivos de entrada de la llamada.
+         *
+         * @param bytes número de bytes.
+         */
+        public void addBytesRead(long bytes) {
+            this.bytesRead += bytes;
+        }
+
+        /**
+         * Marca la llamada como terminada sin excepción.
+         */
+        public void success() {
+            succeeded = true;
+        }
+
+        /**
+         * Registra la llamada en las métricas de su operación.
+         */
+        @Override
+        public void close() {
+            if (metrics == null) {
+                return;
+            }
+            long ioNanos = READ_NANOS.sum() + WRITE_NANOS.sum() - startIoNanos;
+            metrics.record(System.nanoTime() - startNanos, rows, bytesRead, ioNanos, succeeded);
+        }
+    }
+
+    /**
+     * Implementación de {@link ReservationMetricsMXBean} sobre los contadores estáticos.
+     */
+    private static final class Bean implements ReservationMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return ReservationMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            ReservationMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getRuleFailures() {
+            return ruleFailures();
+        }
+
+        @Override
+        public long getFieldCountFailures() {
+            return fieldCountFailures();
+        }
+
+        @Override
+        public long getSeatConflicts() {
+            return seatConflicts();
+        }
+
+        @Override
+        public long getBytesRead() {
+            return bytesRead();
+        }
+
+        @Override
+        public double getReadMillis() {
+            return readNanos() / 1e6;
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return bytesWritten();
+        }
+
+        @Override
+        public double getWriteMillis() {
+            return writeNanos() / 1e6;
+        }
+
+        @Override
+        public String dump() {
+            return report();
+        }
+
+        @Override
+        public void reset() {
+            ReservationMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package Utils;
+
+import java.util.Map;
+
+/**
+ * Vista JMX de los contadores globales de {@link ReservationMetrics}, registrada como
+ * {@code Reservation:type=Metrics} por {@link ReservationMetrics#registerMBeans()}.
+ */
+public interface ReservationMetricsMXBean {
+
+    /**
+     * @return {@code true} si las métricas se están registrando.
+     */
+    boolean isEnabled();
+
+    /**
+     * Activa o desactiva el registro de métricas.
+     *
+     * @param enabled {@code false} para dejar de registrar.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return fallos de validación por regla ({@code CAMPO.CÓDIGO}, por ejemplo
+     *         {@code SEAT_NUMBER.INVALID_SEAT}).
+     */
+    Map<String, Long> getRuleFailures();
+
+    /**
+     * @return registros rechazados por tener un número de campos distinto del esperado.
+     */
+    long getFieldCountFailures();
+
+    /**
+     * @return registros rechazados por ocupar un asiento ya reservado.
+     */
+    long getSeatConflicts();
+
+    /**
+     * @return bytes de texto leídos de los archivos de reservas.
+     */
+    long getBytesRead();
+
+    /**
+     * @return tiempo de lectura (incluida la descompresión), en milisegundos.
+     */
+    double getReadMillis();
+
+    /**
+     * @return bytes escritos en los archivos de reservas.
+     */
+    long getBytesWritten();
+
+    /**
+     * @return tiempo de escritura (incluida la compresión), en milisegundos.
+     */
+    double getWriteMillis();
+
+    /**
+     * @return informe de texto con todas las métricas ({@link ReservationMetrics#report()}).
+     */
+    String dump();
+
+    /**
+     * Pone a cero todas las métricas.
+     */
+    void reset();
+}
@@ -0,0 +1,120 @@
+package Utils;
+
+import Reservation.BinaryReservationReader;
+import Reservation.Destinations;
+import Reservation.ReservationClass;
+import Reservation.ReservationFields;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Recorrido secuencial de los registros de un archivo de reservas, independiente de su formato.
+ * Los registros se exponen como campos de texto con la misma semántica que {@code line.split(",")}
+ * sobre el CSV original, incluida la línea de encabezado como primer registro.
+ */
+public interface ReservationRecordReader extends Closeable {
+
+    /**
+     * Abre un archivo de reservas detectando su formato: binario columnar si empieza por la firma
+     * de {@link BinaryReservationReader}, CSV comprimido con GZIP ({@link BlockCompression}) si empieza
+     * por la firma GZIP, CSV en cualquier otro caso.
+     *
+     * @param file archivo de reservas.
+     * @return lector posicionado antes del primer registro.
+     * @throws IOException si el archivo no existe o no puede abrirse.
+     */
+    static ReservationRecordReader open(File file) throws IOException {
+        if (BinaryReservationReader.isBinary(file)) {
+            return BinaryReservationReader.open(file);
+        }
+        if (BlockCompression.isCompressed(file)) {
+            return CompressedCsvReader.open(file);
+        }
+        return MappedCsvReader.open(file);
+    }
+
+    /**
+     * Avanza al siguiente registro.
+     *
+     * @return {@code true} si hay un registro disponible o {@code false} al llegar al final.
+     * @throws IOException si ocurre un problema al leer el archivo.
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @return número de campos del registro actual.
+     */
+    int fieldCount();
+
+    /**
+     * Devuelve un campo del registro actual.
+     *
+     * @param index posición del campo.
+     * @return el valor del campo.
+     */
+    String field(int index);
+
+    /**
+     * @return todos los campos del registro actual.
+     */
+    String[] fields();
+
+    /**
+     * Interpreta un campo del registro actual como destino, con las reglas de
+     * {@link Destinations#fromText(CharSequence)}.
+     *
+     * @param index posición del campo.
+     * @return el destino o {@code null} si el campo no pertenece al catálogo.
+     */
+    default Destinations destination(int index) {
+        return Destinations.fromText(field(index));
+    }
+
+    /**
+     * Interpreta un campo del registro actual como clase de reserva, sin distinguir mayúsculas ni
+     * espacios en los extremos (las mismas reglas que {@link Reservation.ReservationStatistics}).
+     *
+     * @param index posición del campo.
+     * @return la clase o {@code null} si el campo no corresponde a ninguna.
+     */
+    default ReservationClass reservationClass(int index) {
+        String value = field(index).trim();
+        for (ReservationClass reservationClass : ReservationClass.values()) {
+            if (reservationClass.name().equalsIgnoreCase(value)) {
+                return reservationClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Valida un campo del registro actual con {@link FieldValidator}.
+     *
+     * @param index            posición del campo.
+     * @param reservationField tipo de campo que determina la validación.
+     * @return {@link FieldValidator#OK} o el código del error encontrado.
+     */
+    default int validate(int index, ReservationFields reservationField) {
+        return FieldValidator.validate(field(index), reservationField);
+    }
+
+    /**
+     * Devuelve los bytes del registro actual, sin terminador, si ya están escritos en el dialecto de
+     * {@link ReservationCsvWriter} con el destino indicado, para que puedan copiarse a la salida sin
+     * volver a formatearlos.
+     *
+     * @param destination destino del registro, o {@code null} si no tiene o no pertenece al catálogo.
+     * @return vista de solo lectura del registro, o {@code null} si hay que formatearlo.
+     */
+    default ByteBuffer canonicalBytes(Destinations destination) {
+        return null;
+    }
+
+    /**
+     * @return número de registro (empezando en 1, contando el encabezado).
+     */
+    long lineNumber();
+}
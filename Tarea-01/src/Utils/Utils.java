@@ -1,11 +1,14 @@
 package Utils;
 
+import Reservation.BinaryReservationReader;
+import Reservation.Destinations;
+import Reservation.ReservationClass;
 import Reservation.ReservationFields;
+import Reservation.ReservationRecord;
+import Reservation.ReservationStore;
+import Reservation.SeatOccupancy;
 
 import java.io.*;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
@@ -56,6 +59,7 @@ public class Utils {
 
             // Comprobar cantidad de columnas
             if (row.length != expectedFieldsCount) {
+                ReservationMetrics.recordFieldCountFailure();
                 System.out.printf("❌ Error en registro #%d: se esperaban %d campos, pero hay %d.%n",
                         rowIndex + 1, expectedFieldsCount, row.length);
                 return false;
@@ -63,13 +67,12 @@ public class Utils {
 
             // Validar cada campo contra su ReservationField
             for (int colIndex = 0; colIndex < expectedFieldsCount; colIndex++) {
-                String fieldValue = row[colIndex].trim();
                 ReservationFields fieldType = reservationFields[colIndex];
 
-                String error = validateField(fieldValue, fieldType);
-                if (error != null) {
+                int code = FieldValidator.validate(row[colIndex], fieldType);
+                if (code != FieldValidator.OK) {
                     System.out.printf("❌ Error en registro #%d, campo %s: %s%n",
-                            rowIndex + 1, fieldType.name(), error);
+                            rowIndex + 1, fieldType.name(), FieldValidator.message(code, fieldType));
                     return false;
                 }
             }
@@ -80,116 +83,425 @@ public class Utils {
 
 
     /**
-     * Aplica reglas de validación específicas según el tipo de campo indicado.
+     * Aplica reglas de validación específicas según el tipo de campo indicado. Delega en
+     * {@link FieldValidator}, que evita expresiones regulares y solo construye el mensaje cuando
+     * hay un error.
      *
      * @param field            valor a validar.
      * @param reservationField tipo de campo que determina la validación.
      * @return {@code null} si el valor es válido o un mensaje descriptivo del error.
      */
     public static String validateField(String field, ReservationFields reservationField) {
-        if (field == null || field.trim().isEmpty()) {
-            return "⚠️ El campo " + reservationField.name() + " no puede estar vacío.";
-        }
+        return FieldValidator.message(FieldValidator.validate(field, reservationField), reservationField);
+    }
 
-        field = field.trim();
+    /**
+     * Procesa un archivo de reservas existente, separando los registros válidos por destino y
+     * registrando en un log los fallos detectados.
+     *
+     * @param inputFile           archivo CSV que contiene las reservas a evaluar.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @throws IOException si ocurre un problema al leer el archivo o al escribir los resultados.
+     */
+    public static void processReservationFile(
+            File inputFile,
+            int expectedFieldsCount
+    ) throws IOException {
+        processReservationFile(inputFile, expectedFieldsCount, ProcessingOptions.defaults());
+    }
 
-        return switch (reservationField) {
-            case SEAT_NUMBER -> {
-                if (!field.matches("\\d{1,3}[A-F]")) {
-                    yield "❌ El número de asiento debe ser de 1 a 3 dígitos seguidos de una letra A-F (ej: 12C).";
+    /**
+     * Procesa un archivo de reservas existente, separando los registros válidos por destino y
+     * registrando en un log los fallos detectados. Los errores se escriben a través de un único
+     * {@link ErrorLogSink} que permanece abierto durante todo el procesamiento. Un asiento ya ocupado
+     * en el mismo destino por un registro anterior se considera un conflicto ({@link SeatOccupancy})
+     * y también se registra como error.
+     *
+     * <p>Cada destino se reconoce con {@link Destinations#fromText(CharSequence)}, de modo que
+     * {@code "Nueva York"} y {@code "NUEVA_YORK"} van al mismo archivo
+     * ({@link Destinations#fileName()}). Los registros válidos con un destino fuera del catálogo se
+     * apartan en {@link Destinations#QUARANTINE_FILE_NAME}, sin comprobar su asiento.</p>
+     *
+     * <p>Los registros válidos se guardan como {@link ReservationRecord} en un {@link ReservationStore}
+     * hasta escribirlos, y el resumen los muestra tal y como quedan en los archivos. Solo los de la
+     * cuarentena se conservan como texto, porque su destino no tiene representación tipada. Como en el
+     * resto de APIs tipadas, un nombre con caracteres de control se registra como error
+     * ({@link ReservationRecord#validate(boolean)}).</p>
+     *
+     * <p>El archivo de entrada puede estar comprimido o no; con {@link ProcessingOptions#compressed()}
+     * los archivos por destino se escriben comprimidos. Con {@link ProcessingOptions#concurrentFiles()}
+     * mayor que {@code 1} se escriben varios a la vez ({@link FileFanOut}): cada archivo se escribe en
+     * un temporal que sustituye al anterior al completarse, y un error en un archivo no impide generar
+     * los demás.</p>
+     *
+     * @param inputFile           archivo que contiene las reservas a evaluar.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @param options             opciones de procesamiento; no se usa
+     *                            {@link ProcessingOptions#parallelism()}.
+     * @throws IOException si ocurre un problema al leer el archivo o al escribir los resultados.
+     */
+    public static void processReservationFile(
+            File inputFile,
+            int expectedFieldsCount,
+            ProcessingOptions options
+    ) throws IOException {
+        File errorLog = new File("registro_errores.log");
+        boolean hasDestination = expectedFieldsCount > ReservationFields.DESTINATION.ordinal();
+        ReservationStore store = new ReservationStore(hasDestination);
+        Map<String, List<String[]>> validByDestination = new LinkedHashMap<>();
+        SeatOccupancy occupancy = new SeatOccupancy();
+
+        try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.PROCESS)) {
+            timer.addBytesRead(inputFile.length());
+            long rows = 0;
+
+            // Los registros se validan a medida que se leen; solo los válidos quedan en memoria
+            try (ReservationRecordReader reader = ReservationRecordReader.open(inputFile)) {
+                if (errorLog.exists()) errorLog.delete(); // limpiar logs previos
+
+                try (ErrorLogSink errorSink = new ErrorLogSink(errorLog, options.structuredErrors(), ErrorLogSink.DEFAULT_BATCH_SIZE)) {
+                    while (reader.next()) {
+                        rows++;
+                        long lineNumber = reader.lineNumber();
+                        String[] row = reader.fields();
+                        String error = validateRow(row, expectedFieldsCount);
+                        if (error != null) {
+                            errorSink.log(lineNumber, row, error);
+                            continue;
+                        }
+
+                        Destinations destination = destinationOf(row, expectedFieldsCount);
+                        String file = outputFileOf(destination, expectedFieldsCount);
+                        if (destination == null && hasDestination) {
+                            validByDestination.computeIfAbsent(file, k -> new ArrayList<>()).add(row);
+                            continue;
+                        }
+
+                        ReservationRecord reservation = toRecord(row, destination);
+                        error = reservation.validate(hasDestination);
+                        if (error == null) {
+                            error = occupySeat(occupancy, row, destination, expectedFieldsCount);
+                        }
+                        if (error != null) {
+                            errorSink.log(lineNumber, row, error);
+                            continue;
+                        }
+
+                        store.add(reservation);
+                        ((StoredRows) validByDestination.computeIfAbsent(file, k -> new StoredRows(store)))
+                                .add(store.size() - 1);
+                    }
                 }
-                yield null; // sin error
             }
 
-            case PASSENGER_NAME -> {
-                if (!field.matches("[A-Za-zÁÉÍÓÚÑáéíóúñ\\s]+")) {
-                    yield "❌ El nombre solo puede contener letras y espacios.";
-                }
-                yield null;
-            }
+            writeProcessingResults(validByDestination, errorLog, expectedFieldsCount,
+                    options.compressed(), options.concurrentFiles());
+            timer.addRows(rows);
+            timer.success();
+        }
+    }
 
-            case CLASS -> {
-                if (!field.matches("ECONOMY|BUSINESS|FIRST")) {
-                    yield "❌ La clase debe ser ECONOMY, BUSINESS o FIRST.";
-                }
-                yield null;
-            }
+    /**
+     * Variante paralela de {@link #processReservationFile(File, int)} que utiliza tantos hilos como
+     * procesadores disponibles.
+     *
+     * @param inputFile           archivo CSV que contiene las reservas a evaluar.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @throws IOException si ocurre un problema al leer el archivo o al escribir los resultados.
+     */
+    public static void processReservationFileParallel(File inputFile, int expectedFieldsCount) throws IOException {
+        processReservationFileParallel(inputFile, expectedFieldsCount, ProcessingOptions.defaults());
+    }
 
-            case DESTINATION -> {
-                if (field.length() < 3) {
-                    yield "❌ El destino debe tener al menos 3 caracteres.";
+    /**
+     * Variante paralela de {@link #processReservationFile(File, int)}. El archivo se divide en
+     * bloques de bytes alineados a fin de línea que se validan en un {@link java.util.concurrent.ForkJoinPool};
+     * los resultados se combinan respetando el orden original, de modo que los ficheros de salida y
+     * el contenido de {@code registro_errores.log} coinciden con los de la ejecución secuencial. Los
+     * archivos comprimidos con {@link BlockCompression} se reparten por bloques y cada hilo
+     * descomprime los suyos.
+     *
+     * @param inputFile           archivo CSV que contiene las reservas a evaluar.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @param parallelism         número de hilos de validación.
+     * @throws IOException si ocurre un problema al leer el archivo o al escribir los resultados.
+     */
+    public static void processReservationFileParallel(
+            File inputFile,
+            int expectedFieldsCount,
+            int parallelism
+    ) throws IOException {
+        processReservationFileParallel(inputFile, expectedFieldsCount, ProcessingOptions.defaults().parallelism(parallelism));
+    }
+
+    /**
+     * Variante paralela de {@link #processReservationFile(File, int, ProcessingOptions)} con
+     * {@link ProcessingOptions#parallelism()} hilos de validación. Produce los mismos archivos que la
+     * ejecución secuencial con las mismas opciones.
+     *
+     * @param inputFile           archivo que contiene las reservas a evaluar.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @param options             opciones de procesamiento.
+     * @throws IOException si ocurre un problema al leer el archivo o al escribir los resultados.
+     */
+    public static void processReservationFileParallel(
+            File inputFile,
+            int expectedFieldsCount,
+            ProcessingOptions options
+    ) throws IOException {
+        if (BinaryReservationReader.isBinary(inputFile)
+                || (BlockCompression.isCompressed(inputFile) && !BlockCompression.hasBlocks(inputFile))) {
+            // Los bloques se calculan sobre líneas de texto: los archivos binarios, y los GZIP que no
+            // indican el tamaño de sus bloques, van por la vía secuencial.
+            processReservationFile(inputFile, expectedFieldsCount, options);
+            return;
+        }
+
+        try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.PROCESS_PARALLEL)) {
+            timer.addBytesRead(inputFile.length());
+            ChunkedReservationValidator.Result result =
+                    ChunkedReservationValidator.validate(inputFile, expectedFieldsCount, options.parallelism());
+            result.resolveSeatConflicts(expectedFieldsCount);
+
+            File errorLog = new File("registro_errores.log");
+            if (errorLog.exists()) errorLog.delete(); // limpiar logs previos
+
+            try (ErrorLogSink errorSink = new ErrorLogSink(errorLog, options.structuredErrors(), ErrorLogSink.DEFAULT_BATCH_SIZE)) {
+                for (ChunkedReservationValidator.RowError rowError : result.errors()) {
+                    errorSink.log(rowError.lineNumber(), rowError.row(), rowError.description());
                 }
-                yield null;
             }
-        };
+
+            writeProcessingResults(result.validByDestination(), errorLog, expectedFieldsCount,
+                    options.compressed(), options.concurrentFiles());
+            timer.addRows(result.errors().size() + result.validByDestination().values().stream().mapToLong(List::size).sum());
+            timer.success();
+        }
     }
 
     /**
-     * Procesa un archivo de reservas existente, separando los registros válidos por destino y
-     * registrando en un log los fallos detectados.
+     * Variante por etapas de {@link #processReservationFile(File, int)} que utiliza tantos hilos de
+     * validación como procesadores disponibles.
      *
-     * @param inputFile           archivo CSV que contiene las reservas a evaluar.
+     * @param inputFile           archivo que contiene las reservas a evaluar.
      * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @return métricas de cada etapa, en el orden del pipeline.
      * @throws IOException si ocurre un problema al leer el archivo o al escribir los resultados.
      */
-    public static void processReservationFile(
+    public static List<PipelineStageMetrics> processReservationFilePipelined(
             File inputFile,
             int expectedFieldsCount
     ) throws IOException {
+        return processReservationFilePipelined(inputFile, expectedFieldsCount, ProcessingOptions.defaults());
+    }
+
+    /**
+     * Variante por etapas de {@link #processReservationFile(File, int, ProcessingOptions)}. La lectura,
+     * la validación, el enrutado por destino y la escritura de cada archivo de salida corren en hilos
+     * distintos unidos por colas acotadas, de modo que la E/S y la validación se solapan y solo
+     * permanecen en memoria los lotes en curso. Si una etapa se retrasa, las anteriores esperan
+     * (contrapresión). Los archivos de salida y {@code registro_errores.log} coinciden con los de la
+     * ejecución secuencial.
+     *
+     * <p>Como los registros válidos no se conservan, el resumen muestra solo cuántos hay en cada
+     * archivo, seguido de las métricas de cada etapa ({@link PipelineStageMetrics}).</p>
+     *
+     * @param inputFile           archivo que contiene las reservas a evaluar.
+     * @param expectedFieldsCount número de columnas que cada registro debería poseer.
+     * @param options             opciones de procesamiento; {@link ProcessingOptions#parallelism()}
+     *                            es el número de hilos de validación y no se usa
+     *                            {@link ProcessingOptions#concurrentFiles()}, porque cada archivo de
+     *                            salida ya tiene su propio hilo de escritura.
+     * @return métricas de cada etapa, en el orden del pipeline.
+     * @throws IOException si ocurre un problema al leer el archivo o al escribir los resultados.
+     */
+    public static List<PipelineStageMetrics> processReservationFilePipelined(
+            File inputFile,
+            int expectedFieldsCount,
+            ProcessingOptions options
+    ) throws IOException {
+        File errorLog = new File("registro_errores.log");
+        try (ReservationMetrics.Timer timer = ReservationMetrics.start(ReservationMetrics.Operation.PROCESS_PIPELINED)) {
+            timer.addBytesRead(inputFile.length());
+            PipelinedReservationValidator.Result result = PipelinedReservationValidator.process(
+                    inputFile, expectedFieldsCount, options.parallelism(), errorLog,
+                    options.structuredErrors(), options.compressed());
+
+            Map<String, Long> validCounts = result.validCounts();
+            System.out.println("\n📦 Resumen de archivos creados:");
+            if (validCounts.isEmpty()) {
+                System.out.println("⚠ No se generaron archivos de reservas válidas.");
+            } else {
+                System.out.println("\n📊 Registros válidos por archivo:");
+                for (Map.Entry<String, Long> entry : validCounts.entrySet()) {
+                    System.out.println(" - " + entry.getKey() + (options.compressed() ? BlockCompression.FILE_SUFFIX : "")
+                            + ": " + entry.getValue());
+                }
+
+                Long quarantined = validCounts.get(Destinations.QUARANTINE_FILE_NAME);
+                if (quarantined != null) {
+                    System.out.println("\n⚠ Reservas con destino desconocido en cuarentena ("
+                            + Destinations.QUARANTINE_FILE_NAME + "): " + quarantined);
+                }
 
-        List<String[]> records = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(inputFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                records.add(line.split(","));
+                long totalValidos = validCounts.values().stream()
+                        .mapToLong(Long::longValue)
+                        .sum();
+
+                System.out.println("\n✅ Total de registros válidos: " + totalValidos);
             }
+
+            printErrorLog(errorLog);
+
+            System.out.println("\n⏱ Métricas por etapa (registros, reg/s por hilo, activo, espera, bloqueo, cola media/máx/capacidad):");
+            for (PipelineStageMetrics metrics : result.metrics()) {
+                System.out.println(" - " + metrics);
+            }
+            timer.addRows(result.metrics().get(0).getRecords());
+            timer.success();
+            return result.metrics();
         }
+    }
 
-        File errorLog = new File("registro_errores.log");
-        if (errorLog.exists()) errorLog.delete(); // limpiar logs previos
-        Map<String, List<String[]>> validByDestination = new LinkedHashMap<>();
+    /**
+     * Comprueba un registro completo: primero la cantidad de columnas y después cada campo según
+     * su {@link ReservationFields}.
+     *
+     * @param row                 registro a revisar.
+     * @param expectedFieldsCount número de columnas esperadas.
+     * @return {@code null} si el registro es válido o la descripción del primer error encontrado.
+     */
+    static String validateRow(String[] row, int expectedFieldsCount) {
+        if (row.length != expectedFieldsCount) {
+            ReservationMetrics.recordFieldCountFailure();
+            return "Número incorrecto de campos (esperados " + expectedFieldsCount + ")";
+        }
 
-        for (String[] row : records) {
-            if (row.length != expectedFieldsCount) {
-                logError(errorLog, row, "Número incorrecto de campos (esperados " + expectedFieldsCount + ")");
-                continue;
+        ReservationFields[] types = ReservationFields.values();
+        for (int i = 0; i < expectedFieldsCount; i++) {
+            int code = FieldValidator.validate(row[i], types[i]);
+            if (code != FieldValidator.OK) {
+                return FieldValidator.message(code, types[i]);
             }
+        }
+        return null;
+    }
 
-            boolean valid = true;
-            String destination = "";
+    /**
+     * Obtiene el destino de un registro ya validado.
+     *
+     * @param row                 registro válido.
+     * @param expectedFieldsCount número de columnas del registro.
+     * @return el destino, o {@code null} si el registro no lo incluye o no pertenece al catálogo.
+     */
+    static Destinations destinationOf(String[] row, int expectedFieldsCount) {
+        int index = ReservationFields.DESTINATION.ordinal();
+        return (expectedFieldsCount > index) ? Destinations.fromText(row[index]) : null;
+    }
 
-            for (int i = 0; i < expectedFieldsCount; i++) {
-                String field = row[i].trim();
-                ReservationFields type = ReservationFields.values()[i];
-                String error = validateField(field, type);
+    /**
+     * Obtiene el archivo de salida de un registro válido.
+     *
+     * @param destination         destino obtenido con {@link #destinationOf(String[], int)}.
+     * @param expectedFieldsCount número de columnas del registro.
+     * @return el archivo del destino, el de cuarentena si el destino no pertenece al catálogo o
+     *         {@code reservas_.txt} si los registros no incluyen destino.
+     */
+    static String outputFileOf(Destinations destination, int expectedFieldsCount) {
+        if (expectedFieldsCount <= ReservationFields.DESTINATION.ordinal()) {
+            return "reservas_.txt";
+        }
+        return destination != null ? destination.fileName() : Destinations.QUARANTINE_FILE_NAME;
+    }
 
-                if (error != null) {
-                    logError(errorLog, row, error);
-                    valid = false;
-                    break;
-                }
+    /**
+     * Convierte un registro ya validado con {@link #validateRow(String[], int)} en una reserva tipada.
+     *
+     * @param row         registro válido.
+     * @param destination destino obtenido con {@link #destinationOf(String[], int)}.
+     * @return la reserva, con los campos de texto ya recortados.
+     */
+    private static ReservationRecord toRecord(String[] row, Destinations destination) {
+        String seat = row[0].trim();
+        int rowPosition = seat.length() - 1;
+        return new ReservationRecord(Integer.parseInt(seat, 0, rowPosition, 10), seat.charAt(rowPosition),
+                row[1].trim(), ReservationClass.valueOf(row[2].trim()), destination);
+    }
 
-                if (type == ReservationFields.DESTINATION) destination = field;
-            }
+    /**
+     * Describe un registro válido tal y como se escribe en su archivo de salida: campos recortados,
+     * asiento sin ceros a la izquierda y destino con el nombre de {@link Destinations} si pertenece al
+     * catálogo.
+     *
+     * @param row                 registro válido.
+     * @param expectedFieldsCount número de columnas del registro.
+     * @return campos separados por comas.
+     */
+    private static String describe(String[] row, int expectedFieldsCount) {
+        String seat = row[0].trim();
+        int rowPosition = seat.length() - 1;
+        Destinations destination = destinationOf(row, expectedFieldsCount);
+        StringJoiner joiner = new StringJoiner(", ");
+        joiner.add(Integer.parseInt(seat, 0, rowPosition, 10) + seat.substring(rowPosition));
+        for (int i = 1; i < row.length; i++) {
+            boolean canonical = i == ReservationFields.DESTINATION.ordinal() && destination != null;
+            joiner.add(canonical ? destination.name() : row[i].trim());
+        }
+        return joiner.toString();
+    }
 
-            if (valid) {
-                validByDestination
-                        .computeIfAbsent(destination, k -> new ArrayList<>())
-                        .add(row);
-            }
+    /**
+     * Reserva el asiento de un registro válido. Los registros en cuarentena no se comprueban.
+     *
+     * @param occupancy           ocupación acumulada de los registros anteriores.
+     * @param row                 registro válido.
+     * @param destination         destino obtenido con {@link #destinationOf(String[], int)}.
+     * @param expectedFieldsCount número de columnas del registro.
+     * @return {@code null} si el asiento estaba libre o la descripción del conflicto.
+     */
+    static String occupySeat(SeatOccupancy occupancy, String[] row, Destinations destination, int expectedFieldsCount) {
+        if (destination == null && expectedFieldsCount > ReservationFields.DESTINATION.ordinal()) {
+            return null;
         }
+        if (occupancy.occupy(destination, SeatOccupancy.seatIndex(row[0]))) {
+            return null;
+        }
+        ReservationMetrics.recordSeatConflict();
+        return SeatOccupancy.conflictMessage(row[0], SeatOccupancy.keyOf(destination));
+    }
 
+    /**
+     * Escribe los ficheros por destino y muestra el resumen del procesamiento, incluido el
+     * contenido del log de errores.
+     *
+     * @param validByDestination  registros válidos agrupados por archivo de salida en orden de aparición.
+     * @param errorLog            archivo de log generado durante la validación.
+     * @param expectedFieldsCount número de columnas de los registros.
+     * @param compressed          {@code true} para comprimir los archivos de salida.
+     * @param concurrentFiles     número de archivos que se escriben a la vez.
+     * @throws IOException si ocurre un problema al escribir los resultados o leer el log.
+     */
+    private static void writeProcessingResults(
+            Map<String, List<String[]>> validByDestination,
+            File errorLog,
+            int expectedFieldsCount,
+            boolean compressed,
+            int concurrentFiles
+    ) throws IOException {
         // Escribir los ficheros de salida
-        for (Map.Entry<String, List<String[]>> entry : validByDestination.entrySet()) {
-            String destination = entry.getKey().toLowerCase();
-            List<String[]> validRecords = entry.getValue();
-            File outputFile = new File("reservas_" + destination + ".txt");
-
-            try (FileWriter fw = new FileWriter(outputFile, false)) {
-                for (String[] row : validRecords) {
-                    fw.write(String.join(",", row) + System.lineSeparator());
-                }
+        try (FileFanOut fanOut = new FileFanOut(concurrentFiles)) {
+            for (Map.Entry<String, List<String[]>> entry : validByDestination.entrySet()) {
+                List<String[]> validRecords = entry.getValue();
+                File outputFile = new File(compressed ? BlockCompression.compressedName(entry.getKey()) : entry.getKey());
+
+                fanOut.submit(outputFile, writer -> {
+                    writer.writeHeader(expectedFieldsCount);
+                    for (String[] row : validRecords) {
+                        writer.write(row, destinationOf(row, expectedFieldsCount));
+                    }
+                });
             }
+            fanOut.await();
         }
 
         // Mostrar resumen
@@ -198,17 +510,22 @@ public class Utils {
             System.out.println("⚠ No se generaron archivos de reservas válidas.");
         } else {
             for (Map.Entry<String, List<String[]>> entry : validByDestination.entrySet()) {
-                String destination = entry.getKey();
                 List<String[]> validRecords = entry.getValue();
-                System.out.println("\nArchivo: reservas_" + destination + ".txt");
+                System.out.println("\nArchivo: " + entry.getKey() + (compressed ? BlockCompression.FILE_SUFFIX : ""));
                 for (String[] row : validRecords) {
-                    System.out.println("   - " + String.join(", ", row));
+                    System.out.println("   - " + describe(row, expectedFieldsCount));
                 }
             }
 
             System.out.println("\n📊 Registros válidos por archivo:");
             for (Map.Entry<String, List<String[]>> entry : validByDestination.entrySet()) {
-                System.out.println(" - reservas_" + entry.getKey() + ".txt: " + entry.getValue().size());
+                System.out.println(" - " + entry.getKey() + ": " + entry.getValue().size());
+            }
+
+            List<String[]> quarantined = validByDestination.get(Destinations.QUARANTINE_FILE_NAME);
+            if (quarantined != null) {
+                System.out.println("\n⚠ Reservas con destino desconocido en cuarentena ("
+                        + Destinations.QUARANTINE_FILE_NAME + "): " + quarantined.size());
             }
 
             int totalValidos = validByDestination.values().stream()
@@ -218,7 +535,16 @@ public class Utils {
             System.out.println("\n✅ Total de registros válidos: " + totalValidos);
         }
 
-        // Mostrar contenido del log de errores
+        printErrorLog(errorLog);
+    }
+
+    /**
+     * Muestra el contenido del log de errores, o un aviso si no hubo errores.
+     *
+     * @param errorLog archivo de log generado durante la validación.
+     * @throws IOException si el log no puede leerse.
+     */
+    private static void printErrorLog(File errorLog) throws IOException {
         if (errorLog.exists()) {
             System.out.println("\n📋 Contenido de 'registro_errores.log':");
             try (BufferedReader br = new BufferedReader(new FileReader(errorLog))) {
@@ -232,21 +558,36 @@ public class Utils {
         }
     }
 
-
     /**
-     * Registra un mensaje de error junto con el registro problemático en un archivo de log.
-     *
-     * @param logFile     archivo donde se almacenará el error.
-     * @param row         registro que provocó la incidencia.
-     * @param description detalle del error encontrado.
+     * Registros de un archivo de salida guardados en un {@link ReservationStore}: solo se conservan
+     * sus posiciones, y los campos se materializan al recorrerlos.
      */
-    private static void logError(File logFile, String[] row, String description) {
-        try (FileWriter fw = new FileWriter(logFile, true)) {
-            String timestamp = LocalDateTime.now(ZoneOffset.UTC)
-                    .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            fw.write(timestamp + ", " + String.join(",", row) + ", " + description + System.lineSeparator());
-        } catch (IOException e) {
-            System.err.println("❌ Error escribiendo en el log: " + e.getMessage());
+    private static final class StoredRows extends AbstractList<String[]> {
+
+        private final ReservationStore store;
+        private int[] indexes = new int[16];
+        private int size;
+
+        StoredRows(ReservationStore store) {
+            this.store = store;
+        }
+
+        void add(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            indexes[size++] = index;
+        }
+
+        @Override
+        public String[] get(int index) {
+            Objects.checkIndex(index, size);
+            return store.fields(indexes[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
         }
     }
 }